@@ -0,0 +1,67 @@
+package app.benchmarks;
+
+import app.cache.DepartementPdfCache;
+import app.exports.DepartementPdfExporter;
+import com.itextpdf.text.DocumentException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF du département qui compte le plus de communes, servi par {@code GET /departements/export/pdf/{code}} :
+ * génération complète ({@link DepartementPdfExporter}, tableau écrit par blocs), lecture dans le cache
+ * des PDF ({@link DepartementPdfCache}) et calcul de l'ETag seul, qui suffit à répondre 304.
+ * <p>
+ * Avec {@code -prof gc}, l'allocation par génération montre que la mémoire ne suit pas la taille du
+ * département.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepartementPdfBenchmark {
+
+    private DepartementPdfExporter exporter;
+    private DepartementPdfCache cache;
+    private String code;
+
+    @Setup
+    public void preparer(RecensementContexte contexte) {
+        exporter = contexte.bean(DepartementPdfExporter.class);
+        cache = contexte.bean(DepartementPdfCache.class);
+        code = contexte.bean(JdbcTemplate.class).queryForObject(
+                "SELECT d.code FROM ville v JOIN departement d ON d.id = v.departement_id "
+                        + "GROUP BY d.code ORDER BY COUNT(*) DESC, d.code LIMIT 1", String.class);
+        // Premier appel : le PDF de la version courante entre dans le cache
+        cache.pdf(code, cache.version(code));
+    }
+
+    @Benchmark
+    public void generation() throws DocumentException {
+        exporter.exporter(code, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] cache() {
+        return cache.pdf(code, cache.version(code));
+    }
+
+    @Benchmark
+    public String etag() {
+        return cache.etag(code, cache.version(code));
+    }
+}
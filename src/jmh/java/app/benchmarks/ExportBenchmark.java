@@ -0,0 +1,58 @@
+package app.benchmarks;
+
+import app.exports.DepartementPdfExporter;
+import app.exports.VilleCsvExporter;
+import com.itextpdf.text.DocumentException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports servis par {@code GET /villes/export/csv/population/min/{min}} et
+ * {@code GET /departements/export/pdf/{code}},
+ * écrits dans un flux qui ignore les octets : seul le coût de lecture et de génération est mesuré
+ * (hors cache PDF et hors réseau).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    private VilleCsvExporter csvExporter;
+    private DepartementPdfExporter pdfExporter;
+
+    @Setup
+    public void preparer(RecensementContexte contexte) {
+        csvExporter = contexte.bean(VilleCsvExporter.class);
+        pdfExporter = contexte.bean(DepartementPdfExporter.class);
+    }
+
+    @Benchmark
+    public long exportCsvToutesVilles() throws IOException {
+        return csvExporter.exporter(0, OutputStream::nullOutputStream);
+    }
+
+    @Benchmark
+    public long exportCsvGrandesVilles() throws IOException {
+        return csvExporter.exporter(10_000, OutputStream::nullOutputStream);
+    }
+
+    @Benchmark
+    public void exportPdfDepartement() throws DocumentException {
+        pdfExporter.exporter("34", OutputStream.nullOutputStream());
+    }
+}
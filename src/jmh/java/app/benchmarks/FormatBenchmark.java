@@ -0,0 +1,94 @@
+package app.benchmarks;
+
+import app.dto.VilleDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Coût et taille des formats de réponse négociables pour une liste de villes :
+ * JSON (format par défaut), CBOR et Smile, sans puis avec compression gzip.
+ * <p>
+ * La taille de la réponse produite est reportée dans le résultat sous la métrique
+ * secondaire {@code octets}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"1000", "35000"})
+    int taille;
+
+    private ObjectMapper objectMapper;
+    private List<VilleDto> villes;
+
+    /**
+     * Taille de la dernière réponse produite.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Taille {
+
+        public long octets;
+
+        @Setup(Level.Iteration)
+        public void reinitialiser() {
+            octets = 0;
+        }
+    }
+
+    @Setup
+    public void preparer() {
+        objectMapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> new ObjectMapper();
+        };
+        villes = JeuDeDonnees.villes(taille);
+    }
+
+    @Benchmark
+    public byte[] serialiser(Taille resultat) throws IOException {
+        byte[] octets = objectMapper.writeValueAsBytes(villes);
+        resultat.octets = octets.length;
+        return octets;
+    }
+
+    @Benchmark
+    public byte[] serialiserGzip(Taille resultat) throws IOException {
+        ByteArrayOutputStream tampon = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(tampon)) {
+            objectMapper.writeValue(gzip, villes);
+        }
+        byte[] octets = tampon.toByteArray();
+        resultat.octets = octets.length;
+        return octets;
+    }
+}
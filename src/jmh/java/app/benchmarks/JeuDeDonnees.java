@@ -0,0 +1,61 @@
+package app.benchmarks;
+
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.entities.Departement;
+import app.entities.Ville;
+import app.loader.RecensementCsvParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Communes réelles lues depuis recensement.csv, pour les benchmarks sans base de données.
+ */
+final class JeuDeDonnees {
+
+    private JeuDeDonnees() {
+    }
+
+    /**
+     * @param n nombre de communes souhaité.
+     * @return les {@code n} premières communes du fichier, avec un identifiant séquentiel.
+     */
+    static List<VilleDto> villes(int n) {
+        List<VilleDto> villes = new ArrayList<>(n);
+        try (InputStream in = JeuDeDonnees.class.getResourceAsStream("/recensement.csv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            RecensementCsvParser.parcourir(reader, dto -> {
+                if (villes.size() < n) {
+                    dto.setId((long) villes.size() + 1);
+                    villes.add(dto);
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return villes;
+    }
+
+    /**
+     * @param dtos communes à convertir.
+     * @return les entités correspondantes, rattachées à un département par code.
+     */
+    static List<Ville> entites(List<VilleDto> dtos) {
+        Map<String, Departement> departements = new HashMap<>();
+        List<Ville> villes = new ArrayList<>(dtos.size());
+        for (VilleDto dto : dtos) {
+            Departement dep = departements.computeIfAbsent(dto.getCodeDepartement(), code -> new Departement(code, null));
+            villes.add(VilleMapper.toEntity(dto, dep));
+        }
+        return villes;
+    }
+}
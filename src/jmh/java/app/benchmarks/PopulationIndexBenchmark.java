@@ -0,0 +1,105 @@
+package app.benchmarks;
+
+import app.dto.DepartementDto;
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.dto.VilleProjection;
+import app.repository.VilleRepository;
+import app.services.DepartementService;
+import app.services.VilleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherches par population : {@link VilleService}, servi par le {@code PopulationIndex} (mode {@code base})
+ * ou par la photographie (mode {@code snapshot}), face aux requêtes JPA triées par la base
+ * ({@link VilleRepository}) qu'il remplace.
+ * <p>
+ * Mesuré par échantillonnage ({@link Mode#SampleTime}) : JMH rapporte la distribution des latences,
+ * dont le p99, et pas seulement la moyenne.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopulationIndexBenchmark {
+
+    private static final String CODE_DEPARTEMENT = "34";
+
+    private VilleService villeService;
+    private VilleRepository villeRepository;
+    private DepartementDto departement;
+
+    @Setup
+    public void preparer(RecensementContexte contexte) {
+        villeService = contexte.bean(VilleService.class);
+        villeRepository = contexte.bean(VilleRepository.class);
+        departement = contexte.bean(DepartementService.class).findByCode(CODE_DEPARTEMENT).orElseThrow();
+    }
+
+    @Benchmark
+    public Object populationMinIndex() {
+        return villeService.findByPopulationMin(50_000);
+    }
+
+    @Benchmark
+    public Object populationMinJpa() {
+        return toDtos(villeRepository.findByPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(50_000));
+    }
+
+    @Benchmark
+    public Object populationEntreIndex() {
+        return villeService.findByPopulationBetween(10_000, 20_000);
+    }
+
+    @Benchmark
+    public Object populationEntreJpa() {
+        return toDtos(villeRepository.findByPopulationTotaleBetweenOrderByPopulationTotaleDesc(10_000, 20_000));
+    }
+
+    @Benchmark
+    public Object departementPopulationMinIndex() {
+        return villeService.findByDepartementAndPopulationMin(departement, 5_000);
+    }
+
+    @Benchmark
+    public Object departementPopulationMinJpa() {
+        return toDtos(villeRepository.findByDepartementAndPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(
+                CODE_DEPARTEMENT, 5_000));
+    }
+
+    @Benchmark
+    public Object departementPopulationEntreIndex() {
+        return villeService.findByDepartementAndPopulationBetween(departement, 1_000, 5_000);
+    }
+
+    @Benchmark
+    public Object departementPopulationEntreJpa() {
+        return toDtos(villeRepository.findByDepartementAndPopulationTotaleBetweenOrderByPopulationTotaleDesc(
+                CODE_DEPARTEMENT, 1_000, 5_000));
+    }
+
+    /** Conversion faite par le service sur le chemin JPA, pour comparer des réponses identiques. */
+    private static List<VilleDto> toDtos(List<VilleProjection> projections) {
+        List<VilleDto> villes = new ArrayList<>(projections.size());
+        for (VilleProjection v : projections) {
+            villes.add(VilleMapper.toDto(v));
+        }
+        return villes;
+    }
+}
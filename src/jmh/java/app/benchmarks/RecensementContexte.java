@@ -0,0 +1,48 @@
+package app.benchmarks;
+
+import app.RecensementApiApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Application démarrée avec le profil {@code jmh} : base H2 en mémoire chargée depuis
+ * recensement.csv, index construits, caches actifs.
+ * <p>
+ * Le démarrage valide aussi toutes les requêtes JPQL des repositories sur H2.
+ * Une seule instance est démarrée par fork et partagée par les benchmarks qui la déclarent.
+ * </p>
+ * <p>
+ * Chaque benchmark est mesuré dans les deux modes de service des lectures ({@code recensement.mode}) :
+ * base de données, index et caches, ou photographie en mémoire.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class RecensementContexte {
+
+    @Param({"base", "snapshot"})
+    String mode;
+
+    private ConfigurableApplicationContext contexte;
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        contexte = new SpringApplicationBuilder(RecensementApiApplication.class)
+                .profiles("jmh")
+                .run("--recensement.mode=" + mode);
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        contexte.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return contexte.getBean(type);
+    }
+}
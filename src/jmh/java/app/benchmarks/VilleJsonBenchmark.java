@@ -0,0 +1,56 @@
+package app.benchmarks;
+
+import app.dto.VilleDto;
+import app.entities.Ville;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON de listes de villes, en entités et en DTO (ce que renvoient les contrôleurs).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VilleJsonBenchmark {
+
+    @Param({"100", "10000"})
+    int taille;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<VilleDto> dtos;
+    private List<Ville> villes;
+
+    @Setup
+    public void preparer() {
+        dtos = JeuDeDonnees.villes(taille);
+        villes = JeuDeDonnees.entites(dtos);
+    }
+
+    @Benchmark
+    public byte[] serialiserEntites() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(villes);
+    }
+
+    @Benchmark
+    public byte[] serialiserDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,78 @@
+package app.benchmarks;
+
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.entities.Departement;
+import app.services.VilleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Création de {@code taille} villes : une à une par {@link VilleService#addVille}
+ * (une transaction et un INSERT par ville), ou en un appel à {@link VilleService#addVilles}
+ * (INSERT regroupés en lots JDBC).
+ * <p>
+ * Chaque invocation crée des villes aux codes INSEE nouveaux : la base grossit au fil des mesures,
+ * d'où un nombre d'invocations limité.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VilleLotBenchmark {
+
+    private static final String CODE_DEPARTEMENT = "34";
+
+    @Param({"100", "1000"})
+    int taille;
+
+    private VilleService villeService;
+    private List<VilleDto> lot;
+    private int serie;
+
+    @Setup
+    public void preparer(RecensementContexte contexte) {
+        villeService = contexte.bean(VilleService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void nouveauLot() {
+        serie++;
+        lot = new ArrayList<>(taille);
+        for (int i = 0; i < taille; i++) {
+            VilleDto dto = new VilleDto(null, "Bench " + serie + "-" + i, "B" + serie + "-" + i, CODE_DEPARTEMENT, 1000 + i);
+            lot.add(dto);
+        }
+    }
+
+    @Benchmark
+    public int addVilleUneParUne() {
+        Departement departement = new Departement(CODE_DEPARTEMENT, null);
+        for (VilleDto dto : lot) {
+            villeService.addVille(VilleMapper.toEntity(dto, departement));
+        }
+        return lot.size();
+    }
+
+    @Benchmark
+    public Object addVillesEnLot() {
+        return villeService.addVilles(lot);
+    }
+}
@@ -0,0 +1,68 @@
+package app.benchmarks;
+
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.dto.VilleProjection;
+import app.entities.Ville;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions {@link VilleMapper} appliquées à une liste de communes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VilleMapperBenchmark {
+
+    @Param({"100", "10000"})
+    int taille;
+
+    private List<VilleDto> dtos;
+    private List<Ville> villes;
+    private List<VilleProjection> projections;
+
+    @Setup
+    public void preparer() {
+        dtos = JeuDeDonnees.villes(taille);
+        villes = JeuDeDonnees.entites(dtos);
+        projections = villes.stream().map(VilleProjection::of).toList();
+    }
+
+    @Benchmark
+    public void toDto(Blackhole bh) {
+        for (Ville v : villes) {
+            bh.consume(VilleMapper.toDto(v));
+        }
+    }
+
+    @Benchmark
+    public void toDtoProjection(Blackhole bh) {
+        for (VilleProjection v : projections) {
+            bh.consume(VilleMapper.toDto(v));
+        }
+    }
+
+    @Benchmark
+    public void toEntity(Blackhole bh) {
+        for (int i = 0; i < dtos.size(); i++) {
+            bh.consume(VilleMapper.toEntity(dtos.get(i), villes.get(i).getDepartement()));
+        }
+    }
+}
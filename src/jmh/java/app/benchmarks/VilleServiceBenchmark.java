@@ -0,0 +1,91 @@
+package app.benchmarks;
+
+import app.dto.DepartementDto;
+import app.services.DepartementService;
+import app.services.VilleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherches de {@link VilleService} sur la base H2 chargée depuis recensement.csv,
+ * en passant par le proxy Spring (transactions, caches et index compris).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VilleServiceBenchmark {
+
+    private static final String CODE_DEPARTEMENT = "34";
+
+    private VilleService villeService;
+    private DepartementDto departement;
+
+    @Setup
+    public void preparer(RecensementContexte contexte) {
+        villeService = contexte.bean(VilleService.class);
+        departement = contexte.bean(DepartementService.class).findByCode(CODE_DEPARTEMENT).orElseThrow();
+    }
+
+    @Benchmark
+    public Object getAll() {
+        return villeService.getAll(10, 100);
+    }
+
+    @Benchmark
+    public Object getAllParCurseur() {
+        return villeService.getAllParCurseur(null, "population", 100);
+    }
+
+    @Benchmark
+    public Object getById() {
+        return villeService.getById(1000L);
+    }
+
+    @Benchmark
+    public Object findByNomExact() {
+        return villeService.findByNomExact("Montpellier");
+    }
+
+    @Benchmark
+    public Object findByNomPrefix() {
+        return villeService.findByNomPrefix("saint");
+    }
+
+    @Benchmark
+    public Object findByPopulationMin() {
+        return villeService.findByPopulationMin(50_000);
+    }
+
+    @Benchmark
+    public Object findByPopulationBetween() {
+        return villeService.findByPopulationBetween(10_000, 20_000);
+    }
+
+    @Benchmark
+    public Object findByDepartementAndPopulationMin() {
+        return villeService.findByDepartementAndPopulationMin(departement, 5_000);
+    }
+
+    @Benchmark
+    public Object findByDepartementAndPopulationBetween() {
+        return villeService.findByDepartementAndPopulationBetween(departement, 1_000, 5_000);
+    }
+
+    @Benchmark
+    public Object findTopNByDepartement() {
+        return villeService.findTopNByDepartement(departement, 10);
+    }
+}
@@ -0,0 +1,56 @@
+package app.local;
+
+import app.cache.DatasetVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Réplique H2 locale (profil {@code replique}) : copie de la base primaire une fois les données
+ * chargées, avant que les lectures ne soient routées vers elle.
+ * <p>
+ * La copie n'est faite qu'au démarrage : une écriture ultérieure n'est visible sur la réplique
+ * que par la fenêtre de lecture sur la primaire. Passé ce délai, la réplique resservant l'état
+ * initial, l'effet de la fenêtre s'observe directement.
+ * </p>
+ */
+@Component
+@Profile("replique")
+public class RepliqueLocale {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RepliqueLocale.class);
+
+    private final JdbcTemplate primaire;
+    private final JdbcTemplate replique;
+
+    public RepliqueLocale(@Qualifier("dataSourcePrimaire") DataSource primaire,
+                          @Qualifier("dataSourceReplique") DataSource replique) {
+        this.primaire = new JdbcTemplate(primaire);
+        this.replique = new JdbcTemplate(replique);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void copier() throws IOException {
+        long debut = System.nanoTime();
+        Path script = Files.createTempFile("replique-", ".sql");
+        try {
+            primaire.execute("SCRIPT TO '" + script + "'");
+            replique.execute("RUNSCRIPT FROM '" + script + "'");
+        } finally {
+            Files.deleteIfExists(script);
+        }
+        LOG.info("Réplique locale recopiée depuis la primaire en {} ms.", (System.nanoTime() - debut) / 1_000_000);
+    }
+}
@@ -1,19 +1,29 @@
 package app;
 
-import app.dto.DepartementDto;
-import app.dto.DepartementMapper;
+import app.dto.RafraichissementDto;
 import app.dto.VilleDto;
-import app.dto.VilleMapper;
-import app.entities.Departement;
-import app.entities.Ville;
-import app.repository.DepartementRepository;
-import app.repository.VilleRepository;
+import app.loader.ChargementParallele;
+import app.loader.ChargeurRecensement;
+import app.loader.CommunesJsonParser;
+import app.loader.RecensementJdbcWriter;
+import app.loader.Synchronisation;
+import app.metrics.ChargementMetriques;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Charge les départements et les communes depuis l'API GeoGouv au démarrage de l'application.
@@ -22,79 +32,215 @@ import java.util.Optional;
  * {@link #run(String...)} automatiquement après le lancement de Spring Boot.
  * </p>
  * <p>
- * Les départements sont récupérés depuis :
+ * Les régions et les départements sont récupérés depuis :
+ * <a href="https://geo.api.gouv.fr/regions">API Régions</a> et
  * <a href="https://geo.api.gouv.fr/departements">API Départements</a>
  * </p>
  * Les communes sont récupérées depuis :
  * <a href="https://geo.api.gouv.fr/communes?fields=nom,code,codeDepartement,population">
  * API Communes avec population</a>
  * </p>
+ * <p>
+ * Les codes et empreintes des villes existantes sont préchargés en une requête ; seules les communes
+ * nouvelles ou modifiées sont écrites, par lots JDBC dans leur propre transaction, et les villes
+ * disparues de l'API sont supprimées ({@link Synchronisation}). Le même chargement sert
+ * au rafraîchissement à chaud ({@link #rafraichir()}).
+ * </p>
+ * <p>
+ * Source par défaut ; {@code recensement.source=csv} lui substitue le chargement hors-ligne
+ * du fichier recensement.csv ({@link app.loader.RecensementCsvLoader}).
+ * </p>
  */
 @Component
-public class RecensementApiExterne implements CommandLineRunner {
+@ConditionalOnProperty(name = "recensement.source", havingValue = "api", matchIfMissing = true)
+public class RecensementApiExterne implements CommandLineRunner, ChargeurRecensement {
 
-    private final DepartementRepository departementRepository;
-    private final VilleRepository villeRepository;
+    private static final Logger LOG = LoggerFactory.getLogger(RecensementApiExterne.class);
+
+    private static final String SOURCE = "api";
+
+    private final RecensementJdbcWriter writer;
+    private final ChargementMetriques metriques;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
     private final RestTemplate restTemplate = new RestTemplate();
+    private final String baseUrl;
+    private final int tailleLot;
+    private final int parallelisme;
 
-    public RecensementApiExterne(DepartementRepository departementRepository,
-                                 VilleRepository villeRepository) {
-        this.departementRepository = departementRepository;
-        this.villeRepository = villeRepository;
+    public RecensementApiExterne(RecensementJdbcWriter writer,
+                                 ChargementMetriques metriques,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${recensement.api.url:https://geo.api.gouv.fr}") String baseUrl,
+                                 @Value("${recensement.api.taille-lot:5000}") int tailleLot,
+                                 @Value("${recensement.chargement.parallelisme:8}") int parallelisme) {
+        this.writer = writer;
+        this.metriques = metriques;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.tailleLot = tailleLot;
+        this.parallelisme = parallelisme;
     }
 
     @Override
     public void run(String... args) {
-        loadDepartements();
-        loadCommunes();
+        rafraichir();
+    }
+
+    @Override
+    public RafraichissementDto rafraichir() {
+        long debut = System.nanoTime();
+        Map<String, Long> idsDepartement = loadDepartements();
+        RafraichissementDto bilan = loadCommunes(idsDepartement, debut);
+        metriques.phase(SOURCE, "total", debut, System.nanoTime());
+        return bilan;
     }
 
     /**
-     * Charge tous les départements depuis l'API et les sauvegarde en base
-     * uniquement s'ils n'existent pas déjà.
+     * Région telle que renvoyée par {@code /regions}.
      */
-    private void loadDepartements() {
-        String url = "https://geo.api.gouv.fr/departements";
-        DepartementDto[] depDtos = restTemplate.getForObject(url, DepartementDto[].class);
+    private record RegionApi(String code, String nom) {
+    }
 
+    /**
+     * Département tel que renvoyé par {@code /departements}.
+     */
+    private record DepartementApi(String code, String nom, String codeRegion) {
+    }
+
+    /**
+     * Charge toutes les régions et tous les départements depuis l'API et insère en un lot ceux
+     * qui n'existent pas déjà, chaque département rattaché à sa région.
+     *
+     * @return map code du département → identifiant technique, pour tous les départements en base.
+     */
+    private Map<String, Long> loadDepartements() {
+        long debut = System.nanoTime();
+        RegionApi[] regions = restTemplate.getForObject(baseUrl + "/regions", RegionApi[].class);
+        DepartementApi[] depDtos = restTemplate.getForObject(baseUrl + "/departements", DepartementApi[].class);
+        long finTelechargement = System.nanoTime();
+
+        Map<String, Long> idsRegion = writer.chargerIdsRegions();
+        Map<String, Long> idsDepartement = writer.chargerIdsDepartements();
+        long finPrechargement = System.nanoTime();
+
+        int inseres = 0;
         if (depDtos != null) {
-            Arrays.stream(depDtos).forEach(dto -> {
-                Optional<Departement> existing = departementRepository.findByCode(dto.getCode());
-                if (existing.isEmpty()) {
-                    Departement dep = DepartementMapper.toEntity(dto);
-                    departementRepository.save(dep);
+            Map<String, String> nomsRegion = new HashMap<>();
+            for (RegionApi region : regions == null ? new RegionApi[0] : regions) {
+                nomsRegion.put(region.code(), region.nom());
+            }
+            Map<String, String> noms = new HashMap<>();
+            for (DepartementApi dto : depDtos) {
+                noms.put(dto.code(), dto.nom());
+                // Région absente de /regions : créée avec son seul code
+                nomsRegion.putIfAbsent(dto.codeRegion(), null);
+            }
+            nomsRegion.remove(null);
+            Integer nb = transactionTemplate.execute(status -> {
+                writer.insererRegionsManquantes(nomsRegion, idsRegion);
+                Map<String, Long> regionDesDepartements = new HashMap<>();
+                for (DepartementApi dto : depDtos) {
+                    if (dto.codeRegion() != null) {
+                        regionDesDepartements.put(dto.code(), idsRegion.get(dto.codeRegion()));
+                    }
                 }
+                return writer.insererDepartementsManquants(noms.keySet(), noms, regionDesDepartements, idsDepartement);
             });
+            inseres = nb == null ? 0 : nb;
         }
+        long fin = System.nanoTime();
+        metriques.phase(SOURCE, "departements_telechargement", debut, finTelechargement);
+        metriques.phase(SOURCE, "departements_prechargement", finTelechargement, finPrechargement);
+        metriques.phase(SOURCE, "departements_insertion", finPrechargement, fin);
+        metriques.insertions(SOURCE, "departement", inseres);
+
+        LOG.info("Départements : {} reçus ({} régions), {} insérés (téléchargement {} ms, préchargement {} ms, insertion {} ms).",
+                depDtos == null ? 0 : depDtos.length, regions == null ? 0 : regions.length, inseres,
+                millis(debut, finTelechargement), millis(finTelechargement, finPrechargement),
+                millis(finPrechargement, fin));
+        return idsDepartement;
     }
 
     /**
-     * Charge toutes les communes depuis l'API et les sauvegarde en base.
+     * Charge toutes les communes depuis l'API et insère par lots celles qui n'existent pas déjà.
      * La population retournée par l'API correspond à la population totale,
      * que l'on recopie également dans population municipale pour éviter d'avoir 0.
+     * <p>
+     * Les communes sont demandées département par département
+     * ({@code /departements/{code}/communes}), chaque département sur son propre thread virtuel ;
+     * au plus {@code recensement.chargement.parallelisme} départements sont chargés en même temps
+     * ({@link ChargementParallele}). Chaque réponse est lue en flux ({@link CommunesJsonParser}) :
+     * un lot est écrit dès qu'il est plein, pendant que le téléchargement se poursuit.
+     * </p>
+     *
+     * @param idsDepartement map code du département → identifiant technique.
+     * @param debutChargement début du chargement complet, départements compris.
+     * @return le bilan du rafraîchissement des communes.
      */
-    private void loadCommunes() {
-        // Ajout du limit=50000 pour tout récupérer
-        String url = "https://geo.api.gouv.fr/communes?fields=nom,code,codeDepartement,population&limit=50000";
-        VilleDto[] villeDtos = restTemplate.getForObject(url, VilleDto[].class);
-
-        if (villeDtos != null) {
-            Arrays.stream(villeDtos).forEach(dto -> {
-                Optional<Ville> existing = villeRepository.findByCode(dto.getCode());
-                if (existing.isEmpty()) {
-                    // Cherche le département associé
-                    Optional<Departement> depOpt = departementRepository.findByCode(dto.getCodeDepartement());
-                    depOpt.ifPresent(dep -> {
-                        // Copie population dans les deux champs
-                        dto.setPopulationTotale(dto.getPopulationTotale());
-                        dto.setPopulationMunicipale(dto.getPopulationTotale());
-
-                        Ville ville = VilleMapper.toEntity(dto, dep);
-                        villeRepository.save(ville);
-                    });
-                }
-            });
-            System.out.println(villeDtos.length + " communes chargées.");
+    private RafraichissementDto loadCommunes(Map<String, Long> idsDepartement, long debutChargement) {
+        long debut = System.nanoTime();
+        Synchronisation synchronisation = new Synchronisation(writer, transactionTemplate, SOURCE);
+        long finPrechargement = System.nanoTime();
+
+        AtomicLong lues = new AtomicLong();
+        AtomicLong dureeInsertion = new AtomicLong();
+        try (ChargementParallele chargement = new ChargementParallele(parallelisme)) {
+            for (String codeDep : idsDepartement.keySet()) {
+                chargement.soumettre(() -> {
+                    String url = baseUrl + "/departements/" + codeDep + "/communes?fields=nom,code,codeDepartement,population";
+                    List<VilleDto> lot = new ArrayList<>(tailleLot);
+                    Long nb = restTemplate.execute(url, HttpMethod.GET, null, response ->
+                            CommunesJsonParser.parcourir(response.getBody(), objectMapper, dto -> {
+                                // Filtrage en mémoire : communes nouvelles ou modifiées dont le département existe.
+                                // Toute commune reçue est d'abord marquée comme lue, pour ne pas être supprimée.
+                                if (!synchronisation.aEcrire(dto) || !idsDepartement.containsKey(dto.getCodeDepartement())) {
+                                    return;
+                                }
+                                lot.add(dto);
+                                if (lot.size() >= tailleLot) {
+                                    ecrireLot(lot, idsDepartement, synchronisation, dureeInsertion);
+                                }
+                            }));
+                    if (!lot.isEmpty()) {
+                        ecrireLot(lot, idsDepartement, synchronisation, dureeInsertion);
+                    }
+                    lues.addAndGet(nb == null ? 0 : nb);
+                });
+            }
+            chargement.attendre();
         }
+        long finEcriture = System.nanoTime();
+        RafraichissementDto bilan = synchronisation.terminer(debutChargement);
+        long fin = System.nanoTime();
+        metriques.phase(SOURCE, "communes_prechargement", debut, finPrechargement);
+        metriques.phase(SOURCE, "communes_lecture_insertion", finPrechargement, finEcriture);
+        metriques.phase(SOURCE, "communes_suppression", finEcriture, fin);
+        metriques.insertions(SOURCE, "ville", bilan.inserees());
+
+        LOG.info("Communes : {} reçues, {} déjà en base : {} insérées, {} mises à jour, {} supprimées, {} inchangées "
+                        + "(préchargement {} ms, lecture des flux et écriture {} ms dont écriture cumulée {} ms, "
+                        + "suppression {} ms, {} départements en parallèle).",
+                lues.get(), synchronisation.existantes(), bilan.inserees(), bilan.modifiees(), bilan.supprimees(),
+                bilan.inchangees(), millis(debut, finPrechargement), millis(finPrechargement, finEcriture),
+                dureeInsertion.get() / 1_000_000, millis(finEcriture, fin), parallelisme);
+        return bilan;
+    }
+
+    /**
+     * Écrit un lot de communes dans sa propre transaction puis vide le lot.
+     */
+    private void ecrireLot(List<VilleDto> lot, Map<String, Long> idsDepartement,
+                           Synchronisation synchronisation, AtomicLong dureeInsertion) {
+        long debut = System.nanoTime();
+        synchronisation.ecrire(lot, idsDepartement);
+        lot.clear();
+        dureeInsertion.addAndGet(System.nanoTime() - debut);
+    }
+
+    private static long millis(long debut, long fin) {
+        return (fin - debut) / 1_000_000;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package app.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Active le cache applicatif (Caffeine, configuré par {@code spring.cache.caffeine.spec}).
+ * <p>
+ * Les caches sont bornés en taille et en durée de vie et enregistrent leurs statistiques
+ * (taux de succès, évictions, temps de chargement), consultables sur {@code /caches}.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** Départements par code. */
+    public static final String DEPARTEMENTS = "departements";
+
+    /** Villes par identifiant. */
+    public static final String VILLES = "villes";
+
+    /** Villes par nom exact (clé en minuscules). */
+    public static final String VILLES_PAR_NOM = "villesParNom";
+
+    /** PDF des départements par code et version des données, borné en octets. */
+    public static final String DEPARTEMENTS_PDF = "departementsPdf";
+
+    /**
+     * Ajoute le cache des PDF, borné par la taille cumulée des documents plutôt que par leur nombre.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cachePdfCustomizer(
+            @Value("${recensement.pdf.cache.taille-max-octets:67108864}") long tailleMax) {
+        return manager -> manager.registerCustomCache(DEPARTEMENTS_PDF, Caffeine.newBuilder()
+                .maximumWeight(tailleMax)
+                .weigher((cle, valeur) -> valeur instanceof byte[] octets ? octets.length : 1)
+                .recordStats()
+                .build());
+    }
+}
@@ -0,0 +1,140 @@
+package app.cache;
+
+import app.events.DepartementEvent;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions des données, incrémentées à chaque écriture validée.
+ * <p>
+ * Chaque département a sa propre version, avancée quand lui-même ou l'une de ses villes change.
+ * Une version est préfixée par l'instant de démarrage de l'application : après un redémarrage
+ * (et donc un rechargement des données), aucune ancienne version ne peut être confondue
+ * avec une nouvelle.
+ * </p>
+ * <p>
+ * Une version globale avance à chaque écriture, quelle qu'elle soit ; elle sert d'ETag à toutes
+ * les lectures ({@link VersionEtagFilter}). Elle n'est publiée qu'une fois le chargement initial
+ * terminé, et ses écouteurs passent après ceux qui mettent à jour caches et index
+ * ({@link #AVANT_VERSION}) : une version n'est jamais associée à des données plus anciennes qu'elle.
+ * </p>
+ * <p>
+ * Les clés des caches de lecture portent aussi une version ({@link #cleDepartement(String)},
+ * {@link #cleVille(Object)}) : une lecture commencée avant une écriture et terminée après son
+ * invalidation range l'état précédent sous l'ancienne version, que plus aucune lecture ne consulte.
+ * </p>
+ */
+@Component
+public class DatasetVersion {
+
+    private final String demarrage = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Ordre des écouteurs (fin du chargement, {@link VilleEvent}, {@link DepartementEvent}) qui doivent
+     * être appliqués avant l'avancement des versions : invalidation des caches, index en mémoire.
+     */
+    public static final int AVANT_VERSION = 0;
+
+    private final Map<String, AtomicLong> parDepartement = new ConcurrentHashMap<>();
+
+    private final AtomicLong globale = new AtomicLong();
+
+    /** Nombre de rechargements complets des données servies, partie de chaque version de département. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean pret;
+
+    /**
+     * @param codeDepartement code du département.
+     * @return version courante des données du département, stable tant qu'elles ne changent pas.
+     */
+    public String departement(String codeDepartement) {
+        AtomicLong version = parDepartement.get(codeDepartement);
+        return demarrage + "-" + generation.get() + "-" + (version == null ? 0 : version.get());
+    }
+
+    /**
+     * @return version courante de l'ensemble des données, ou {@code null} tant que le chargement
+     * initial n'est pas terminé.
+     */
+    public String globale() {
+        return pret ? demarrage + "-" + globale.get() : null;
+    }
+
+    /**
+     * @param code code du département.
+     * @return clé du département dans le cache {@link CacheConfig#DEPARTEMENTS}, à la version courante
+     * de ses données.
+     */
+    public String cleDepartement(String code) {
+        return departement(code) + ":" + code;
+    }
+
+    /**
+     * @param cle identifiant ou nom (en minuscules) d'une ville.
+     * @return clé dans les caches {@link CacheConfig#VILLES} et {@link CacheConfig#VILLES_PAR_NOM}, à la
+     * version globale courante : l'identifiant ne dit pas le département de la ville.
+     */
+    public String cleVille(Object cle) {
+        return demarrage + "-" + globale.get() + ":" + cle;
+    }
+
+    /**
+     * Données chargées : la version globale peut être publiée. Avance aussi la version, de sorte
+     * qu'un rechargement ultérieur invalide les ETags déjà distribués.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onChargement() {
+        globale.incrementAndGet();
+        pret = true;
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onVilleEvent(VilleEvent event) {
+        if (event.avant() != null) {
+            avancer(event.avant().codeDepartement());
+        }
+        if (event.apres() != null) {
+            avancer(event.apres().codeDepartement());
+        }
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onVillesEvent(VillesEvent event) {
+        event.villes().forEach(this::onVilleEvent);
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onDepartementEvent(DepartementEvent event) {
+        avancer(event.code());
+    }
+
+    /**
+     * Toutes les données servies viennent d'être remplacées (photographie rechargée,
+     * {@link app.snapshot.SnapshotRecensement}) : la version globale et celles de tous les
+     * départements avancent.
+     */
+    public void recharger() {
+        generation.incrementAndGet();
+        globale.incrementAndGet();
+    }
+
+    private void avancer(String codeDepartement) {
+        globale.incrementAndGet();
+        parDepartement.computeIfAbsent(codeDepartement, k -> new AtomicLong()).incrementAndGet();
+    }
+}
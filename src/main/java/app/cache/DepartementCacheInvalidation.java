@@ -0,0 +1,39 @@
+package app.cache;
+
+import app.events.DepartementEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalide l'entrée de cache d'un département créé, modifié ou supprimé.
+ * <p>
+ * Comme pour les villes ({@link VilleCacheInvalidation}), l'éviction a lieu après validation de la
+ * transaction, à la version courante du département : l'état précédent qu'une lecture concurrente
+ * rangerait ensuite reste sous cette version, que plus aucune lecture ne consulte
+ * ({@link DatasetVersion#cleDepartement(String)}). Les villes d'un département supprimé sont
+ * invalidées une à une par leurs propres {@code VilleEvent}.
+ * </p>
+ */
+@Component
+public class DepartementCacheInvalidation {
+
+    private final CacheManager cacheManager;
+    private final DatasetVersion datasetVersion;
+
+    public DepartementCacheInvalidation(CacheManager cacheManager, DatasetVersion datasetVersion) {
+        this.cacheManager = cacheManager;
+        this.datasetVersion = datasetVersion;
+    }
+
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void onDepartementEvent(DepartementEvent event) {
+        Cache departements = cacheManager.getCache(CacheConfig.DEPARTEMENTS);
+        if (departements != null) {
+            departements.evict(datasetVersion.cleDepartement(event.code()));
+        }
+    }
+}
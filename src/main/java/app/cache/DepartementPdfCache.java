@@ -0,0 +1,73 @@
+package app.cache;
+
+import app.exports.DepartementPdfExporter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Cache des PDF de départements, indexé par code et version des données ({@link DatasetVersion}).
+ * <p>
+ * Un PDF n'est généré qu'une fois par version : toute écriture sur le département ou l'une
+ * de ses villes avance la version, de sorte que l'ancien document n'est plus jamais servi
+ * et finit évincé. La version sert aussi d'ETag.
+ * </p>
+ */
+@Component
+public class DepartementPdfCache {
+
+    private final DepartementPdfExporter exporter;
+    private final DatasetVersion datasetVersion;
+    private final CacheManager cacheManager;
+
+    public DepartementPdfCache(DepartementPdfExporter exporter, DatasetVersion datasetVersion,
+                               CacheManager cacheManager) {
+        this.exporter = exporter;
+        this.datasetVersion = datasetVersion;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * @param code code du département.
+     * @return version courante des données du département.
+     */
+    public String version(String code) {
+        return datasetVersion.departement(code);
+    }
+
+    /**
+     * @param code    code du département.
+     * @param version version obtenue par {@link #version(String)}.
+     * @return ETag (fort) du PDF correspondant.
+     */
+    public String etag(String code, String version) {
+        return "\"pdf-" + code + "-" + version + "\"";
+    }
+
+    /**
+     * Renvoie le PDF du département pour la version donnée, en le générant au premier appel.
+     *
+     * @param code    code du département.
+     * @param version version obtenue par {@link #version(String)}.
+     * @return contenu du PDF.
+     */
+    public byte[] pdf(String code, String version) {
+        Cache cache = cacheManager.getCache(CacheConfig.DEPARTEMENTS_PDF);
+        try {
+            return cache.get(code + ":" + version, () -> generer(code));
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw ex;
+        }
+    }
+
+    private byte[] generer(String code) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        exporter.exporter(code, out);
+        return out.toByteArray();
+    }
+}
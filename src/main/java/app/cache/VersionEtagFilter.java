@@ -0,0 +1,149 @@
+package app.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * ETag et requêtes conditionnelles pour toutes les lectures de {@code /villes}, {@code /departements},
+ * {@code /regions} et {@code /statistiques}.
+ * <p>
+ * L'ETag est calculé avant toute lecture, à partir de la version globale des données
+ * ({@link DatasetVersion#globale()}) et de la requête (chemin, paramètres, {@code Accept}).
+ * Un {@code If-None-Match} à jour reçoit donc un 304 sans que le contrôleur ne soit appelé,
+ * ni la base interrogée. Les données ne changeant qu'à l'écriture, la réponse porte aussi un
+ * {@code Cache-Control} public : navigateurs et CDN peuvent la resservir pendant
+ * {@code recensement.http.cache.max-age} secondes, puis la revalider.
+ * </p>
+ * <p>
+ * ETag et {@code Cache-Control} ne sont posés que sur les réponses en succès. Rien n'est fait tant
+ * que le chargement initial n'est pas terminé, ni pour l'export PDF, qui gère son propre ETag
+ * par département, ni pour la vérification des agrégats, qui doit toujours interroger la base.
+ * </p>
+ */
+@Component
+public class VersionEtagFilter extends OncePerRequestFilter {
+
+    private static final List<String> CHEMINS = List.of("/villes", "/departements", "/regions", "/statistiques");
+
+    private static final List<String> CHEMINS_EXCLUS = List.of("/departements/export/pdf/", "/statistiques/population/verification");
+
+    private final DatasetVersion datasetVersion;
+    private final String cacheControl;
+
+    public VersionEtagFilter(DatasetVersion datasetVersion,
+                             @Value("${recensement.http.cache.max-age:60}") long maxAge) {
+        this.datasetVersion = datasetVersion;
+        this.cacheControl = "public, max-age=" + maxAge + ", must-revalidate";
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        String chemin = request.getRequestURI().substring(request.getContextPath().length());
+        return CHEMINS.stream().noneMatch(c -> chemin.equals(c) || chemin.startsWith(c + "/"))
+                || CHEMINS_EXCLUS.stream().anyMatch(chemin::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String version = datasetVersion.globale();
+        if (version == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String etag = etag(version, request);
+        EnTetesSiSucces reponse = new EnTetesSiSucces(response, etag, cacheControl);
+        // Comparaison seule : la réponse n'est pas passée, les en-têtes sont posés ici
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            reponse.appliquer();
+            return;
+        }
+        chain.doFilter(request, reponse);
+        reponse.appliquer();
+    }
+
+    /**
+     * ETag faible : la représentation varie aussi avec l'encodage de transfert (compression).
+     */
+    static String etag(String version, HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        int empreinte = (request.getRequestURI() + '?' + request.getQueryString() + '|' + accept).hashCode();
+        return "W/\"" + version + "-" + Integer.toHexString(empreinte) + "\"";
+    }
+
+    /**
+     * Pose l'ETag et le {@code Cache-Control} juste avant l'écriture du corps, seulement si le
+     * statut est un succès : une erreur n'est jamais mise en cache.
+     */
+    private static final class EnTetesSiSucces extends HttpServletResponseWrapper {
+
+        private final String etag;
+        private final String cacheControl;
+        private boolean applique;
+
+        EnTetesSiSucces(HttpServletResponse response, String etag, String cacheControl) {
+            super(response);
+            this.etag = etag;
+            this.cacheControl = cacheControl;
+        }
+
+        void appliquer() {
+            if (applique || isCommitted()) {
+                return;
+            }
+            applique = true;
+            if (getStatus() < 300 || getStatus() == SC_NOT_MODIFIED) {
+                setHeader(HttpHeaders.ETAG, etag);
+                setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+                addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            applique = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            applique = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            appliquer();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            appliquer();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            appliquer();
+            super.flushBuffer();
+        }
+    }
+}
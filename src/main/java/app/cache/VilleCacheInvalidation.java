@@ -0,0 +1,55 @@
+package app.cache;
+
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalide les entrées de cache d'une ville créée, modifiée ou supprimée.
+ * <p>
+ * L'éviction a lieu après validation de la transaction, avant l'avancement des versions : seules
+ * les clés concernées sont retirées (l'identifiant de la ville, son ancien et son nouveau nom), à la
+ * version courante. Une lecture concurrente qui a lu l'état précédent peut encore le ranger après
+ * l'éviction, mais sous cette version, que la version suivante rend inaccessible
+ * ({@link DatasetVersion#cleVille(Object)}).
+ * </p>
+ */
+@Component
+public class VilleCacheInvalidation {
+
+    private final CacheManager cacheManager;
+    private final DatasetVersion datasetVersion;
+
+    public VilleCacheInvalidation(CacheManager cacheManager, DatasetVersion datasetVersion) {
+        this.cacheManager = cacheManager;
+        this.datasetVersion = datasetVersion;
+    }
+
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void onVilleEvent(VilleEvent event) {
+        Cache villes = cacheManager.getCache(CacheConfig.VILLES);
+        if (villes != null) {
+            villes.evict(datasetVersion.cleVille(event.id()));
+        }
+        Cache parNom = cacheManager.getCache(CacheConfig.VILLES_PAR_NOM);
+        if (parNom != null) {
+            if (event.avant() != null) {
+                parNom.evict(datasetVersion.cleVille(event.avant().nom().toLowerCase()));
+            }
+            if (event.apres() != null) {
+                parNom.evict(datasetVersion.cleVille(event.apres().nom().toLowerCase()));
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void onVillesEvent(VillesEvent event) {
+        event.villes().forEach(this::onVilleEvent);
+    }
+}
@@ -0,0 +1,64 @@
+package app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Sources de données : la base primaire ({@code spring.datasource.*}) et, si
+ * {@code recensement.datasource.replique.jdbc-url} est renseignée, une réplique en lecture.
+ * <p>
+ * La source exposée à JPA et à JdbcTemplate est un {@link LazyConnectionDataSourceProxy} : la
+ * connexion physique n'est prise au pool qu'à la première requête SQL, quand le caractère
+ * lecture seule de la transaction est connu. Une transaction {@code readOnly} est alors servie
+ * par {@link RoutageLectures} (réplique, ou primaire juste après une écriture), toute autre par
+ * la primaire. Une transaction qui ne fait aucune requête (cache, index en mémoire) ne prend
+ * aucune connexion.
+ * </p>
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaire(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty("recensement.datasource.replique.jdbc-url")
+    @ConfigurationProperties("recensement.datasource.replique")
+    public HikariDataSource dataSourceReplique() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @ConditionalOnProperty("recensement.datasource.replique.jdbc-url")
+    public RoutageLectures routageLectures(@Qualifier("dataSourcePrimaire") DataSource primaire,
+                                           @Qualifier("dataSourceReplique") DataSource replique,
+                                           @Value("${recensement.datasource.replique.fenetre-primaire:5s}") Duration fenetre,
+                                           MeterRegistry registry) {
+        return new RoutageLectures(primaire, replique, fenetre, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimaire") DataSource primaire,
+                                 ObjectProvider<RoutageLectures> routageLectures) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaire);
+        routageLectures.ifAvailable(proxy::setReadOnlyDataSource);
+        return proxy;
+    }
+}
@@ -0,0 +1,34 @@
+package app.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formats de réponse binaires, choisis par l'en-tête {@code Accept} :
+ * <ul>
+ *     <li>{@code application/cbor} (CBOR, RFC 8949) ;</li>
+ *     <li>{@code application/x-jackson-smile} (Smile).</li>
+ * </ul>
+ * Les deux encodent le même modèle que le JSON, avec la même configuration Jackson que
+ * Spring Boot applique au JSON ; sans {@code Accept} explicite, la réponse reste en JSON.
+ * Le constructeur d'{@code ObjectMapper} fourni par Spring Boot est un prototype : chaque
+ * convertisseur reçoit le sien.
+ */
+@Configuration
+public class FormatsConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
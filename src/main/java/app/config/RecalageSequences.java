@@ -0,0 +1,68 @@
+package app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Migration des identifiants au démarrage : chaque séquence d'identifiants repart au-delà du plus
+ * grand identifiant de sa table.
+ * <p>
+ * Les identifiants étaient auparavant générés par la base ({@code IDENTITY}). Sur une base existante,
+ * {@code ddl-auto=update} crée les séquences sans tenir compte des lignes déjà présentes : sans ce
+ * recalage, les premiers identifiants tirés entreraient en collision avec elles. Une séquence déjà
+ * au-delà n'est pas modifiée.
+ * </p>
+ * <p>
+ * Exécutée après la mise à jour du schéma par Hibernate ({@code entityManagerFactory}) et avant
+ * le chargement du recensement.
+ * </p>
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class RecalageSequences implements InitializingBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecalageSequences.class);
+
+    /** Séquence de chaque table dont l'identifiant en est tiré. */
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "region", "region_seq",
+            "departement", "departement_seq",
+            "ville", "ville_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecalageSequences(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach(this::recaler);
+    }
+
+    /**
+     * Fait repartir la séquence après le plus grand identifiant de la table, si elle est en deçà.
+     * Tirer la valeur courante consomme un bloc d'identifiants, sans conséquence.
+     *
+     * @return {@code true} si la séquence a été déplacée.
+     */
+    boolean recaler(String table, String sequence) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (max == null) {
+            return false;
+        }
+        Long suivant = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+        if (suivant != null && suivant > max) {
+            return false;
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (max + 1));
+        LOG.info("Séquence {} recalée après le plus grand identifiant de {} : {}.", sequence, table, max + 1);
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Source des transactions en lecture seule : la réplique, sauf juste après une écriture.
+ * <p>
+ * Une réplique applique les écritures de la primaire avec un retard. Pour qu'une lecture qui suit
+ * une écriture la voie, toutes les lectures sont servies par la primaire pendant
+ * {@code recensement.datasource.replique.fenetre-primaire} après chaque transaction en écriture
+ * validée (API, chargement JDBC…). La fenêtre est globale : elle ne dépend ni du client ni des
+ * données écrites, et doit couvrir le retard habituel de la réplique.
+ * </p>
+ * <p>
+ * Tant que le démarrage n'est pas terminé (chargement des données, construction des index),
+ * tout est lu sur la primaire. Les connexions prises sur chaque base sont comptées par
+ * {@value #COMPTEUR}.
+ * </p>
+ */
+public class RoutageLectures extends AbstractRoutingDataSource implements TransactionExecutionListener {
+
+    static final String COMPTEUR = "recensement.datasource.lectures";
+
+    private static final String PRIMAIRE = "primaire";
+    private static final String REPLIQUE = "replique";
+
+    private final long fenetreNanos;
+    private final Counter lecturesPrimaire;
+    private final Counter lecturesReplique;
+
+    private volatile long primaireJusqua = System.nanoTime();
+    private volatile boolean pret;
+
+    public RoutageLectures(DataSource primaire, DataSource replique, Duration fenetre, MeterRegistry registry) {
+        this.fenetreNanos = fenetre.toNanos();
+        this.lecturesPrimaire = registry.counter(COMPTEUR, "base", PRIMAIRE);
+        this.lecturesReplique = registry.counter(COMPTEUR, "base", REPLIQUE);
+        setTargetDataSources(Map.of(PRIMAIRE, primaire, REPLIQUE, replique));
+        setDefaultTargetDataSource(primaire);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!pret || System.nanoTime() - primaireJusqua < 0) {
+            lecturesPrimaire.increment();
+            return PRIMAIRE;
+        }
+        lecturesReplique.increment();
+        return REPLIQUE;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            ouvrirFenetre();
+        }
+    }
+
+    /** Démarrage terminé : les lectures peuvent aller sur la réplique, après une fenêtre. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onChargement() {
+        ouvrirFenetre();
+        pret = true;
+    }
+
+    private void ouvrirFenetre() {
+        primaireJusqua = System.nanoTime() + fenetreNanos;
+    }
+}
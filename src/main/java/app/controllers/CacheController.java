@@ -0,0 +1,53 @@
+package app.controllers;
+
+import app.dto.CacheStatistiquesDto;
+import app.index.PopulationIndex;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Contrôleur REST de consultation des caches.
+ * <p>
+ * Expose, pour chaque cache, son taux de succès, ses évictions et son temps moyen de chargement,
+ * ainsi que les succès / échecs du top N par département servi par l'index des populations.
+ */
+@RestController
+@RequestMapping("/caches")
+public class CacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PopulationIndex populationIndex;
+
+    /** Statistiques de tous les caches. */
+    @GetMapping
+    public Map<String, CacheStatistiquesDto> getStatistiques() {
+        Map<String, CacheStatistiquesDto> resultat = new TreeMap<>();
+        for (String nom : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nom);
+            if (cache instanceof CaffeineCache caffeine) {
+                CacheStats stats = caffeine.getNativeCache().stats();
+                resultat.put(nom, new CacheStatistiquesDto(
+                        caffeine.getNativeCache().estimatedSize(),
+                        stats.hitCount(), stats.missCount(), stats.hitRate(),
+                        stats.evictionCount(), stats.averageLoadPenalty() / 1_000_000.0));
+            }
+        }
+        long succes = populationIndex.getTopSucces();
+        long echecs = populationIndex.getTopEchecs();
+        resultat.put("topVillesDepartement", new CacheStatistiquesDto(0, succes, echecs,
+                succes + echecs == 0 ? 1.0 : (double) succes / (succes + echecs), 0, 0));
+        return resultat;
+    }
+}
@@ -1,14 +1,16 @@
 package app.controllers;
 
+import app.cache.DepartementPdfCache;
+import app.dto.DepartementDto;
+import app.dto.DepartementMapper;
+import app.dto.VilleDto;
 import app.entities.Departement;
-import app.entities.Ville;
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import app.services.impl.DepartementServiceImpl;
 
@@ -27,31 +29,58 @@ public class DepartementController {
     @Autowired
     private DepartementServiceImpl departementService;
 
-    /** Liste de tous les départements. */
+    @Autowired
+    private DepartementPdfCache departementPdfCache;
+
+    /**
+     * Liste de tous les départements, en synthèse : code, nom, nombre de communes
+     * et population totale, calculés par une seule requête d'agrégation.
+     */
     @GetMapping
-    public List<Departement> getAllDepartements() {
-        return departementService.getAll();
+    public List<DepartementDto> getAllDepartements() {
+        return departementService.getAllResumes();
     }
 
-    /** Récupère un département par code. */
+    /**
+     * Récupère la synthèse d'un département par code.
+     * <p>
+     * Avec {@code embed=villes}, une page de ses villes (triées par nom) est incluse.
+     */
     @GetMapping("/{code}")
-    public Departement getDepartementByCode(@PathVariable String code) {
-        return departementService.findByCode(code)
+    public DepartementDto getDepartementByCode(@PathVariable String code,
+                                               @RequestParam(required = false) String embed,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "50") int size) {
+        DepartementDto dto = departementService.findResumeByCode(code)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
+        if ("villes".equals(embed)) {
+            dto.setVilles(departementService.findVilles(code, page, size).getContent());
+        }
+        return dto;
+    }
+
+    /** Page des villes d'un département, triées par nom. */
+    @GetMapping("/{code}/villes")
+    public Page<VilleDto> getVillesDepartement(@PathVariable String code,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "50") int size) {
+        departementService.findByCode(code)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
+        return departementService.findVilles(code, page, size);
     }
 
     /** Crée un département. */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Departement addDepartement(@RequestBody Departement departement) {
-        return departementService.addDepartement(departement);
+    public DepartementDto addDepartement(@RequestBody Departement departement) {
+        return DepartementMapper.toDto(departementService.addDepartement(departement));
     }
 
     /** Met à jour un département par code. */
     @PutMapping("/{code}")
-    public Departement update(@PathVariable String code, @RequestBody Departement departement) {
+    public DepartementDto update(@PathVariable String code, @RequestBody Departement departement) {
         try {
-            return departementService.updateDepartement(code, departement);
+            return DepartementMapper.toDto(departementService.updateDepartement(code, departement));
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
@@ -75,49 +104,31 @@ public class DepartementController {
      *     <li>Un tableau des villes avec leur nom et leur population</li>
      * </ul>
      * <p>
-     * Le fichier PDF est renvoyé en pièce jointe dans la réponse HTTP.
+     * Le fichier PDF est renvoyé en pièce jointe dans la réponse HTTP. Il est mis en cache
+     * par version des données du département ({@link DepartementPdfCache}) et accompagné
+     * d'un ETag : une requête {@code If-None-Match} à jour reçoit un 304 sans corps.
      *
      * @param response la réponse HTTP dans laquelle sera écrit le fichier PDF
+     * @param request  la requête, pour la vérification de l'ETag
      * @param code     le code du département à exporter
      * @throws IOException       si une erreur d’écriture du fichier se produit
-     * @throws DocumentException si une erreur survient lors de la génération du PDF
      */
     @GetMapping("/export/pdf/{code}")
-    public void exportPdf(HttpServletResponse response, @PathVariable String code) throws IOException, DocumentException {
-        Departement dep = departementService.findByCode(code)
+    public void exportPdf(HttpServletResponse response, WebRequest request, @PathVariable String code) throws IOException {
+        departementService.findByCode(code)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
 
+        String version = departementPdfCache.version(code);
+        if (request.checkNotModified(departementPdfCache.etag(code, version))) {
+            return;
+        }
+        byte[] pdf = departementPdfCache.pdf(code, version);
+
         String filename = "departement_" + code + ".pdf";
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
-
-        Document document = new Document();
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
-
-        // Titre
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph title = new Paragraph(dep.getNom(), titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-
-        document.add(new Paragraph("Code : " + dep.getCode()));
-        document.add(new Paragraph("Nom : " + dep.getNom()));
-        document.add(new Paragraph(" ")); // saut de ligne
-
-        // Liste des villes
-        PdfPTable table = new PdfPTable(2);
-        table.setWidthPercentage(100);
-        table.addCell("Nom de la ville");
-        table.addCell("Population");
-
-        for (Ville v : dep.getVilles()) {
-            table.addCell(v.getNom());
-            table.addCell(String.valueOf(v.getPopulationTotale()));
-        }
-
-        document.add(table);
-        document.close();
+        response.setContentLength(pdf.length);
+        response.getOutputStream().write(pdf);
     }
 
 }
\ No newline at end of file
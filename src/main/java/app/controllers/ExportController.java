@@ -0,0 +1,107 @@
+package app.controllers;
+
+import app.dto.ExportJobDto;
+import app.exports.ExportJob;
+import app.exports.ExportJobs;
+import app.services.impl.DepartementServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Contrôleur REST des exports en arrière-plan.
+ * <p>
+ * Un export est demandé par {@code POST} (réponse 202 avec son identifiant), suivi par
+ * {@code GET /exports/{id}}, puis téléchargé par {@code GET /exports/{id}/fichier} une fois terminé.
+ * Le téléchargement est confié à Tomcat en sendfile (copie du fichier vers la socket par le noyau)
+ * lorsque le connecteur le permet, sinon copié par {@link FileChannel#transferTo}.
+ */
+@RestController
+@RequestMapping("/exports")
+public class ExportController {
+
+    /** Attributs de requête de Tomcat pour l'envoi d'un fichier en sendfile. */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FICHIER = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_DEBUT = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ExportJobs exportJobs;
+
+    @Autowired
+    private DepartementServiceImpl departementService;
+
+    /** Demande l'export CSV des villes de population strictement supérieure à {@code min}. */
+    @PostMapping("/villes/csv/population/min/{min}")
+    public ResponseEntity<ExportJobDto> exporterVillesCsv(@PathVariable int min) {
+        return accepte(() -> exportJobs.exporterVillesCsv(min));
+    }
+
+    /** Demande l'export PDF d'un département. */
+    @PostMapping("/departements/{code}/pdf")
+    public ResponseEntity<ExportJobDto> exporterDepartementPdf(@PathVariable String code) {
+        departementService.findByCode(code)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
+        return accepte(() -> exportJobs.exporterDepartementPdf(code));
+    }
+
+    /** État d'un export. */
+    @GetMapping("/{id}")
+    public ExportJobDto getExport(@PathVariable String id) {
+        return ExportJobDto.of(exportJobs.job(id));
+    }
+
+    /** Télécharge le fichier d'un export terminé. */
+    @GetMapping("/{id}/fichier")
+    public void telecharger(@PathVariable String id, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        ExportJob job = exportJobs.job(id);
+        if (job.statut() != ExportJob.Statut.TERMINE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Export non terminé : " + job.statut());
+        }
+        long taille = job.taille();
+        response.setContentType(job.typeContenu());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + job.nomFichier() + "\"");
+        response.setContentLengthLong(taille);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FICHIER, job.fichier().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_DEBUT, 0L);
+            request.setAttribute(SENDFILE_FIN, taille);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(job.fichier(), StandardOpenOption.READ)) {
+            WritableByteChannel sortie = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < taille) {
+                position += canal.transferTo(position, taille - position, sortie);
+            }
+        }
+    }
+
+    private static ResponseEntity<ExportJobDto> accepte(Supplier<ExportJob> demande) {
+        ExportJob job;
+        try {
+            job = demande.get();
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop d'exports en attente, réessayez plus tard.");
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/exports/" + job.id()))
+                .body(ExportJobDto.of(job));
+    }
+}
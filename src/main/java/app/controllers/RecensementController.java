@@ -0,0 +1,30 @@
+package app.controllers;
+
+import app.dto.RafraichissementDto;
+import app.loader.RafraichissementRecensement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Contrôleur REST d'administration du chargement du recensement.
+ * <p>
+ * {@code POST /admin/recensement/rafraichir} relit la source configurée ({@code recensement.source}) et
+ * n'écrit en base que les communes nouvelles, modifiées ou disparues ; la réponse détaille le bilan.
+ * Un second rafraîchissement demandé pendant le premier est refusé (409).
+ */
+@RestController
+@RequestMapping("/admin/recensement")
+public class RecensementController {
+
+    @Autowired
+    private RafraichissementRecensement rafraichissement;
+
+    /** Rafraîchit la base depuis la source et renvoie le bilan. */
+    @PostMapping("/rafraichir")
+    public RafraichissementDto rafraichir() {
+        return rafraichissement.rafraichir().orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                "Un rafraîchissement du recensement est déjà en cours."));
+    }
+}
@@ -0,0 +1,54 @@
+package app.controllers;
+
+import app.dto.DepartementDto;
+import app.dto.PopulationStatistiquesDto;
+import app.dto.RegionDto;
+import app.dto.VilleDto;
+import app.services.RegionService;
+import app.services.VilleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Contrôleur REST des régions : liste avec population, départements d'une région,
+ * communes les plus peuplées et statistiques de population.
+ */
+@RestController
+@RequestMapping("/regions")
+public class RegionController {
+
+    @Autowired
+    private RegionService regionService;
+
+    @Autowired
+    private VilleService villeService;
+
+    /** Toutes les régions, triées par code, avec leur nombre de départements et de communes. */
+    @GetMapping
+    public List<RegionDto> getAll() {
+        return regionService.getAll();
+    }
+
+    /** Départements d'une région, triés par code, avec leur nombre de communes et leur population. */
+    @GetMapping("/{code}/departements")
+    public List<DepartementDto> getDepartements(@PathVariable String code) {
+        return regionService.getDepartements(code);
+    }
+
+    /** Top N villes les plus peuplées d'une région. */
+    @GetMapping("/{code}/top/{n}")
+    public List<VilleDto> getTopNVilles(@PathVariable String code, @PathVariable int n) {
+        return villeService.findTopNByRegion(code, n);
+    }
+
+    /** Statistiques de population d'une région : communes, total, minimum, maximum et médiane. */
+    @GetMapping("/{code}/population")
+    public PopulationStatistiquesDto getStatistiques(@PathVariable String code) {
+        return regionService.getStatistiques(code);
+    }
+}
@@ -0,0 +1,51 @@
+package app.controllers;
+
+import app.dto.SnapshotDto;
+import app.snapshot.Recensement;
+import app.snapshot.SnapshotRecensement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Contrôleur REST d'administration du mode de service sur photographie ({@code recensement.mode=snapshot}).
+ * <p>
+ * {@code GET /admin/snapshot} décrit la photographie servie (source, durée de construction, taille estimée) ;
+ * {@code POST /admin/snapshot/recharger} lance la construction d'une nouvelle photographie depuis la base
+ * ({@code source=base}) ou le fichier CSV ({@code source=csv}) et répond aussitôt 202 : l'ancienne
+ * photographie reste servie jusqu'à l'échange.
+ */
+@RestController
+@RequestMapping("/admin/snapshot")
+public class SnapshotController {
+
+    @Autowired
+    private SnapshotRecensement snapshots;
+
+    /** État de la photographie servie. */
+    @GetMapping
+    public SnapshotDto getSnapshot() {
+        return SnapshotDto.of(snapshots.estActif(), snapshots.courant(), snapshots.rechargementEnCours());
+    }
+
+    /** Reconstruit la photographie en arrière-plan. */
+    @PostMapping("/recharger")
+    public ResponseEntity<SnapshotDto> recharger(@RequestParam(defaultValue = "base") String source) {
+        Recensement.Source origine;
+        try {
+            origine = Recensement.Source.valueOf(source.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Source inconnue : " + source);
+        }
+        try {
+            snapshots.recharger(origine);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        return ResponseEntity.accepted().body(getSnapshot());
+    }
+}
@@ -0,0 +1,51 @@
+package app.controllers;
+
+import app.dto.PopulationStatistiquesDto;
+import app.dto.VerificationAgregatsDto;
+import app.services.StatistiquesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Contrôleur REST des statistiques de population : nombre de communes, population totale,
+ * minimum, maximum et médiane, pour la France entière et par département.
+ */
+@RestController
+@RequestMapping("/statistiques/population")
+public class StatistiquesController {
+
+    @Autowired
+    private StatistiquesService statistiquesService;
+
+    /** Statistiques de la France entière. */
+    @GetMapping
+    public PopulationStatistiquesDto getNational() {
+        return statistiquesService.getNational();
+    }
+
+    /** Statistiques de chaque département, triées par code. */
+    @GetMapping("/departements")
+    public List<PopulationStatistiquesDto> getDepartements() {
+        return statistiquesService.getDepartements();
+    }
+
+    /** Statistiques d'un département. */
+    @GetMapping("/departements/{code}")
+    public PopulationStatistiquesDto getDepartement(@PathVariable String code) {
+        return statistiquesService.getDepartement(code);
+    }
+
+    /**
+     * Compare les statistiques tenues à jour (communes, total, minimum, maximum et médiane, par
+     * département et pour la France) avec un recalcul complet en base.
+     */
+    @GetMapping("/verification")
+    public VerificationAgregatsDto verifier() {
+        return statistiquesService.verifier();
+    }
+}
@@ -1,8 +1,13 @@
 package app.controllers;
 
 import app.documentation.VilleApi;
-import app.entities.Departement;
+import app.dto.DepartementDto;
+import app.dto.ResultatLotDto;
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.dto.VillePageCurseurDto;
 import app.entities.Ville;
+import app.exports.VilleCsvExporter;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -13,9 +18,6 @@ import app.services.impl.DepartementServiceImpl;
 import app.services.impl.VilleServiceImpl;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -34,16 +36,37 @@ public class VilleController implements VilleApi {
     @Autowired
     private DepartementServiceImpl departementService;
 
+    @Autowired
+    private VilleCsvExporter villeCsvExporter;
+
     /** Récupère toutes les villes paginées. */
     @GetMapping
-    public Page<Ville> getAllVilles(@RequestParam(defaultValue = "0") int page,
+    public Page<VilleDto> getAllVilles(@RequestParam(defaultValue = "0") int page,
                                     @RequestParam(defaultValue = "10") int size) {
         return villeService.getAll(page, size);
     }
 
+    /**
+     * Parcours de toutes les villes par curseur (pagination keyset), activé par le paramètre {@code curseur}.
+     * <p>
+     * Premier appel avec {@code curseur=} vide (et éventuellement {@code tri=population}), puis avec
+     * le {@code curseurSuivant} de chaque réponse jusqu'à ce qu'il soit {@code null}. Le coût d'une page
+     * ne dépend pas de sa profondeur et aucun comptage n'est effectué.
+     */
+    @GetMapping(params = "curseur")
+    public VillePageCurseurDto getAllVillesParCurseur(@RequestParam String curseur,
+                                                      @RequestParam(defaultValue = "id") String tri,
+                                                      @RequestParam(defaultValue = "10") int size) {
+        try {
+            return villeService.getAllParCurseur(curseur, tri, size);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
     /** Récupère une ville par id (uniquement chiffres). */
     @GetMapping("/{id:[0-9]+}")
-    public Ville getVilleById(@PathVariable Long id) {
+    public VilleDto getVilleById(@PathVariable Long id) {
         return villeService.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ville introuvable"));
     }
@@ -51,16 +74,16 @@ public class VilleController implements VilleApi {
     /**
      * Récupère une ville par son nom */
     @GetMapping("/nomExact/{nom}")
-    public List<Ville> getVillesByNomExact(@PathVariable String nom) {
+    public List<VilleDto> getVillesByNomExact(@PathVariable String nom) {
         return villeService.findByNomExact(nom);
     }
 
     /** Crée une ville. */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Ville addVille(@RequestBody Ville ville) {
+    public VilleDto addVille(@RequestBody Ville ville) {
         try {
-            return villeService.addVille(ville);
+            return VilleMapper.toDto(villeService.addVille(ville));
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
@@ -68,9 +91,33 @@ public class VilleController implements VilleApi {
 
     /** Met à jour une ville par id. */
     @PutMapping("/{id}")
-    public Ville updateVille(@PathVariable Long id, @RequestBody Ville ville) {
+    public VilleDto updateVille(@PathVariable Long id, @RequestBody Ville ville) {
+        try {
+            return VilleMapper.toDto(villeService.updateVille(id, ville));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    /**
+     * Crée des villes en lot (jusqu'à {@code recensement.lot.taille-max} par requête).
+     * Chaque ville est désignée par le code de son département ; le résultat indique pour chacune
+     * l'identifiant attribué ou le motif du rejet.
+     */
+    @PostMapping("/batch")
+    public ResultatLotDto addVilles(@RequestBody List<VilleDto> villes) {
         try {
-            return villeService.updateVille(id, ville);
+            return villeService.addVilles(villes);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    /** Met à jour des villes en lot, désignées par leur identifiant ; même résultat que la création. */
+    @PutMapping("/batch")
+    public ResultatLotDto updateVilles(@RequestBody List<VilleDto> villes) {
+        try {
+            return villeService.updateVilles(villes);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
@@ -85,58 +132,69 @@ public class VilleController implements VilleApi {
 
     // ---- Recherches ----
 
-    /** Villes dont le nom commence par un préfixe. */
+    /**
+     * Villes dont le nom commence par un préfixe (accents, casse et ponctuation indifférents).
+     * Un préfixe sans lettre ni chiffre, ou un {@code limit} hors de 1..{@code recensement.nom.limite-max},
+     * est refusé (400). Sans {@code limit}, toutes les villes correspondantes sont renvoyées.
+     */
     @GetMapping("/nom/{prefix}")
-    public List<Ville> getVillesByNomPrefix(@PathVariable String prefix) {
-        return villeService.findByNomPrefix(prefix);
+    public List<VilleDto> getVillesByNomPrefix(@PathVariable String prefix,
+                                            @RequestParam(required = false) Integer limit) {
+        try {
+            return limit == null
+                    ? villeService.findByNomPrefix(prefix)
+                    : villeService.findByNomPrefix(prefix, limit);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
     }
 
     /** Villes avec population > min. */
     @GetMapping("/population/min/{min}")
-    public List<Ville> getVillesByPopulationMin(@PathVariable int min) {
+    public List<VilleDto> getVillesByPopulationMin(@PathVariable int min) {
         return villeService.findByPopulationMin(min);
     }
 
     /** Villes avec population entre min et max. */
     @GetMapping("/population/{min}/{max}")
-    public List<Ville> getVillesByPopulationBetween(@PathVariable int min, @PathVariable int max) {
+    public List<VilleDto> getVillesByPopulationBetween(@PathVariable int min, @PathVariable int max) {
         return villeService.findByPopulationBetween(min, max);
     }
 
     /** Villes d'un département avec population > min. */
     @GetMapping("/departement/{code}/population/min/{min}")
-    public List<Ville> getVillesByDepartementAndPopulationMin(@PathVariable String code, @PathVariable int min) {
-        Departement dep = departementService.findByCode(code)
+    public List<VilleDto> getVillesByDepartementAndPopulationMin(@PathVariable String code, @PathVariable int min) {
+        DepartementDto dep = departementService.findByCode(code)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
         return villeService.findByDepartementAndPopulationMin(dep, min);
     }
 
     /** Villes d'un département avec population entre min et max. */
     @GetMapping("/departement/{code}/population/{min}/{max}")
-    public List<Ville> getVillesByDepartementAndPopulationBetween(@PathVariable String code,
+    public List<VilleDto> getVillesByDepartementAndPopulationBetween(@PathVariable String code,
                                                                   @PathVariable int min,
                                                                   @PathVariable int max) {
-        Departement dep = departementService.findByCode(code)
+        DepartementDto dep = departementService.findByCode(code)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
         return villeService.findByDepartementAndPopulationBetween(dep, min, max);
     }
 
     /** Top N villes les plus peuplées d'un département. */
     @GetMapping("/departement/{code}/top/{n}")
-    public List<Ville> getTopNVillesByDepartement(@PathVariable String code, @PathVariable int n) {
-        Departement dep = departementService.findByCode(code)
+    public List<VilleDto> getTopNVillesByDepartement(@PathVariable String code, @PathVariable int n) {
+        DepartementDto dep = departementService.findByCode(code)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Département introuvable"));
         return villeService.findTopNByDepartement(dep, n);
     }
 
     /**
-     * Exporte toutes les villes dont la population municipale est supérieure
-     * ou égale à la valeur du paramètre {@code min}, au format CSV.
+     * Exporte toutes les villes dont la population totale est strictement supérieure
+     * à la valeur du paramètre {@code min}, au format CSV.
      *
      * <p>Le fichier CSV généré contient les colonnes suivantes&nbsp;:
      * <ul>
      *   <li>Nom de la ville</li>
-     *   <li>Population municipale</li>
+     *   <li>Population</li>
      *   <li>Code du département</li>
      *   <li>Nom du département</li>
      * </ul>
@@ -145,8 +203,11 @@ public class VilleController implements VilleApi {
      * compatibilité optimale avec Excel (Windows) et les autres tableurs
      * (LibreOffice, Google Sheets, etc.).</p>
      *
-     * @param min seuil minimum de population municipale. Seules les villes ayant
-     *            une population supérieure ou égale à ce seuil sont exportées.
+     * <p>Les lignes sont lues depuis un curseur et écrites au fil de l'eau
+     * ({@link VilleCsvExporter}) : la mémoire reste constante quel que soit le volume.</p>
+     *
+     * @param min seuil de population. Seules les villes ayant
+     *            une population strictement supérieure à ce seuil sont exportées.
      * @param response objet {@link HttpServletResponse} utilisé pour écrire
      *                 le flux CSV directement dans la réponse HTTP.
      * @throws IOException si une erreur survient lors de l'écriture du flux.
@@ -154,25 +215,11 @@ public class VilleController implements VilleApi {
     @GetMapping("/export/csv/population/min/{min}")
     public void exportVillesToCsv(@PathVariable int min,
                                   HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv; charset=UTF-8");
-        response.setHeader("Content-Disposition", "attachment; filename=villes.csv");
-
-        // Ajout du BOM pour Excel
-        OutputStreamWriter writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
-        writer.write('\uFEFF');
-
-        writer.write("Nom de la ville;Population;Code département;Nom département\n");
-
-        List<Ville> villes = villeService.findByPopulationMin(min);
-        for (Ville ville : villes) {
-            writer.write(ville.getNom() + ";" +
-                    ville.getPopulationTotale() + ";" +
-                    ville.getDepartement().getCode() + ";" +
-                    ville.getDepartement().getNom() + "\n");
-        }
-
-        writer.flush();
-        writer.close();
+        villeCsvExporter.exporter(min, () -> {
+            response.setContentType("text/csv; charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=villes.csv");
+            return response.getOutputStream();
+        });
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package app.dto;
+
+/**
+ * Statistiques d'un cache applicatif, exposées par {@code GET /caches}.
+ *
+ * @param taille                 nombre estimé d'entrées.
+ * @param succes                 lectures servies par le cache.
+ * @param echecs                 lectures ayant nécessité un chargement.
+ * @param tauxSucces             succès / (succès + échecs).
+ * @param evictions              entrées retirées par la politique de taille ou de durée de vie.
+ * @param tempsChargementMoyenMs temps moyen d'un chargement, en millisecondes.
+ */
+public record CacheStatistiquesDto(long taille, long succes, long echecs, double tauxSucces,
+                                   long evictions, double tempsChargementMoyenMs) {
+}
@@ -1,17 +1,32 @@
 package app.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
  * Data Transfer Object pour la classe Departement.
  * Sert à exposer les données via l'API sans renvoyer l'entité complète.
+ * <p>
+ * Les champs de synthèse (nombre de communes, population totale) et la page de villes
+ * ne sont renseignés que par les requêtes qui les calculent ; absents, ils ne sont pas sérialisés.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class DepartementDto {
 
     private Long id;
     private String code;
     private String nom;
 
+    /** Nombre de communes du département */
+    private Long nombreCommunes;
+
+    /** Somme des populations totales des communes du département */
+    private Long populationTotale;
+
+    /** Page de villes, uniquement sur demande explicite */
+    private List<VilleDto> villes;
+
     /** Constructeur vide requis par Spring et Jackson */
     public DepartementDto() {}
 
@@ -22,6 +37,13 @@ public class DepartementDto {
         this.nom = nom;
     }
 
+    /** Constructeur de synthèse, utilisé par la requête d'agrégation */
+    public DepartementDto(Long id, String code, String nom, Long nombreCommunes, Long populationTotale) {
+        this(id, code, nom);
+        this.nombreCommunes = nombreCommunes;
+        this.populationTotale = populationTotale;
+    }
+
     // Getters et Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -31,4 +53,13 @@ public class DepartementDto {
 
     public String getNom() { return nom; }
     public void setNom(String nom) { this.nom = nom; }
-}
\ No newline at end of file
+
+    public Long getNombreCommunes() { return nombreCommunes; }
+    public void setNombreCommunes(Long nombreCommunes) { this.nombreCommunes = nombreCommunes; }
+
+    public Long getPopulationTotale() { return populationTotale; }
+    public void setPopulationTotale(Long populationTotale) { this.populationTotale = populationTotale; }
+
+    public List<VilleDto> getVilles() { return villes; }
+    public void setVilles(List<VilleDto> villes) { this.villes = villes; }
+}
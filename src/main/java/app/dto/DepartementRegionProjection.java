@@ -0,0 +1,14 @@
+package app.dto;
+
+/**
+ * Projection d'un département et de sa région, lue en une requête pour construire la hiérarchie
+ * régions → départements.
+ *
+ * @param id              identifiant du département.
+ * @param code            code du département.
+ * @param nom             nom du département.
+ * @param codeRegion      code de sa région ({@code null} si non rattaché).
+ * @param nomRegion       nom de sa région.
+ */
+public record DepartementRegionProjection(Long id, String code, String nom, String codeRegion, String nomRegion) {
+}
@@ -0,0 +1,27 @@
+package app.dto;
+
+import app.exports.ExportJob;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * État d'un export en arrière-plan, exposé par {@code /exports}.
+ *
+ * @param id      identifiant de l'export.
+ * @param type    type d'export ("villes-csv", "departement-pdf").
+ * @param statut  EN_ATTENTE, EN_COURS, TERMINE ou ECHEC.
+ * @param taille  taille du fichier en octets, une fois terminé.
+ * @param fichier lien de téléchargement, une fois terminé.
+ * @param erreur  motif de l'échec.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExportJobDto(String id, String type, ExportJob.Statut statut, Long taille, String fichier, String erreur) {
+
+    public static ExportJobDto of(ExportJob job) {
+        ExportJob.Statut statut = job.statut();
+        boolean termine = statut == ExportJob.Statut.TERMINE;
+        return new ExportJobDto(job.id(), job.type(), statut,
+                termine ? job.taille() : null,
+                termine ? "/exports/" + job.id() + "/fichier" : null,
+                job.erreur());
+    }
+}
@@ -0,0 +1,19 @@
+package app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Statistiques de population d'un périmètre (France entière, région ou département),
+ * exposées par {@code GET /statistiques/population} et {@code GET /regions/{code}/population}.
+ *
+ * @param code              code du département ou de la région, absent pour la France entière.
+ * @param nombreCommunes    nombre de communes.
+ * @param populationTotale  somme des populations totales.
+ * @param populationMin     plus petite population d'une commune.
+ * @param populationMax     plus grande population d'une commune.
+ * @param populationMediane population médiane des communes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PopulationStatistiquesDto(String code, long nombreCommunes, long populationTotale,
+                                        Integer populationMin, Integer populationMax, Double populationMediane) {
+}
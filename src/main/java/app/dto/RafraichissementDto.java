@@ -0,0 +1,21 @@
+package app.dto;
+
+/**
+ * Bilan d'un rafraîchissement du recensement, au démarrage ou par {@code POST /admin/recensement/rafraichir}.
+ *
+ * @param source     source des données ("api", "csv").
+ * @param lues       communes lues dans la source.
+ * @param inserees   communes nouvelles, insérées.
+ * @param modifiees  communes dont le contenu a changé, mises à jour.
+ * @param supprimees communes absentes de la source, supprimées.
+ * @param inchangees communes identiques à la base, non réécrites.
+ * @param dureeMs    durée totale.
+ */
+public record RafraichissementDto(String source, long lues, long inserees, long modifiees, long supprimees,
+                                  long inchangees, long dureeMs) {
+
+    /** @return {@code true} si la base a changé. */
+    public boolean aChange() {
+        return inserees + modifiees + supprimees > 0;
+    }
+}
@@ -0,0 +1,13 @@
+package app.dto;
+
+/**
+ * Synthèse d'une région, exposée par {@code GET /regions}.
+ *
+ * @param code               code de la région.
+ * @param nom                nom de la région.
+ * @param nombreDepartements nombre de départements de la région.
+ * @param nombreCommunes     nombre de communes de la région.
+ * @param populationTotale   somme des populations totales de ses communes.
+ */
+public record RegionDto(String code, String nom, int nombreDepartements, long nombreCommunes, long populationTotale) {
+}
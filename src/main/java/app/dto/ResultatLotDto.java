@@ -0,0 +1,15 @@
+package app.dto;
+
+import java.util.List;
+
+/**
+ * Résultat d'une création ou d'une mise à jour de villes en lot
+ * ({@code POST} et {@code PUT /villes/batch}).
+ *
+ * @param total   nombre de villes reçues.
+ * @param reussis nombre de villes créées ou modifiées.
+ * @param echecs  nombre de villes rejetées.
+ * @param villes  résultat de chaque ville, dans l'ordre de la requête.
+ */
+public record ResultatLotDto(int total, int reussis, int echecs, List<ResultatVilleDto> villes) {
+}
@@ -0,0 +1,23 @@
+package app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Résultat d'une ville d'un lot : identifiant attribué ou modifié, ou motif du rejet.
+ *
+ * @param index  position de la ville dans la requête (à partir de 0).
+ * @param code   code INSEE reçu.
+ * @param id     identifiant de la ville, absent si elle n'a pas pu être créée.
+ * @param statut {@link Statut#CREEE}, {@link Statut#MODIFIEE} ou {@link Statut#REJETEE}.
+ * @param erreur motif du rejet, absent en cas de succès.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultatVilleDto(int index, String code, Long id, Statut statut, String erreur) {
+
+    public enum Statut { CREEE, MODIFIEE, REJETEE }
+
+    public static ResultatVilleDto rejetee(int index, VilleDto dto, String erreur) {
+        return new ResultatVilleDto(index, dto == null ? null : dto.getCode(),
+                dto == null ? null : dto.getId(), Statut.REJETEE, erreur);
+    }
+}
@@ -0,0 +1,32 @@
+package app.dto;
+
+import app.snapshot.Recensement;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * État du mode de service sur photographie, exposé par {@code /admin/snapshot}.
+ *
+ * @param actif               {@code true} si {@code recensement.mode=snapshot}.
+ * @param source              origine de la photographie servie (BASE ou CSV).
+ * @param construitLe         instant de fin de construction.
+ * @param dureeConstructionMs durée de construction, lecture de la source comprise.
+ * @param villes              nombre de villes.
+ * @param departements        nombre de départements.
+ * @param octets              mémoire estimée de la photographie.
+ * @param rechargementEnCours {@code true} si une nouvelle photographie est en construction.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SnapshotDto(boolean actif, Recensement.Source source, Instant construitLe, Long dureeConstructionMs,
+                          Integer villes, Integer departements, Long octets, boolean rechargementEnCours) {
+
+    public static SnapshotDto of(boolean actif, Recensement recensement, boolean rechargementEnCours) {
+        if (recensement == null) {
+            return new SnapshotDto(actif, null, null, null, null, null, null, rechargementEnCours);
+        }
+        return new SnapshotDto(actif, recensement.source(), recensement.construitLe(),
+                recensement.dureeConstructionMs(), recensement.nombreVilles(), recensement.nombreDepartements(),
+                recensement.octets(), rechargementEnCours);
+    }
+}
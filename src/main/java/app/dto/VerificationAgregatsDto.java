@@ -0,0 +1,17 @@
+package app.dto;
+
+import java.util.List;
+
+/**
+ * Résultat de la comparaison des statistiques tenues en mémoire (communes, total, minimum, maximum
+ * et médiane) avec un recalcul complet en base, exposé par {@code GET /statistiques/population/verification}.
+ *
+ * @param coherent             {@code true} si aucun écart n'a été trouvé.
+ * @param departementsVerifies nombre de départements comparés.
+ * @param nombreCommunes       nombre de communes selon le recalcul.
+ * @param populationTotale     population totale selon le recalcul.
+ * @param ecarts               description de chaque écart trouvé.
+ */
+public record VerificationAgregatsDto(boolean coherent, int departementsVerifies, long nombreCommunes,
+                                      long populationTotale, List<String> ecarts) {
+}
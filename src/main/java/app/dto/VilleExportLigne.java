@@ -0,0 +1,13 @@
+package app.dto;
+
+/**
+ * Ligne plate de l'export CSV des villes : la ville et son département,
+ * lus en une seule jointure.
+ *
+ * @param nom              nom de la commune.
+ * @param populationTotale population totale.
+ * @param codeDepartement  code du département.
+ * @param nomDepartement   nom du département (peut être {@code null}).
+ */
+public record VilleExportLigne(String nom, int populationTotale, String codeDepartement, String nomDepartement) {
+}
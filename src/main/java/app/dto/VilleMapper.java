@@ -36,4 +36,20 @@ public class VilleMapper {
         dto.setCodeDepartement(v.getDepartement().getCode());
         return dto;
     }
+
+    /**
+     * Construit le DTO depuis une projection, sans aucune association à charger.
+     * @param v projection de la ville
+     * @return VilleDto
+     */
+    public static VilleDto toDto(VilleProjection v) {
+        VilleDto dto = new VilleDto();
+        dto.setId(v.id());
+        dto.setNom(v.nom());
+        dto.setCode(v.code());
+        dto.setPopulationTotale(v.populationTotale());
+        dto.setPopulationMunicipale(v.populationMunicipale());
+        dto.setCodeDepartement(v.codeDepartement());
+        return dto;
+    }
 }
\ No newline at end of file
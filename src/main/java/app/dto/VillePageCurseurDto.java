@@ -0,0 +1,13 @@
+package app.dto;
+
+import java.util.List;
+
+/**
+ * Page de villes parcourue par curseur (pagination "keyset").
+ *
+ * @param villes         villes de la page.
+ * @param curseurSuivant jeton opaque à renvoyer pour obtenir la page suivante,
+ *                       {@code null} s'il n'y a plus de villes.
+ */
+public record VillePageCurseurDto(List<VilleDto> villes, String curseurSuivant) {
+}
@@ -0,0 +1,26 @@
+package app.dto;
+
+import app.entities.Ville;
+
+/**
+ * Projection en lecture seule d'une ville : colonnes simples et code du département,
+ * sans entité gérée ni association à charger.
+ *
+ * @param id                   identifiant technique.
+ * @param code                 code INSEE.
+ * @param nom                  nom de la commune.
+ * @param populationMunicipale population municipale.
+ * @param populationTotale     population totale.
+ * @param codeDepartement      code du département.
+ */
+public record VilleProjection(Long id, String code, String nom,
+                              int populationMunicipale, int populationTotale,
+                              String codeDepartement) {
+
+    /** Construit la projection d'une entité dont le département est déjà chargé. */
+    public static VilleProjection of(Ville ville) {
+        return new VilleProjection(ville.getId(), ville.getCode(), ville.getNom(),
+                ville.getPopulationMunicipale(), ville.getPopulationTotale(),
+                ville.getDepartement().getCode());
+    }
+}
@@ -1,5 +1,6 @@
 package app.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import java.util.List;
@@ -9,15 +10,16 @@ import java.util.List;
  * <p>
  * Chaque département possède un identifiant unique auto-généré,
  * un code unique (ex: "01", "75") et un nom.
- * Un département peut posséder plusieurs villes.
+ * Un département appartient à une région et peut posséder plusieurs villes.
  * </p>
  */
 @Entity
 public class Departement {
 
-    /** Identifiant auto-généré du département */
+    /** Identifiant du département, tiré de la séquence departement_seq */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "departement_seq")
+    @SequenceGenerator(name = "departement_seq", sequenceName = "departement_seq", allocationSize = Ville.TAILLE_BLOC_IDS)
     private Long id;
 
     /** Code unique du département (ex: "01") */
@@ -27,6 +29,12 @@ public class Departement {
     /** Nom du département */
     private String nom;
 
+    /** Région du département (chargée à la demande ; la hiérarchie est servie par {@code RegionIndex}) */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "region_id")
+    @JsonIgnore
+    private Region region;
+
     /** Liste des villes appartenant à ce département */
     @OneToMany(mappedBy = "departement", cascade = CascadeType.ALL)
     @JsonManagedReference
@@ -67,6 +75,14 @@ public class Departement {
         this.nom = nom;
     }
 
+    public Region getRegion() {
+        return region;
+    }
+
+    public void setRegion(Region region) {
+        this.region = region;
+    }
+
     public List<Ville> getVilles() {
         return villes;
     }
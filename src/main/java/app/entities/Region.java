@@ -0,0 +1,75 @@
+package app.entities;
+
+import jakarta.persistence.*;
+import java.util.List;
+
+/**
+ * Représente une région française.
+ * <p>
+ * Chaque région possède un identifiant unique auto-généré, un code INSEE unique
+ * (ex: "76") et un nom. Une région regroupe plusieurs départements.
+ * </p>
+ */
+@Entity
+public class Region {
+
+    /** Identifiant de la région, tiré de la séquence region_seq */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "region_seq")
+    @SequenceGenerator(name = "region_seq", sequenceName = "region_seq", allocationSize = Ville.TAILLE_BLOC_IDS)
+    private Long id;
+
+    /** Code unique de la région (ex: "76") */
+    @Column(unique = true, nullable = false)
+    private String code;
+
+    /** Nom de la région */
+    private String nom;
+
+    /** Départements de la région */
+    @OneToMany(mappedBy = "region")
+    private List<Departement> departements;
+
+    /** Constructeur sans paramètre requis par JPA */
+    public Region() {
+    }
+
+    /** Constructeur avec paramètres */
+    public Region(String code, String nom) {
+        this.code = code;
+        this.nom = nom;
+    }
+
+    // ===== Getters / Setters =====
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    public List<Departement> getDepartements() {
+        return departements;
+    }
+
+    public void setDepartements(List<Departement> departements) {
+        this.departements = departements;
+    }
+}
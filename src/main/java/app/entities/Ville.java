@@ -1,6 +1,8 @@
 package app.entities;
 
+import app.dto.VilleProjection;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 /**
@@ -9,12 +11,34 @@ import jakarta.persistence.*;
  * Correspond aux informations d'une commune du fichier recensement.csv.
  */
 @Entity
-@Table(name = "ville")
+@Table(name = "ville", indexes = {
+        // Parcours par curseur trié par population (pagination keyset)
+        @Index(name = "idx_ville_population_id", columnList = "population_totale, id")
+})
+@SqlResultSetMapping(name = Ville.PROJECTION, classes = @ConstructorResult(targetClass = VilleProjection.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "code", type = String.class),
+        @ColumnResult(name = "nom", type = String.class),
+        @ColumnResult(name = "population_municipale", type = int.class),
+        @ColumnResult(name = "population_totale", type = int.class),
+        @ColumnResult(name = "code_departement", type = String.class)
+}))
 public class Ville {
 
-    /** Identifiant auto-généré de la ville */
+    /** Correspondance des requêtes SQL natives vers {@link VilleProjection}. */
+    public static final String PROJECTION = "VilleProjection";
+
+    /**
+     * Nombre d'identifiants réservés par appel à une séquence (optimiseur pooled-lo) : l'identifiant
+     * est connu avant l'insertion, ce qui permet à Hibernate de regrouper les INSERT en lots JDBC,
+     * et le chargeur JDBC réserve ses identifiants par blocs de la même taille.
+     */
+    public static final int TAILLE_BLOC_IDS = 50;
+
+    /** Identifiant de la ville, tiré de la séquence ville_seq */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ville_seq")
+    @SequenceGenerator(name = "ville_seq", sequenceName = "ville_seq", allocationSize = TAILLE_BLOC_IDS)
     private Long id;
 
     /** Nom de la commune */
@@ -32,12 +56,19 @@ public class Ville {
     @Column(nullable = false)
     private int populationTotale;
 
-    /** Département auquel appartient la ville */
-    @ManyToOne(optional = false)
+    /** Département auquel appartient la ville (chargé à la demande : les lectures passent par des projections) */
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "departement_id", nullable = false)
     @JsonBackReference
     private Departement departement;
 
+    /**
+     * Empreinte du contenu (nom, populations, département), tenue à jour à chaque écriture : le
+     * rafraîchissement du recensement ne réécrit que les villes dont l'empreinte a changé.
+     */
+    @JsonIgnore
+    private Long empreinte;
+
     /**
      * Constructeur vide requis par JPA et Jackson.
      */
@@ -88,4 +119,38 @@ public class Ville {
     public void setDepartement(Departement departement) {
         this.departement = departement;
     }
+
+    public Long getEmpreinte() {
+        return empreinte;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void calculerEmpreinte() {
+        empreinte = empreinte(nom, populationMunicipale, populationTotale,
+                departement != null ? departement.getCode() : null);
+    }
+
+    /**
+     * Empreinte 64 bits (FNV-1a) du contenu d'une ville, identique pour JPA et le chargeur JDBC.
+     *
+     * @return empreinte des champs comparés lors d'un rafraîchissement.
+     */
+    public static long empreinte(String nom, int populationMunicipale, int populationTotale, String codeDepartement) {
+        long h = 0xcbf29ce484222325L;
+        h = melanger(h, nom);
+        h = melanger(h, codeDepartement);
+        h = (h ^ populationMunicipale) * 0x100000001b3L;
+        return (h ^ populationTotale) * 0x100000001b3L;
+    }
+
+    private static long melanger(long h, String valeur) {
+        if (valeur != null) {
+            for (int i = 0; i < valeur.length(); i++) {
+                h = (h ^ valeur.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        // Séparateur : ("ab", "c") et ("a", "bc") n'ont pas la même empreinte
+        return (h ^ 0xffff) * 0x100000001b3L;
+    }
 }
\ No newline at end of file
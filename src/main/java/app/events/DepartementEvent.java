@@ -0,0 +1,10 @@
+package app.events;
+
+/**
+ * Événement publié par le service des départements à chaque création, modification ou suppression
+ * d'un département. Les écouteurs le reçoivent après validation de la transaction.
+ *
+ * @param code code du département concerné.
+ */
+public record DepartementEvent(String code) {
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package app.events;
+
+import app.dto.VilleProjection;
+
+/**
+ * Événement publié par le service des villes à chaque création, modification ou suppression.
+ * <p>
+ * Il porte l'état de la ville avant et après l'opération, ce qui permet aux structures
+ * en mémoire (index, agrégats…) de se mettre à jour par différence, sans relire la base.
+ * Les écouteurs le reçoivent après validation de la transaction.
+ * </p>
+ *
+ * @param avant état avant l'opération, {@code null} pour une création.
+ * @param apres état après l'opération, {@code null} pour une suppression.
+ */
+public record VilleEvent(VilleProjection avant, VilleProjection apres) {
+
+    /** @return l'identifiant de la ville concernée. */
+    public Long id() {
+        return apres != null ? apres.id() : avant.id();
+    }
+}
@@ -0,0 +1,17 @@
+package app.events;
+
+import java.util.List;
+
+/**
+ * Événement publié une seule fois pour un lot de créations ou de modifications de villes
+ * ({@code POST} et {@code PUT /villes/batch}).
+ * <p>
+ * Chaque élément porte les mêmes informations qu'un {@link VilleEvent}. Regrouper le lot permet
+ * aux index copiés à chaque mise à jour de se reconstruire une fois plutôt que d'appliquer
+ * des milliers de copies successives. Les écouteurs le reçoivent après validation de la transaction.
+ * </p>
+ *
+ * @param villes changements du lot, dans l'ordre de la requête.
+ */
+public record VillesEvent(List<VilleEvent> villes) {
+}
@@ -1,23 +1,50 @@
 package app.exceptions;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Gestion centralisée des exceptions dans l'application.
+ * <p>
+ * Chaque exception traitée incrémente le compteur {@value #COMPTEUR}, étiqueté par
+ * type d'exception et statut HTTP renvoyé.
+ * </p>
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    static final String COMPTEUR = "recensement.erreurs";
+
+    private final MeterRegistry registry;
+
+    public GlobalExceptionHandler(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<String> handleNotFoundException(NotFoundException ex) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+        return reponse(ex, HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<String> handleResponseStatusException(ResponseStatusException ex) {
+        return reponse(ex, ex.getStatusCode(), ex.getReason());
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGenericException(Exception ex) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erreur interne : " + ex.getMessage());
+        return reponse(ex, HttpStatus.INTERNAL_SERVER_ERROR, "Erreur interne : " + ex.getMessage());
+    }
+
+    private ResponseEntity<String> reponse(Exception ex, HttpStatusCode statut, String message) {
+        registry.counter(COMPTEUR,
+                "exception", ex.getClass().getSimpleName(),
+                "status", String.valueOf(statut.value())).increment();
+        return ResponseEntity.status(statut).body(message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package app.exports;
+
+import app.dto.VilleExportLigne;
+import app.entities.Departement;
+import app.exceptions.NotFoundException;
+import app.repository.DepartementRepository;
+import app.repository.VilleRepository;
+import app.snapshot.Recensement;
+import app.snapshot.SnapshotRecensement;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Génération du PDF d'un département : code, nom et tableau de ses villes triées par nom.
+ * <p>
+ * Les villes sont lues en flux ({@link VilleRepository#streamExportByDepartementCode(String)}) et le
+ * tableau est construit comme un "grand tableau" iText : toutes les {@value #LIGNES_PAR_BLOC} lignes,
+ * la partie déjà remplie est écrite dans le document puis libérée. La mémoire ne dépend donc pas
+ * de la taille du département. En mode {@code snapshot}, département et villes sont lus dans la
+ * photographie en mémoire ({@link SnapshotRecensement}).
+ * </p>
+ */
+@Component
+public class DepartementPdfExporter {
+
+    static final int LIGNES_PAR_BLOC = 500;
+
+    private final DepartementRepository departementRepository;
+    private final VilleRepository villeRepository;
+    private final SnapshotRecensement snapshots;
+
+    public DepartementPdfExporter(DepartementRepository departementRepository, VilleRepository villeRepository,
+                                  SnapshotRecensement snapshots) {
+        this.departementRepository = departementRepository;
+        this.villeRepository = villeRepository;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Écrit le PDF du département dans le flux.
+     *
+     * @param code code du département.
+     * @param out  flux de sortie (non fermé par cette méthode).
+     * @throws NotFoundException si le département n'existe pas.
+     * @throws DocumentException si une erreur survient lors de la génération du PDF.
+     */
+    @Transactional(readOnly = true)
+    public void exporter(String code, OutputStream out) throws DocumentException {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            Departement dep = recensement.departement(code)
+                    .orElseThrow(() -> new NotFoundException("Département introuvable : " + code));
+            ecrire(dep, recensement.exportDepartement(code), out);
+            return;
+        }
+        Departement dep = departementRepository.findByCode(code)
+                .orElseThrow(() -> new NotFoundException("Département introuvable : " + code));
+        try (Stream<VilleExportLigne> villes = villeRepository.streamExportByDepartementCode(code)) {
+            ecrire(dep, villes.iterator(), out);
+        }
+    }
+
+    private static void ecrire(Departement dep, Iterator<VilleExportLigne> it, OutputStream out)
+            throws DocumentException {
+        String nom = dep.getNom() != null ? dep.getNom() : "Département " + dep.getCode();
+
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        document.open();
+
+        // Titre
+        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+        Paragraph title = new Paragraph(nom, titleFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        document.add(title);
+
+        document.add(new Paragraph("Code : " + dep.getCode()));
+        document.add(new Paragraph("Nom : " + nom));
+        document.add(new Paragraph(" ")); // saut de ligne
+
+        // Liste des villes, écrite par blocs
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        table.addCell("Nom de la ville");
+        table.addCell("Population");
+
+        int lignes = 0;
+        while (it.hasNext()) {
+            VilleExportLigne v = it.next();
+            table.addCell(v.nom());
+            table.addCell(String.valueOf(v.populationTotale()));
+            if (++lignes % LIGNES_PAR_BLOC == 0) {
+                document.add(table);
+            }
+        }
+        table.setComplete(true);
+        document.add(table);
+        document.close();
+    }
+}
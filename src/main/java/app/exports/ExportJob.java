@@ -0,0 +1,82 @@
+package app.exports;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Export exécuté en arrière-plan ({@link ExportJobs}) et écrit dans un fichier local.
+ * <p>
+ * Le statut et le résultat sont modifiés par le thread d'export et lus par les requêtes de suivi :
+ * ils sont publiés par des champs {@code volatile}, le statut étant écrit en dernier.
+ * </p>
+ */
+public final class ExportJob {
+
+    public enum Statut { EN_ATTENTE, EN_COURS, TERMINE, ECHEC }
+
+    private final String id;
+    private final String cle;
+    private final String type;
+    private final String typeContenu;
+    private final String nomFichier;
+    private final Path fichier;
+
+    private volatile Statut statut = Statut.EN_ATTENTE;
+    private volatile long taille;
+    private volatile String erreur;
+    private volatile Instant fin;
+
+    ExportJob(String id, String cle, String type, String typeContenu, String nomFichier, Path fichier) {
+        this.id = id;
+        this.cle = cle;
+        this.type = type;
+        this.typeContenu = typeContenu;
+        this.nomFichier = nomFichier;
+        this.fichier = fichier;
+    }
+
+    void demarrer() {
+        statut = Statut.EN_COURS;
+    }
+
+    void terminer(long taille) {
+        this.taille = taille;
+        this.fin = Instant.now();
+        this.statut = Statut.TERMINE;
+    }
+
+    void echouer(String erreur) {
+        this.erreur = erreur;
+        this.fin = Instant.now();
+        this.statut = Statut.ECHEC;
+    }
+
+    /** @return identifiant public de l'export. */
+    public String id() { return id; }
+
+    /** @return clé de déduplication : type, paramètres et version des données. */
+    String cle() { return cle; }
+
+    /** @return type d'export ("villes-csv", "departement-pdf"). */
+    public String type() { return type; }
+
+    /** @return type MIME du fichier produit. */
+    public String typeContenu() { return typeContenu; }
+
+    /** @return nom proposé au téléchargement. */
+    public String nomFichier() { return nomFichier; }
+
+    /** @return fichier local, complet seulement une fois l'export terminé. */
+    public Path fichier() { return fichier; }
+
+    public Statut statut() { return statut; }
+
+    /** @return taille du fichier en octets, une fois l'export terminé. */
+    public long taille() { return taille; }
+
+    /** @return motif de l'échec, {@code null} sinon. */
+    public String erreur() { return erreur; }
+
+    /** @return instant de fin (succès ou échec), {@code null} tant que l'export n'est pas fini. */
+    Instant fin() { return fin; }
+}
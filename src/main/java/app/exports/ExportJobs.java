@@ -0,0 +1,180 @@
+package app.exports;
+
+import app.cache.DatasetVersion;
+import app.exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports exécutés en arrière-plan et écrits dans des fichiers locaux.
+ * <p>
+ * Un export ne mobilise ni thread Tomcat ni connexion pendant sa génération : la requête
+ * qui le demande reçoit aussitôt un identifiant, l'export s'exécute sur un pool borné
+ * ({@code recensement.exports.parallelisme} threads, {@code recensement.exports.file-attente}
+ * exports en attente au plus), puis le fichier est téléchargé par une autre requête.
+ * </p>
+ * <p>
+ * Deux demandes identiques (même type, mêmes paramètres, même version des données) partagent
+ * le même export, qu'il soit en cours ou déjà terminé. Les fichiers sont supprimés
+ * {@code recensement.exports.retention} après la fin de l'export.
+ * </p>
+ */
+@Component
+public class ExportJobs {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportJobs.class);
+
+    private final VilleCsvExporter villeCsvExporter;
+    private final DepartementPdfExporter departementPdfExporter;
+    private final DatasetVersion datasetVersion;
+    private final Path repertoire;
+    private final Duration retention;
+    private final ExecutorService executor;
+
+    private final Map<String, ExportJob> parId = new ConcurrentHashMap<>();
+    private final Map<String, ExportJob> parCle = new ConcurrentHashMap<>();
+
+    public ExportJobs(VilleCsvExporter villeCsvExporter, DepartementPdfExporter departementPdfExporter,
+                      DatasetVersion datasetVersion, MeterRegistry registry,
+                      @Value("${recensement.exports.repertoire}") Path repertoire,
+                      @Value("${recensement.exports.parallelisme:2}") int parallelisme,
+                      @Value("${recensement.exports.file-attente:50}") int fileAttente,
+                      @Value("${recensement.exports.retention:15m}") Duration retention) throws IOException {
+        this.villeCsvExporter = villeCsvExporter;
+        this.departementPdfExporter = departementPdfExporter;
+        this.datasetVersion = datasetVersion;
+        this.repertoire = Files.createDirectories(repertoire);
+        this.retention = retention;
+        AtomicInteger numero = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelisme, parallelisme, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fileAttente), r -> new Thread(r, "export-" + numero.incrementAndGet()));
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "recensement.exports");
+    }
+
+    /**
+     * Demande l'export CSV des villes de population strictement supérieure à {@code min}.
+     *
+     * @param min seuil de population.
+     * @return l'export créé, ou celui déjà en cours ou terminé pour la même demande.
+     * @throws RejectedExecutionException si la file d'attente est pleine.
+     */
+    public ExportJob exporterVillesCsv(int min) {
+        return soumettre("villes-csv:" + min + ":" + datasetVersion.globale(), "villes-csv",
+                "text/csv; charset=UTF-8", "villes.csv",
+                out -> villeCsvExporter.exporter(min, () -> out));
+    }
+
+    /**
+     * Demande l'export PDF d'un département.
+     *
+     * @param code code du département.
+     * @return l'export créé, ou celui déjà en cours ou terminé pour la même version du département.
+     * @throws RejectedExecutionException si la file d'attente est pleine.
+     */
+    public ExportJob exporterDepartementPdf(String code) {
+        return soumettre("departement-pdf:" + code + ":" + datasetVersion.departement(code), "departement-pdf",
+                "application/pdf", "departement_" + code + ".pdf",
+                out -> departementPdfExporter.exporter(code, out));
+    }
+
+    /**
+     * @param id identifiant de l'export.
+     * @return l'export.
+     * @throws NotFoundException si l'export n'existe pas ou a expiré.
+     */
+    public ExportJob job(String id) {
+        purger();
+        ExportJob job = parId.get(id);
+        if (job == null) {
+            throw new NotFoundException("Export introuvable : " + id);
+        }
+        return job;
+    }
+
+    @FunctionalInterface
+    private interface Generation {
+        void ecrire(OutputStream out) throws Exception;
+    }
+
+    private ExportJob soumettre(String cle, String type, String typeContenu, String nomFichier, Generation generation) {
+        purger();
+        return parCle.compute(cle, (k, existant) -> {
+            if (existant != null && existant.statut() != ExportJob.Statut.ECHEC) {
+                return existant;
+            }
+            String id = UUID.randomUUID().toString();
+            ExportJob job = new ExportJob(id, cle, type, typeContenu, nomFichier, repertoire.resolve(id));
+            executor.execute(() -> executer(job, generation));
+            parId.put(id, job);
+            return job;
+        });
+    }
+
+    private void executer(ExportJob job, Generation generation) {
+        job.demarrer();
+        long debut = System.nanoTime();
+        try {
+            try (OutputStream out = Files.newOutputStream(job.fichier())) {
+                generation.ecrire(out);
+            }
+            job.terminer(Files.size(job.fichier()));
+            LOG.info("Export {} ({}) terminé : {} octets en {} ms.", job.id(), job.type(), job.taille(),
+                    (System.nanoTime() - debut) / 1_000_000);
+        } catch (Exception ex) {
+            supprimer(job);
+            job.echouer(ex.getMessage());
+            if (!(ex instanceof NotFoundException)) {
+                LOG.warn("Export {} ({}) en échec.", job.id(), job.type(), ex);
+            }
+        }
+    }
+
+    /** Oublie les exports finis depuis plus de {@code retention} et supprime leurs fichiers. */
+    private void purger() {
+        Instant limite = Instant.now().minus(retention);
+        parId.values().removeIf(job -> {
+            Instant fin = job.fin();
+            if (fin == null || fin.isAfter(limite)) {
+                return false;
+            }
+            parCle.remove(job.cle(), job);
+            supprimer(job);
+            return true;
+        });
+    }
+
+    private static void supprimer(ExportJob job) {
+        try {
+            Files.deleteIfExists(job.fichier());
+        } catch (IOException ex) {
+            LOG.warn("Fichier d'export non supprimé : {}", job.fichier(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdownNow();
+        parId.values().forEach(ExportJobs::supprimer);
+    }
+}
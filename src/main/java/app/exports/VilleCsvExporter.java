@@ -0,0 +1,127 @@
+package app.exports;
+
+import app.dto.VilleExportLigne;
+import app.exceptions.NotFoundException;
+import app.repository.VilleRepository;
+import app.snapshot.Recensement;
+import app.snapshot.SnapshotRecensement;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export CSV des villes en mémoire constante.
+ * <p>
+ * Les lignes sont lues depuis un curseur base de données en avance seule
+ * ({@link VilleRepository#streamExportByPopulationMin(int)}), déjà jointes au département,
+ * et écrites au fil de l'eau dans un tampon réutilisé : le premier octet part avant
+ * la fin de la lecture et aucune liste d'entités n'est construite. En mode {@code snapshot},
+ * les lignes sont parcourues dans la photographie en mémoire ({@link SnapshotRecensement}).
+ * </p>
+ * Format : UTF-8 avec BOM (Excel), séparateur {@code ;}, champs contenant {@code ;},
+ * guillemet ou fin de ligne entourés de guillemets (guillemets internes doublés).
+ */
+@Component
+public class VilleCsvExporter {
+
+    static final String EN_TETE = "Nom de la ville;Population;Code département;Nom département\n";
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final VilleRepository villeRepository;
+    private final SnapshotRecensement snapshots;
+
+    public VilleCsvExporter(VilleRepository villeRepository, SnapshotRecensement snapshots) {
+        this.villeRepository = villeRepository;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Ouvre le flux de sortie, appelé seulement si l'export contient au moins une ligne :
+     * l'appelant peut y positionner ses en-têtes HTTP ou créer son fichier.
+     */
+    @FunctionalInterface
+    public interface Sortie {
+        OutputStream ouvrir() throws IOException;
+    }
+
+    /**
+     * Exporte les villes de population strictement supérieure à {@code min}, par population décroissante.
+     *
+     * @param min    seuil de population.
+     * @param sortie fournisseur du flux de sortie.
+     * @return nombre de villes exportées.
+     * @throws NotFoundException si aucune ville ne correspond (rien n'est alors écrit).
+     * @throws IOException       si l'écriture échoue.
+     */
+    @Transactional(readOnly = true)
+    public long exporter(int min, Sortie sortie) throws IOException {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return ecrire(recensement.exportPopulationSuperieure(min), min, sortie);
+        }
+        try (Stream<VilleExportLigne> lignes = villeRepository.streamExportByPopulationMin(min)) {
+            return ecrire(lignes.iterator(), min, sortie);
+        }
+    }
+
+    private static long ecrire(Iterator<VilleExportLigne> it, int min, Sortie sortie) throws IOException {
+        if (!it.hasNext()) {
+            throw new NotFoundException("Aucune ville n’a une population supérieure à " + min);
+        }
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(sortie.ouvrir(), StandardCharsets.UTF_8), TAILLE_TAMPON);
+        // Ajout du BOM pour Excel
+        writer.write('\uFEFF');
+        writer.write(EN_TETE);
+
+        StringBuilder ligne = new StringBuilder(128);
+        long nb = 0;
+        while (it.hasNext()) {
+            VilleExportLigne v = it.next();
+            ligne.setLength(0);
+            champ(ligne, v.nom()).append(';')
+                    .append(v.populationTotale()).append(';');
+            champ(ligne, v.codeDepartement()).append(';');
+            champ(ligne, v.nomDepartement()).append('\n');
+            writer.append(ligne);
+            nb++;
+        }
+        writer.flush();
+        return nb;
+    }
+
+    /**
+     * Ajoute une valeur au format CSV, entre guillemets si elle contient un caractère spécial.
+     */
+    static StringBuilder champ(StringBuilder sb, String valeur) {
+        if (valeur == null) {
+            return sb;
+        }
+        boolean protege = false;
+        for (int i = 0; i < valeur.length() && !protege; i++) {
+            char c = valeur.charAt(i);
+            protege = c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!protege) {
+            return sb.append(valeur);
+        }
+        sb.append('"');
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+}
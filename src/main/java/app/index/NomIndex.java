@@ -0,0 +1,305 @@
+package app.index;
+
+import app.cache.DatasetVersion;
+import app.dto.VilleProjection;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import app.repository.VilleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Index en mémoire des noms de communes pour la recherche par préfixe.
+ * <p>
+ * Chaque nom est normalisé (accents retirés, minuscules, seuls lettres et chiffres conservés) :
+ * "L' Abergement-Clémenciat" devient "labergementclemenciat" et se trouve aussi bien avec
+ * "l'abergement" qu'avec "L ABERGEMENT". Les clés normalisées sont rangées dans un tableau trié ;
+ * une recherche par préfixe est une dichotomie suivie d'un parcours des clés qui commencent
+ * par ce préfixe.
+ * </p>
+ * <p>
+ * Comme {@link PopulationIndex}, l'index est construit au démarrage, tenu à jour par les
+ * {@link VilleEvent} et remplacé par copie à chaque mise à jour ; les changements reçus pendant
+ * une construction sont rejoués, et un lot important est appliqué par une reconstruction sur un
+ * thread dédié, pendant laquelle les recherches passent par la base.
+ * </p>
+ */
+@Component
+public class NomIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NomIndex.class);
+
+    private final VilleRepository villeRepository;
+
+    /** Clé normalisée de chaque ville indexée (accès sous verrou). */
+    private Map<Long, String> cles = new HashMap<>();
+
+    /** Changements reçus pendant une construction, rejoués une fois l'index publié (accès sous verrou). */
+    private final List<VilleEvent> enAttente = new ArrayList<>();
+
+    /** Construction demandée ou en cours : les changements sont mis en attente (accès sous verrou). */
+    private boolean enConstruction = true;
+
+    /** Trop de changements reçus pendant la construction : la base est relue (accès sous verrou). */
+    private boolean aRelire;
+
+    /** Sérialise les constructions, dont la lecture de la base se fait hors du verrou de l'index. */
+    private final Object verrouConstruction = new Object();
+
+    private final ExecutorService reconstruction = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "index-noms");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Tableau tableau = Tableau.VIDE;
+    private volatile boolean pret;
+
+    public NomIndex(VilleRepository villeRepository) {
+        this.villeRepository = villeRepository;
+    }
+
+    /**
+     * Normalise un nom de commune ou un préfixe saisi par l'utilisateur.
+     *
+     * @param texte texte brut.
+     * @return texte sans accents, en minuscules, réduit aux lettres et chiffres.
+     */
+    public static String normaliser(String texte) {
+        String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decompose.length());
+        for (int i = 0; i < decompose.length(); i++) {
+            char c = decompose.charAt(i);
+            if (c == 'œ' || c == 'Œ') {
+                sb.append("oe");
+            } else if (c == 'æ' || c == 'Æ') {
+                sb.append("ae");
+            } else if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * (Re)construit l'index à partir de la base, puis rejoue les changements reçus entre-temps.
+     * La base est lue hors du verrou : les écritures concurrentes ne sont pas bloquées.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void construire() {
+        synchronized (verrouConstruction) {
+            synchronized (this) {
+                enConstruction = true;
+            }
+            while (true) {
+                long debut = System.nanoTime();
+                synchronized (this) {
+                    aRelire = false;
+                }
+                List<VilleProjection> villes = villeRepository.findAllProjections();
+                Map<Long, String> lues = new HashMap<>(villes.size() * 2);
+                String[] clesTriees = new String[villes.size()];
+                long[] ids = new long[villes.size()];
+                Integer[] ordre = new Integer[villes.size()];
+                for (int i = 0; i < villes.size(); i++) {
+                    VilleProjection v = villes.get(i);
+                    clesTriees[i] = normaliser(v.nom());
+                    ids[i] = v.id();
+                    ordre[i] = i;
+                    lues.put(v.id(), clesTriees[i]);
+                }
+                Arrays.sort(ordre, Comparator.<Integer, String>comparing(i -> clesTriees[i]).thenComparingLong(i -> ids[i]));
+                String[] c = new String[ordre.length];
+                long[] d = new long[ordre.length];
+                for (int i = 0; i < ordre.length; i++) {
+                    c[i] = clesTriees[ordre[i]];
+                    d[i] = ids[ordre[i]];
+                }
+
+                synchronized (this) {
+                    if (aRelire) {
+                        continue;
+                    }
+                    cles = lues;
+                    tableau = new Tableau(c, d);
+                    int rejoues = enAttente.size();
+                    enAttente.forEach(this::appliquer);
+                    enAttente.clear();
+                    enConstruction = false;
+                    pret = true;
+                    LOG.info("Index des noms construit : {} villes, {} changements rejoués, en {} ms.",
+                            villes.size(), rejoues, (System.nanoTime() - debut) / 1_000_000);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applique une création, modification ou suppression de ville une fois la transaction validée,
+     * ou la met en attente si l'index est en construction.
+     */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onVilleEvent(VilleEvent event) {
+        if (enConstruction) {
+            mettreEnAttente(List.of(event));
+        } else {
+            appliquer(event);
+        }
+    }
+
+    /**
+     * Applique un lot de changements : un à un pour un petit lot ; au-delà de
+     * {@link PopulationIndex#SEUIL_RECONSTRUCTION} changements, l'index est retiré du service et
+     * reconstruit sur le thread dédié, sans retenir le fil de l'écriture.
+     */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onVillesEvent(VillesEvent event) {
+        if (enConstruction) {
+            mettreEnAttente(event.villes());
+        } else if (event.villes().size() > PopulationIndex.SEUIL_RECONSTRUCTION) {
+            enConstruction = true;
+            pret = false;
+            reconstruction.execute(this::reconstruire);
+        } else {
+            event.villes().forEach(this::appliquer);
+        }
+    }
+
+    private void reconstruire() {
+        try {
+            construire();
+        } catch (RuntimeException e) {
+            LOG.error("Reconstruction de l'index des noms impossible ; les recherches restent servies par la base.", e);
+        }
+    }
+
+    /** Sous verrou : au-delà de {@link PopulationIndex#SEUIL_RECONSTRUCTION} changements, la base sera relue. */
+    private void mettreEnAttente(List<VilleEvent> events) {
+        if (aRelire) {
+            return;
+        }
+        if (enAttente.size() + events.size() > PopulationIndex.SEUIL_RECONSTRUCTION) {
+            enAttente.clear();
+            aRelire = true;
+        } else {
+            enAttente.addAll(events);
+        }
+    }
+
+    /** Sous verrou ; idempotent : l'ancienne clé de la ville est retirée avant d'insérer la nouvelle. */
+    private void appliquer(VilleEvent event) {
+        Long id = event.id();
+        Tableau t = tableau;
+        String ancienne = cles.remove(id);
+        if (ancienne != null) {
+            t = t.sans(ancienne, id);
+        }
+        if (event.apres() != null) {
+            String cle = normaliser(event.apres().nom());
+            cles.put(id, cle);
+            t = t.avec(cle, id);
+        }
+        tableau = t;
+    }
+
+    /** @return {@code true} une fois l'index construit. */
+    public boolean estPret() {
+        return pret;
+    }
+
+    /**
+     * Recherche les villes dont le nom normalisé commence par le préfixe normalisé.
+     *
+     * @param prefix  préfixe saisi (accents, casse et ponctuation indifférents).
+     * @param limite  nombre maximal de résultats.
+     * @return identifiants des villes trouvées, dans l'ordre alphabétique des noms normalisés.
+     */
+    public long[] idsParPrefixe(String prefix, int limite) {
+        Tableau t = tableau;
+        String cle = normaliser(prefix);
+        int debut = t.premierSuperieurOuEgal(cle, Long.MIN_VALUE);
+        int fin = debut;
+        while (fin < t.cles.length && fin - debut < limite && t.cles[fin].startsWith(cle)) {
+            fin++;
+        }
+        return Arrays.copyOfRange(t.ids, debut, fin);
+    }
+
+    /**
+     * Tableaux immuables des clés normalisées et des identifiants, triés par (clé, identifiant).
+     */
+    private static final class Tableau {
+
+        static final Tableau VIDE = new Tableau(new String[0], new long[0]);
+
+        final String[] cles;
+        final long[] ids;
+
+        Tableau(String[] cles, long[] ids) {
+            this.cles = cles;
+            this.ids = ids;
+        }
+
+        Tableau avec(String cle, long id) {
+            int pos = premierSuperieurOuEgal(cle, id);
+            String[] c = new String[cles.length + 1];
+            long[] d = new long[ids.length + 1];
+            System.arraycopy(cles, 0, c, 0, pos);
+            System.arraycopy(ids, 0, d, 0, pos);
+            c[pos] = cle;
+            d[pos] = id;
+            System.arraycopy(cles, pos, c, pos + 1, cles.length - pos);
+            System.arraycopy(ids, pos, d, pos + 1, ids.length - pos);
+            return new Tableau(c, d);
+        }
+
+        Tableau sans(String cle, long id) {
+            int pos = premierSuperieurOuEgal(cle, id);
+            if (pos == ids.length || ids[pos] != id) {
+                return this;
+            }
+            String[] c = new String[cles.length - 1];
+            long[] d = new long[ids.length - 1];
+            System.arraycopy(cles, 0, c, 0, pos);
+            System.arraycopy(ids, 0, d, 0, pos);
+            System.arraycopy(cles, pos + 1, c, pos, cles.length - pos - 1);
+            System.arraycopy(ids, pos + 1, d, pos, ids.length - pos - 1);
+            return new Tableau(c, d);
+        }
+
+        /** Premier indice dont le couple (clé, identifiant) est supérieur ou égal à celui donné. */
+        int premierSuperieurOuEgal(String cle, long id) {
+            int bas = 0;
+            int haut = cles.length;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                int cmp = cles[milieu].compareTo(cle);
+                if (cmp < 0 || (cmp == 0 && ids[milieu] < id)) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+    }
+}
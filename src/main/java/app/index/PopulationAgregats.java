@@ -0,0 +1,210 @@
+package app.index;
+
+import app.cache.DatasetVersion;
+import app.dto.DepartementDto;
+import app.dto.VilleProjection;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import app.repository.DepartementRepository;
+import app.repository.VilleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Nombre de communes et population totale, par département et pour la France entière.
+ * <p>
+ * Les agrégats sont calculés une fois quand le chargement est terminé, puis tenus à jour par les
+ * {@link VilleEvent} : une création, modification ou suppression ne coûte que l'ajout ou le retrait
+ * de la ville concernée. Les lectures ne touchent pas la base.
+ * </p>
+ * <p>
+ * Chaque calcul ou mise à jour publie un nouvel {@link Etat} non modifiable par une seule écriture
+ * volatile : une lecture voit les agrégats d'avant ou d'après, jamais un état partiel.
+ * </p>
+ * <p>
+ * La population et le département de chaque ville prise en compte sont conservés : un changement
+ * est appliqué par différence avec cet état et non avec {@link VilleEvent#avant()}. Un événement
+ * reçu après la construction pour une écriture que la lecture de la base contenait déjà, ou reçu
+ * deux fois, ne modifie donc rien.
+ * </p>
+ */
+@Component
+public class PopulationAgregats {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PopulationAgregats.class);
+
+    private final DepartementRepository departementRepository;
+    private final VilleRepository villeRepository;
+
+    /** Population et département de chaque ville comptée (accès sous verrou). */
+    private Map<Long, Entree> villes = new HashMap<>();
+
+    private volatile Etat etat = Etat.VIDE;
+    private volatile boolean pret;
+
+    public PopulationAgregats(DepartementRepository departementRepository, VilleRepository villeRepository) {
+        this.departementRepository = departementRepository;
+        this.villeRepository = villeRepository;
+    }
+
+    /**
+     * (Re)calcule les agrégats à partir de la base. La lecture se fait sous le verrou : un changement
+     * validé pendant ce temps est appliqué ensuite, et ignoré si la lecture le contenait déjà.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void construire() {
+        long debut = System.nanoTime();
+        List<VilleProjection> lues = villeRepository.findAllProjections();
+        Map<Long, Entree> entrees = new HashMap<>(lues.size() * 2);
+        Map<String, Agregat> parDepartement = new HashMap<>();
+        for (VilleProjection v : lues) {
+            entrees.put(v.id(), new Entree(v.populationTotale(), v.codeDepartement()));
+            parDepartement.merge(v.codeDepartement(), new Agregat(1, v.populationTotale()), Agregat::plus);
+        }
+        villes = entrees;
+        etat = Etat.de(parDepartement);
+        pret = true;
+        LOG.info("Agrégats de population calculés : {} départements, {} communes en {} ms.",
+                parDepartement.size(), lues.size(), (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    /**
+     * Applique la différence due à une création, modification ou suppression de ville.
+     */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onVilleEvent(VilleEvent event) {
+        appliquer(List.of(event));
+    }
+
+    /** Applique un lot de changements et publie les agrégats une seule fois. */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onVillesEvent(VillesEvent event) {
+        appliquer(event.villes());
+    }
+
+    /** Sous verrou. Avant la construction, les changements sont déjà dans la base qu'elle lira. */
+    private void appliquer(List<VilleEvent> events) {
+        if (!pret) {
+            return;
+        }
+        Map<String, Agregat> parDepartement = null;
+        for (VilleEvent event : events) {
+            Long id = event.id();
+            Entree avant = villes.get(id);
+            Entree apres = event.apres() == null ? null
+                    : new Entree(event.apres().populationTotale(), event.apres().codeDepartement());
+            if (Objects.equals(avant, apres)) {
+                continue;
+            }
+            if (parDepartement == null) {
+                parDepartement = new HashMap<>(etat.parDepartement());
+            }
+            if (avant != null) {
+                parDepartement.merge(avant.codeDepartement(), new Agregat(-1, -avant.population()), Agregat::plus);
+                villes.remove(id);
+            }
+            if (apres != null) {
+                parDepartement.merge(apres.codeDepartement(), new Agregat(1, apres.population()), Agregat::plus);
+                villes.put(id, apres);
+            }
+        }
+        if (parDepartement != null) {
+            etat = Etat.de(parDepartement);
+        }
+    }
+
+    /** @return {@code true} une fois les agrégats calculés. */
+    public boolean estPret() {
+        return pret;
+    }
+
+    /** @return agrégat de toutes les communes. */
+    public Agregat national() {
+        return etat.national();
+    }
+
+    /**
+     * @param codeDepartement code du département.
+     * @return agrégat de ses communes (vide s'il n'en a aucune).
+     */
+    public Agregat departement(String codeDepartement) {
+        return etat.parDepartement().getOrDefault(codeDepartement, Agregat.VIDE);
+    }
+
+    /**
+     * Cumul des agrégats d'un ensemble de départements (une région), sans accès à la base.
+     *
+     * @param codesDepartement codes des départements.
+     * @return agrégat de leurs communes.
+     */
+    public Agregat cumul(Collection<String> codesDepartement) {
+        Agregat total = Agregat.VIDE;
+        for (String code : codesDepartement) {
+            total = total.plus(departement(code));
+        }
+        return total;
+    }
+
+    /** @return agrégats de tous les départements connus, par code (non modifiable). */
+    public Map<String, Agregat> departements() {
+        return etat.parDepartement();
+    }
+
+    /**
+     * Recalcule tous les agrégats par un {@code GROUP BY} en base, sans modifier l'état courant.
+     *
+     * @return agrégat de chaque département, par code.
+     */
+    public Map<String, Agregat> recalculer() {
+        List<DepartementDto> resumes = departementRepository.findAllResumes();
+        Map<String, Agregat> resultat = new HashMap<>();
+        for (DepartementDto r : resumes) {
+            resultat.put(r.getCode(), new Agregat(r.getNombreCommunes(), r.getPopulationTotale()));
+        }
+        return resultat;
+    }
+
+    /** Population et département d'une ville comptée. */
+    private record Entree(int population, String codeDepartement) {
+    }
+
+    /** Agrégats publiés ensemble : par département et leur total. */
+    private record Etat(Map<String, Agregat> parDepartement, Agregat national) {
+
+        static final Etat VIDE = new Etat(Map.of(), Agregat.VIDE);
+
+        static Etat de(Map<String, Agregat> parDepartement) {
+            Agregat total = Agregat.VIDE;
+            for (Agregat a : parDepartement.values()) {
+                total = total.plus(a);
+            }
+            return new Etat(Map.copyOf(parDepartement), total);
+        }
+    }
+
+    /**
+     * Nombre de communes et population cumulée.
+     */
+    public record Agregat(long nombreCommunes, long population) {
+
+        static final Agregat VIDE = new Agregat(0, 0);
+
+        Agregat plus(Agregat autre) {
+            return new Agregat(nombreCommunes + autre.nombreCommunes, population + autre.population);
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package app.index;
+
+import app.cache.DatasetVersion;
+import app.dto.VilleProjection;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import app.repository.VilleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index en mémoire des villes triées par population totale.
+ * <p>
+ * Les identifiants sont rangés dans un tableau de {@code long}, accompagné d'un tableau
+ * d'{@code int} des populations, triés par population croissante : une recherche par tranche
+ * de population se résout par dichotomie, sans tri en base. Un index identique est tenu
+ * pour chaque département.
+ * </p>
+ * <p>
+ * L'index est construit une fois le chargement terminé ({@link ApplicationReadyEvent}) puis
+ * tenu à jour par les {@link VilleEvent} publiés par le service des villes. Les tableaux ne
+ * sont jamais modifiés en place : chaque mise à jour publie une nouvelle copie, de sorte que
+ * les lectures se font sans verrou.
+ * </p>
+ * <p>
+ * Les changements validés pendant une construction sont mis en attente puis rejoués sur l'index
+ * construit : une ville écrite pendant la lecture de la base n'est pas perdue. Un lot important
+ * ({@link #SEUIL_RECONSTRUCTION}) est appliqué par une reconstruction sur un thread dédié, hors du
+ * fil de l'écriture ; d'ici là, l'index n'est plus prêt et les recherches passent par la base.
+ * </p>
+ * <p>
+ * Le segment d'un département étant déjà trié, ses {@code n} villes les plus peuplées sont une
+ * simple copie de la fin du tableau ({@link #idsTop(String, int)}), et son minimum, son maximum
+ * et sa médiane sont des accès directs ({@link #repartition(String)}).
+ * </p>
+ */
+@Component
+public class PopulationIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PopulationIndex.class);
+
+    /**
+     * Taille de lot au-delà de laquelle l'index est reconstruit depuis la base : chaque changement
+     * appliqué un à un recopie les tableaux, soit un coût proportionnel au nombre de villes.
+     */
+    static final int SEUIL_RECONSTRUCTION = 100;
+
+    private final VilleRepository villeRepository;
+
+    /** Population et département de chaque ville indexée (accès sous verrou). */
+    private Map<Long, Entree> entrees = new HashMap<>();
+
+    /** Changements reçus pendant une construction, rejoués une fois l'index publié (accès sous verrou). */
+    private final List<VilleEvent> enAttente = new ArrayList<>();
+
+    /** Construction demandée ou en cours : les changements sont mis en attente (accès sous verrou). */
+    private boolean enConstruction = true;
+
+    /**
+     * Trop de changements reçus pendant la construction pour les rejouer un à un : la base est
+     * relue avant de publier l'index (accès sous verrou).
+     */
+    private boolean aRelire;
+
+    /** Sérialise les constructions, dont la lecture de la base se fait hors du verrou de l'index. */
+    private final Object verrouConstruction = new Object();
+
+    private final ExecutorService reconstruction = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "index-populations");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Segment national = Segment.VIDE;
+    private volatile Map<String, Segment> parDepartement = Map.of();
+    private volatile boolean pret;
+
+    private final AtomicLong topSucces = new AtomicLong();
+    private final AtomicLong topEchecs = new AtomicLong();
+
+    public PopulationIndex(VilleRepository villeRepository) {
+        this.villeRepository = villeRepository;
+    }
+
+    /**
+     * (Re)construit l'index à partir de la base, puis rejoue les changements reçus entre-temps.
+     * La base est lue hors du verrou : les écritures concurrentes ne sont pas bloquées.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void construire() {
+        synchronized (verrouConstruction) {
+            synchronized (this) {
+                enConstruction = true;
+            }
+            while (true) {
+                long debut = System.nanoTime();
+                synchronized (this) {
+                    aRelire = false;
+                }
+                List<VilleProjection> villes = villeRepository.findAllProjections();
+
+                Map<Long, Entree> lues = new HashMap<>(villes.size() * 2);
+                Map<String, List<VilleProjection>> groupes = new HashMap<>();
+                for (VilleProjection v : villes) {
+                    lues.put(v.id(), new Entree(v.populationTotale(), v.codeDepartement()));
+                    groupes.computeIfAbsent(v.codeDepartement(), k -> new ArrayList<>()).add(v);
+                }
+                Map<String, Segment> deps = new HashMap<>();
+                groupes.forEach((code, liste) -> deps.put(code, Segment.trier(liste)));
+                Segment nat = Segment.trier(villes);
+
+                synchronized (this) {
+                    if (aRelire) {
+                        continue;
+                    }
+                    entrees = lues;
+                    national = nat;
+                    parDepartement = Map.copyOf(deps);
+                    int rejoues = enAttente.size();
+                    enAttente.forEach(this::appliquer);
+                    enAttente.clear();
+                    enConstruction = false;
+                    pret = true;
+                    LOG.info("Index des populations construit : {} villes, {} départements, {} changements rejoués, en {} ms.",
+                            villes.size(), deps.size(), rejoues, (System.nanoTime() - debut) / 1_000_000);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applique une création, modification ou suppression de ville une fois la transaction validée,
+     * ou la met en attente si l'index est en construction.
+     */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onVilleEvent(VilleEvent event) {
+        if (enConstruction) {
+            mettreEnAttente(List.of(event));
+        } else {
+            appliquer(event);
+        }
+    }
+
+    /**
+     * Applique un lot de changements : un à un pour un petit lot ; sinon l'index est retiré du
+     * service et reconstruit sur le thread dédié, sans retenir le fil de l'écriture.
+     */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onVillesEvent(VillesEvent event) {
+        if (enConstruction) {
+            mettreEnAttente(event.villes());
+        } else if (event.villes().size() > SEUIL_RECONSTRUCTION) {
+            enConstruction = true;
+            pret = false;
+            reconstruction.execute(this::reconstruire);
+        } else {
+            event.villes().forEach(this::appliquer);
+        }
+    }
+
+    private void reconstruire() {
+        try {
+            construire();
+        } catch (RuntimeException e) {
+            LOG.error("Reconstruction de l'index des populations impossible ; les recherches restent servies par la base.", e);
+        }
+    }
+
+    /** Sous verrou : au-delà de {@link #SEUIL_RECONSTRUCTION} changements, la base sera relue. */
+    private void mettreEnAttente(List<VilleEvent> events) {
+        if (aRelire) {
+            return;
+        }
+        if (enAttente.size() + events.size() > SEUIL_RECONSTRUCTION) {
+            enAttente.clear();
+            aRelire = true;
+        } else {
+            enAttente.addAll(events);
+        }
+    }
+
+    /**
+     * Sous verrou. L'opération est idempotente : l'ancienne position de la ville est toujours
+     * retirée avant d'insérer la nouvelle.
+     */
+    private void appliquer(VilleEvent event) {
+        Long id = event.id();
+        Entree ancienne = entrees.remove(id);
+        Map<String, Segment> deps = new HashMap<>(parDepartement);
+        Segment nat = national;
+        if (ancienne != null) {
+            nat = nat.sans(id, ancienne.population());
+            deps.computeIfPresent(ancienne.codeDepartement(), (code, seg) -> seg.sans(id, ancienne.population()));
+        }
+        VilleProjection apres = event.apres();
+        if (apres != null) {
+            entrees.put(id, new Entree(apres.populationTotale(), apres.codeDepartement()));
+            nat = nat.avec(id, apres.populationTotale());
+            deps.put(apres.codeDepartement(),
+                    deps.getOrDefault(apres.codeDepartement(), Segment.VIDE).avec(id, apres.populationTotale()));
+        }
+        national = nat;
+        parDepartement = Map.copyOf(deps);
+    }
+
+    /** @return {@code true} une fois l'index construit. */
+    public boolean estPret() {
+        return pret;
+    }
+
+    /**
+     * @param min population minimale (exclue).
+     * @return identifiants des villes de population strictement supérieure, par population décroissante.
+     */
+    public long[] idsPopulationSuperieure(int min) {
+        return national.superieure(min);
+    }
+
+    /**
+     * @param min population minimale (incluse).
+     * @param max population maximale (incluse).
+     * @return identifiants des villes de population comprise entre les bornes, par population décroissante.
+     */
+    public long[] idsPopulationEntre(int min, int max) {
+        return national.entre(min, max);
+    }
+
+    /**
+     * Variante de {@link #idsPopulationSuperieure(int)} limitée à un département.
+     */
+    public long[] idsPopulationSuperieure(String codeDepartement, int min) {
+        return parDepartement.getOrDefault(codeDepartement, Segment.VIDE).superieure(min);
+    }
+
+    /**
+     * Variante de {@link #idsPopulationEntre(int, int)} limitée à un département.
+     */
+    public long[] idsPopulationEntre(String codeDepartement, int min, int max) {
+        return parDepartement.getOrDefault(codeDepartement, Segment.VIDE).entre(min, max);
+    }
+
+    /**
+     * Les {@code n} villes les plus peuplées d'un département.
+     *
+     * @param codeDepartement code du département.
+     * @param n               nombre de villes souhaité.
+     * @return identifiants par population décroissante, ou {@code null} si l'index n'est pas encore
+     * construit ou ne connaît pas le département (l'appelant se rabat alors sur la base).
+     */
+    public long[] idsTop(String codeDepartement, int n) {
+        Segment segment = pret ? parDepartement.get(codeDepartement) : null;
+        if (segment == null) {
+            topEchecs.incrementAndGet();
+            return null;
+        }
+        topSucces.incrementAndGet();
+        return segment.top(n);
+    }
+
+    /**
+     * Minimum, maximum et médiane des populations, lus directement dans le segment trié.
+     *
+     * @param codeDepartement code du département, ou {@code null} pour l'ensemble des villes.
+     * @return la répartition, ou {@code null} si l'index n'est pas construit ou ne contient aucune ville.
+     */
+    public Repartition repartition(String codeDepartement) {
+        if (!pret) {
+            return null;
+        }
+        Segment segment = codeDepartement == null ? national : parDepartement.get(codeDepartement);
+        return segment == null ? null : segment.repartition();
+    }
+
+    /**
+     * Répartition des populations d'un ensemble de villes.
+     *
+     * @param min     plus petite population.
+     * @param max     plus grande population.
+     * @param mediane population médiane (moyenne des deux valeurs centrales pour un effectif pair).
+     */
+    public record Repartition(int min, int max, double mediane) {
+
+        /**
+         * @param populations populations triées par ordre croissant.
+         * @return leur répartition, ou {@code null} si le tableau est vide.
+         */
+        public static Repartition de(int[] populations) {
+            int n = populations.length;
+            if (n == 0) {
+                return null;
+            }
+            double mediane = n % 2 == 1
+                    ? populations[n / 2]
+                    : (populations[n / 2 - 1] + (long) populations[n / 2]) / 2.0;
+            return new Repartition(populations[0], populations[n - 1], mediane);
+        }
+    }
+
+    /**
+     * Les {@code n} villes les plus peuplées d'un ensemble de départements (une région), par
+     * fusion des fins de leurs segments triés : O(n log k) pour k départements.
+     *
+     * @param codesDepartement codes des départements.
+     * @param n                nombre de villes souhaité.
+     * @return identifiants par population décroissante, ou {@code null} si l'index n'est pas construit.
+     */
+    public long[] idsTop(Collection<String> codesDepartement, int n) {
+        if (!pret) {
+            topEchecs.incrementAndGet();
+            return null;
+        }
+        topSucces.incrementAndGet();
+        Map<String, Segment> deps = parDepartement;
+        List<Segment> segments = new ArrayList<>();
+        for (String code : codesDepartement) {
+            Segment segment = deps.get(code);
+            if (segment != null && segment.ids.length > 0) {
+                segments.add(segment);
+            }
+        }
+        // Position courante dans chaque segment, parcouru de la fin (plus peuplée) vers le début
+        int[] positions = new int[segments.size()];
+        PriorityQueue<Integer> tas = new PriorityQueue<>(Math.max(1, segments.size()),
+                (a, b) -> Integer.compare(segments.get(b).populations[positions[b]],
+                        segments.get(a).populations[positions[a]]));
+        for (int i = 0; i < segments.size(); i++) {
+            positions[i] = segments.get(i).ids.length - 1;
+            tas.add(i);
+        }
+        long[] resultat = new long[Math.max(0, n)];
+        int nb = 0;
+        while (nb < resultat.length && !tas.isEmpty()) {
+            int i = tas.poll();
+            resultat[nb++] = segments.get(i).ids[positions[i]];
+            if (--positions[i] >= 0) {
+                tas.add(i);
+            }
+        }
+        return nb == resultat.length ? resultat : Arrays.copyOf(resultat, nb);
+    }
+
+    /**
+     * Variante de {@link #repartition(String)} pour un ensemble de départements (une région).
+     * La médiane est obtenue sans fusionner les segments, par dichotomie sur la population.
+     *
+     * @param codesDepartement codes des départements.
+     * @return la répartition, ou {@code null} si l'index n'est pas construit ou ne contient aucune ville.
+     */
+    public Repartition repartition(Collection<String> codesDepartement) {
+        if (!pret) {
+            return null;
+        }
+        Map<String, Segment> deps = parDepartement;
+        List<Segment> segments = new ArrayList<>();
+        int total = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (String code : codesDepartement) {
+            Segment segment = deps.get(code);
+            if (segment != null && segment.ids.length > 0) {
+                segments.add(segment);
+                total += segment.ids.length;
+                min = Math.min(min, segment.populations[0]);
+                max = Math.max(max, segment.populations[segment.ids.length - 1]);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        double mediane = total % 2 == 1
+                ? kieme(segments, total / 2, min, max)
+                : (kieme(segments, total / 2 - 1, min, max) + (long) kieme(segments, total / 2, min, max)) / 2.0;
+        return new Repartition(min, max, mediane);
+    }
+
+    /**
+     * Population de rang {@code k} (à partir de 0, ordre croissant) dans l'union des segments :
+     * la plus petite valeur v telle qu'au moins k + 1 populations soient inférieures ou égales à v.
+     */
+    private static int kieme(List<Segment> segments, int k, int min, int max) {
+        int bas = min;
+        int haut = max;
+        while (bas < haut) {
+            int milieu = (int) (((long) bas + haut) >>> 1);
+            long nb = 0;
+            for (Segment segment : segments) {
+                nb += segment.premierSuperieur(milieu);
+            }
+            if (nb > k) {
+                haut = milieu;
+            } else {
+                bas = milieu + 1;
+            }
+        }
+        return bas;
+    }
+
+    /** @return nombre de top N servis par l'index. */
+    public long getTopSucces() {
+        return topSucces.get();
+    }
+
+    /** @return nombre de top N renvoyés vers la base faute d'index. */
+    public long getTopEchecs() {
+        return topEchecs.get();
+    }
+
+    private record Entree(int population, String codeDepartement) {
+    }
+
+    /**
+     * Tableaux immuables d'identifiants et de populations, triés par population croissante.
+     */
+    private static final class Segment {
+
+        static final Segment VIDE = new Segment(new long[0], new int[0]);
+
+        final long[] ids;
+        final int[] populations;
+
+        Segment(long[] ids, int[] populations) {
+            this.ids = ids;
+            this.populations = populations;
+        }
+
+        static Segment trier(List<VilleProjection> villes) {
+            VilleProjection[] triees = villes.toArray(new VilleProjection[0]);
+            Arrays.sort(triees, (a, b) -> Integer.compare(a.populationTotale(), b.populationTotale()));
+            long[] ids = new long[triees.length];
+            int[] populations = new int[triees.length];
+            for (int i = 0; i < triees.length; i++) {
+                ids[i] = triees[i].id();
+                populations[i] = triees[i].populationTotale();
+            }
+            return new Segment(ids, populations);
+        }
+
+        long[] superieure(int min) {
+            return decroissant(premierSuperieur(min), ids.length);
+        }
+
+        long[] entre(int min, int max) {
+            if (min > max) {
+                return new long[0];
+            }
+            return decroissant(premierSuperieurOuEgal(min), premierSuperieur(max));
+        }
+
+        long[] top(int n) {
+            return decroissant(Math.max(0, ids.length - Math.max(0, n)), ids.length);
+        }
+
+        Repartition repartition() {
+            return Repartition.de(populations);
+        }
+
+        Segment avec(long id, int population) {
+            int pos = premierSuperieur(population);
+            long[] nouveauxIds = new long[ids.length + 1];
+            int[] nouvellesPops = new int[ids.length + 1];
+            System.arraycopy(ids, 0, nouveauxIds, 0, pos);
+            System.arraycopy(populations, 0, nouvellesPops, 0, pos);
+            nouveauxIds[pos] = id;
+            nouvellesPops[pos] = population;
+            System.arraycopy(ids, pos, nouveauxIds, pos + 1, ids.length - pos);
+            System.arraycopy(populations, pos, nouvellesPops, pos + 1, ids.length - pos);
+            return new Segment(nouveauxIds, nouvellesPops);
+        }
+
+        Segment sans(long id, int population) {
+            int fin = premierSuperieur(population);
+            for (int pos = premierSuperieurOuEgal(population); pos < fin; pos++) {
+                if (ids[pos] == id) {
+                    long[] nouveauxIds = new long[ids.length - 1];
+                    int[] nouvellesPops = new int[ids.length - 1];
+                    System.arraycopy(ids, 0, nouveauxIds, 0, pos);
+                    System.arraycopy(populations, 0, nouvellesPops, 0, pos);
+                    System.arraycopy(ids, pos + 1, nouveauxIds, pos, ids.length - pos - 1);
+                    System.arraycopy(populations, pos + 1, nouvellesPops, pos, ids.length - pos - 1);
+                    return new Segment(nouveauxIds, nouvellesPops);
+                }
+            }
+            return this;
+        }
+
+        /** Premier indice dont la population est strictement supérieure à la valeur. */
+        private int premierSuperieur(int valeur) {
+            int bas = 0;
+            int haut = populations.length;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (populations[milieu] <= valeur) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+
+        /** Premier indice dont la population est supérieure ou égale à la valeur. */
+        private int premierSuperieurOuEgal(int valeur) {
+            int bas = 0;
+            int haut = populations.length;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (populations[milieu] < valeur) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+
+        /** Copie des identifiants d'indices [debut, fin[ dans l'ordre décroissant des populations. */
+        private long[] decroissant(int debut, int fin) {
+            long[] resultat = new long[Math.max(0, fin - debut)];
+            for (int i = 0; i < resultat.length; i++) {
+                resultat[i] = ids[fin - 1 - i];
+            }
+            return resultat;
+        }
+    }
+}
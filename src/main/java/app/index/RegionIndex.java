@@ -0,0 +1,128 @@
+package app.index;
+
+import app.cache.DatasetVersion;
+import app.dto.DepartementRegionProjection;
+import app.events.DepartementEvent;
+import app.repository.DepartementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hiérarchie régions → départements tenue en mémoire.
+ * <p>
+ * Une centaine de lignes lues en une requête : les lectures par région n'ont ainsi jamais
+ * besoin de joindre régions, départements et villes. Combinée aux segments par département
+ * du {@link PopulationIndex} et aux {@link PopulationAgregats}, elle sert toutes les requêtes
+ * par région.
+ * </p>
+ * <p>
+ * Construite dès la première lecture, puis reconstruite à la fin du chargement et mise à jour
+ * par les {@link DepartementEvent}.
+ * </p>
+ */
+@Component
+public class RegionIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegionIndex.class);
+
+    private final DepartementRepository departementRepository;
+
+    /** Départements par code (accès sous verrou ; publiés via {@link #regions}). */
+    private final Map<String, DepartementRegionProjection> departements = new HashMap<>();
+
+    private volatile Map<String, Region> regions;
+
+    public RegionIndex(DepartementRepository departementRepository) {
+        this.departementRepository = departementRepository;
+    }
+
+    /**
+     * (Re)construit la hiérarchie à partir de la base.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void construire() {
+        departements.clear();
+        for (DepartementRegionProjection d : departementRepository.findAllAvecRegion()) {
+            departements.put(d.code(), d);
+        }
+        publier();
+        LOG.info("Hiérarchie des régions construite : {} régions, {} départements.", regions.size(), departements.size());
+    }
+
+    /**
+     * Recharge le département modifié, créé ou supprimé une fois la transaction validée.
+     */
+    @TransactionalEventListener
+    @Order(DatasetVersion.AVANT_VERSION)
+    public synchronized void onDepartementEvent(DepartementEvent event) {
+        if (regions == null) {
+            return;
+        }
+        departementRepository.findAvecRegionByCode(event.code()).ifPresentOrElse(
+                d -> departements.put(d.code(), d),
+                () -> departements.remove(event.code()));
+        publier();
+    }
+
+    /**
+     * @return toutes les régions, par code.
+     */
+    public Map<String, Region> regions() {
+        Map<String, Region> r = regions;
+        if (r == null) {
+            construire();
+            r = regions;
+        }
+        return r;
+    }
+
+    /**
+     * @param code code de la région.
+     * @return la région, ou {@code null} si elle n'existe pas ou n'a aucun département.
+     */
+    public Region region(String code) {
+        return regions().get(code);
+    }
+
+    private void publier() {
+        Map<String, List<DepartementRegionProjection>> groupes = new TreeMap<>();
+        for (DepartementRegionProjection d : departements.values()) {
+            if (d.codeRegion() != null) {
+                groupes.computeIfAbsent(d.codeRegion(), k -> new ArrayList<>()).add(d);
+            }
+        }
+        Map<String, Region> resultat = new TreeMap<>();
+        groupes.forEach((code, deps) -> {
+            deps.sort(Comparator.comparing(DepartementRegionProjection::code));
+            List<String> codes = deps.stream().map(DepartementRegionProjection::code).toList();
+            resultat.put(code, new Region(code, deps.get(0).nomRegion(), List.copyOf(deps), codes));
+        });
+        regions = Collections.unmodifiableMap(resultat);
+    }
+
+    /**
+     * Une région et ses départements, triés par code.
+     *
+     * @param code               code de la région.
+     * @param nom                nom de la région.
+     * @param departements       ses départements.
+     * @param codesDepartement   codes de ses départements.
+     */
+    public record Region(String code, String nom, List<DepartementRegionProjection> departements,
+                         List<String> codesDepartement) {
+    }
+}
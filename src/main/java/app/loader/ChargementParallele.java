@@ -0,0 +1,72 @@
+package app.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Exécution de tâches de chargement sur des threads virtuels, avec une concurrence bornée.
+ * <p>
+ * Au plus {@code parallelisme} tâches s'exécutent en même temps : au-delà, {@link #soumettre(Runnable)}
+ * bloque l'appelant, ce qui freine la lecture de la source plutôt que d'accumuler des lots en mémoire.
+ * La borne doit rester inférieure à la taille du pool de connexions.
+ * </p>
+ */
+public final class ChargementParallele implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore places;
+    private final List<Future<?>> taches = new ArrayList<>();
+
+    public ChargementParallele(int parallelisme) {
+        this.places = new Semaphore(Math.max(1, parallelisme));
+    }
+
+    /**
+     * Soumet une tâche, en attendant qu'une place se libère.
+     *
+     * @param tache tâche à exécuter.
+     */
+    public void soumettre(Runnable tache) {
+        try {
+            places.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chargement interrompu", ex);
+        }
+        taches.add(executor.submit(() -> {
+            try {
+                tache.run();
+            } finally {
+                places.release();
+            }
+        }));
+    }
+
+    /**
+     * Attend la fin de toutes les tâches soumises.
+     *
+     * @throws IllegalStateException si une tâche a échoué (première erreur rencontrée).
+     */
+    public void attendre() {
+        try {
+            for (Future<?> tache : taches) {
+                tache.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chargement interrompu", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Échec du chargement : " + ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,18 @@
+package app.loader;
+
+import app.dto.RafraichissementDto;
+
+/**
+ * Source du recensement (API ou fichier CSV) : exécutée au démarrage, puis à la demande
+ * ({@link RafraichissementRecensement}).
+ */
+public interface ChargeurRecensement {
+
+    /**
+     * Lit la source et aligne la base sur son contenu : départements manquants créés, communes
+     * insérées, mises à jour ou supprimées selon leur empreinte ({@link Synchronisation}).
+     *
+     * @return le bilan du rafraîchissement.
+     */
+    RafraichissementDto rafraichir();
+}
@@ -0,0 +1,51 @@
+package app.loader;
+
+import app.dto.VilleDto;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Lecteur en flux du tableau JSON de communes renvoyé par geo.api.gouv.fr.
+ * <p>
+ * Le corps de la réponse est parcouru jeton par jeton : chaque objet du tableau est converti
+ * en {@link VilleDto} puis transmis au consommateur avant la lecture du suivant. Ni le corps
+ * complet ni un tableau de DTO ne sont conservés en mémoire.
+ * </p>
+ */
+public final class CommunesJsonParser {
+
+    private CommunesJsonParser() {
+    }
+
+    /**
+     * Parcourt un tableau JSON de communes et transmet chacune au consommateur.
+     *
+     * @param flux         corps de la réponse HTTP.
+     * @param objectMapper mapper Jackson de l'application.
+     * @param consommateur traitement appliqué à chaque commune lue.
+     * @return nombre de communes lues.
+     * @throws IOException si le flux est illisible ou n'est pas un tableau JSON.
+     */
+    public static long parcourir(InputStream flux, ObjectMapper objectMapper,
+                                 Consumer<VilleDto> consommateur) throws IOException {
+        ObjectReader lecteur = objectMapper.readerFor(VilleDto.class);
+        long nbLignes = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(flux)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Tableau JSON de communes attendu");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                VilleDto dto = lecteur.readValue(parser);
+                consommateur.accept(dto);
+                nbLignes++;
+            }
+        }
+        return nbLignes;
+    }
+}
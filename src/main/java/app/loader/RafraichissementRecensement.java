@@ -0,0 +1,125 @@
+package app.loader;
+
+import app.cache.CacheConfig;
+import app.cache.DatasetVersion;
+import app.dto.RafraichissementDto;
+import app.index.NomIndex;
+import app.index.PopulationAgregats;
+import app.index.PopulationIndex;
+import app.index.RegionIndex;
+import app.snapshot.Recensement;
+import app.snapshot.SnapshotRecensement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rafraîchissement à chaud du recensement depuis la source configurée ({@code recensement.source}).
+ * <p>
+ * La source est relue et la base alignée sur son contenu par empreinte ({@link ChargeurRecensement}) :
+ * sur une source inchangée, rien n'est écrit. Si des villes ont changé, les index en mémoire sont
+ * reconstruits, les caches de lecture vidés, les versions des données avancées et, en mode
+ * {@code snapshot}, une nouvelle photographie construite depuis la base.
+ * </p>
+ * <p>
+ * Les écritures du chargeur passent par JDBC, sans événement {@code VilleEvent} : c'est ici, une fois
+ * le rafraîchissement terminé, que les structures dérivées sont remises à jour.
+ * </p>
+ */
+@Component
+public class RafraichissementRecensement {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RafraichissementRecensement.class);
+
+    private final ObjectProvider<ChargeurRecensement> chargeur;
+    private final RegionIndex regionIndex;
+    private final PopulationIndex populationIndex;
+    private final NomIndex nomIndex;
+    private final PopulationAgregats agregats;
+    private final CacheManager cacheManager;
+    private final DatasetVersion datasetVersion;
+    private final SnapshotRecensement snapshots;
+
+    private final ReentrantLock verrou = new ReentrantLock();
+
+    /** Passe à {@code true} une fois le chargement de démarrage terminé (celui-ci est un rafraîchissement en cours). */
+    private volatile boolean pret;
+
+    public RafraichissementRecensement(ObjectProvider<ChargeurRecensement> chargeur, RegionIndex regionIndex,
+                                       PopulationIndex populationIndex, NomIndex nomIndex,
+                                       PopulationAgregats agregats, CacheManager cacheManager,
+                                       DatasetVersion datasetVersion, SnapshotRecensement snapshots) {
+        this.chargeur = chargeur;
+        this.regionIndex = regionIndex;
+        this.populationIndex = populationIndex;
+        this.nomIndex = nomIndex;
+        this.agregats = agregats;
+        this.cacheManager = cacheManager;
+        this.datasetVersion = datasetVersion;
+        this.snapshots = snapshots;
+    }
+
+    /** @return {@code true} si un rafraîchissement, ou le chargement de démarrage, est en cours. */
+    public boolean enCours() {
+        return !pret || verrou.isLocked();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void demarrageTermine() {
+        pret = true;
+    }
+
+    /**
+     * Relit la source et applique ses différences à la base.
+     *
+     * @return le bilan (communes lues, insérées, mises à jour, supprimées et inchangées), ou vide si un
+     * rafraîchissement, ou le chargement de démarrage, est déjà en cours.
+     * @throws IllegalStateException si aucune source n'est configurée ou si la lecture de la source échoue.
+     */
+    public Optional<RafraichissementDto> rafraichir() {
+        ChargeurRecensement source = chargeur.getIfAvailable();
+        if (source == null) {
+            throw new IllegalStateException("Aucune source de recensement configurée (recensement.source).");
+        }
+        if (!pret || !verrou.tryLock()) {
+            return Optional.empty();
+        }
+        try {
+            RafraichissementDto bilan = source.rafraichir();
+            if (bilan.aChange()) {
+                publier();
+            }
+            LOG.info("Rafraîchissement {} : {} insérées, {} mises à jour, {} supprimées, {} inchangées en {} ms.",
+                    bilan.source(), bilan.inserees(), bilan.modifiees(), bilan.supprimees(), bilan.inchangees(),
+                    bilan.dureeMs());
+            return Optional.of(bilan);
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private void publier() {
+        regionIndex.construire();
+        populationIndex.construire();
+        nomIndex.construire();
+        agregats.construire();
+        for (String nom : new String[] {CacheConfig.VILLES, CacheConfig.VILLES_PAR_NOM, CacheConfig.DEPARTEMENTS}) {
+            Cache cache = cacheManager.getCache(nom);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        datasetVersion.recharger();
+        if (snapshots.estActif()) {
+            snapshots.recharger(Recensement.Source.BASE);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package app.loader;
+
+import app.dto.VilleDto;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Copie binaire du fichier recensement.csv, relue au démarrage suivant à la place du texte.
+ * <p>
+ * Le fichier porte l'empreinte (CRC32C) du CSV dont il est issu : il n'est relu que si le CSV n'a pas
+ * changé ({@link #correspond(Path, long)}). Il est projeté en mémoire et ses enregistrements, de taille
+ * fixe, sont lus sans découpage ni conversion de texte ; les chaînes (codes et noms) ne sont décodées
+ * qu'une fois, depuis un dictionnaire placé en tête.
+ * </p>
+ * Format (version {@value #VERSION}, entiers gros-boutiens) :
+ * <pre>
+ * int   magique "RCSB"       short version        long empreinte du CSV
+ * int   nb chaînes           int   nb départements  int nb communes
+ * chaînes       : nb × (u16 longueur, octets UTF-8)
+ * départements  : nb × (int code, int code région, int nom région)               12 octets
+ * communes      : nb × (int code, int nom, int pop. municipale, int pop. totale,
+ *                       int département)                                         20 octets
+ * int   CRC32C de tout ce qui précède
+ * </pre>
+ * Les entiers des enregistrements renvoient au dictionnaire, sauf populations et rang du département.
+ */
+public final class RecensementBinaire {
+
+    private static final int MAGIQUE = 0x52435342;
+    private static final short VERSION = 1;
+
+    /** Taille de l'en-tête : magique, version, empreinte et trois compteurs. */
+    private static final int EN_TETE = 4 + 2 + 8 + 3 * 4;
+
+    private RecensementBinaire() {
+    }
+
+    /**
+     * Calcule l'empreinte du fichier source, comparée à celle enregistrée dans la copie binaire.
+     *
+     * @param source fichier CSV.
+     * @return CRC32C du contenu du fichier.
+     * @throws IOException si la lecture échoue.
+     */
+    public static long empreinte(Resource source) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] tampon = new byte[1 << 16];
+        try (InputStream in = source.getInputStream()) {
+            int lus;
+            while ((lus = in.read(tampon)) > 0) {
+                crc.update(tampon, 0, lus);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @param fichier   copie binaire.
+     * @param empreinte empreinte du CSV courant ({@link #empreinte(Resource)}).
+     * @return {@code true} si la copie existe, est de la version courante et provient de ce CSV.
+     */
+    public static boolean correspond(Path fichier, long empreinte) {
+        if (!Files.isRegularFile(fichier)) {
+            return false;
+        }
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            if (canal.size() < EN_TETE + 4) {
+                return false;
+            }
+            ByteBuffer tete = ByteBuffer.allocate(EN_TETE);
+            while (tete.hasRemaining() && canal.read(tete) > 0) {
+                // lecture de l'en-tête
+            }
+            tete.flip();
+            return tete.getInt() == MAGIQUE && tete.getShort() == VERSION && tete.getLong() == empreinte;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parcourt la copie binaire et transmet chaque commune au consommateur, dans l'ordre du CSV d'origine,
+     * comme {@link RecensementCsvParser#parcourir(java.io.BufferedReader, Consumer, BiConsumer)}.
+     *
+     * @param fichier      copie binaire, déjà validée par {@link #correspond(Path, long)}.
+     * @param consommateur traitement appliqué à chaque commune lue.
+     * @param regions      reçoit le code du département et sa région, à chaque changement de département.
+     * @return nombre de communes lues.
+     * @throws IOException si la lecture échoue ou si le contenu est altéré (CRC32C incorrect) ;
+     *                     rien n'est alors transmis.
+     */
+    public static long parcourir(Path fichier, Consumer<VilleDto> consommateur,
+                                 BiConsumer<String, RecensementCsvParser.Region> regions) throws IOException {
+        ByteBuffer tampon;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            tampon = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        int fin = tampon.limit() - 4;
+        CRC32C crc = new CRC32C();
+        crc.update(tampon.slice(0, fin));
+        if ((int) crc.getValue() != tampon.getInt(fin)) {
+            throw new IOException("Copie binaire altérée : " + fichier);
+        }
+
+        tampon.position(EN_TETE - 3 * 4);
+        String[] chaines = new String[tampon.getInt()];
+        int nbDepartements = tampon.getInt();
+        int nbCommunes = tampon.getInt();
+        byte[] octets = new byte[256];
+        for (int i = 0; i < chaines.length; i++) {
+            int longueur = Short.toUnsignedInt(tampon.getShort());
+            if (longueur > octets.length) {
+                octets = new byte[longueur];
+            }
+            tampon.get(octets, 0, longueur);
+            chaines[i] = new String(octets, 0, longueur, StandardCharsets.UTF_8);
+        }
+
+        String[] departements = new String[nbDepartements];
+        RecensementCsvParser.Region[] regionsDepartement = new RecensementCsvParser.Region[nbDepartements];
+        for (int i = 0; i < nbDepartements; i++) {
+            departements[i] = chaines[tampon.getInt()];
+            regionsDepartement[i] = new RecensementCsvParser.Region(chaines[tampon.getInt()], chaines[tampon.getInt()]);
+        }
+
+        int departementPrecedent = -1;
+        for (int i = 0; i < nbCommunes; i++) {
+            String code = chaines[tampon.getInt()];
+            String nom = chaines[tampon.getInt()];
+            int populationMunicipale = tampon.getInt();
+            int populationTotale = tampon.getInt();
+            int departement = tampon.getInt();
+            if (departement != departementPrecedent) {
+                regions.accept(departements[departement], regionsDepartement[departement]);
+                departementPrecedent = departement;
+            }
+            VilleDto dto = new VilleDto();
+            dto.setCodeDepartement(departements[departement]);
+            dto.setCode(code);
+            dto.setNom(nom);
+            dto.setPopulationTotale(populationTotale);
+            dto.setPopulationMunicipale(populationMunicipale);
+            consommateur.accept(dto);
+        }
+        return nbCommunes;
+    }
+
+    /**
+     * Accumule les communes lues dans le CSV puis écrit leur copie binaire.
+     * <p>
+     * Se branche sur {@link RecensementCsvParser#parcourir(java.io.BufferedReader, Consumer, BiConsumer)}
+     * à côté du traitement principal ; n'est utilisé que par le fil de lecture.
+     * </p>
+     */
+    public static final class Enregistreur implements Consumer<VilleDto>, BiConsumer<String, RecensementCsvParser.Region> {
+
+        private final Map<String, Integer> dictionnaire = new HashMap<>();
+        private final List<String> chaines = new ArrayList<>();
+        private final Map<String, Integer> rangsDepartement = new HashMap<>();
+        private final List<int[]> departements = new ArrayList<>();
+        private int[] communes = new int[5 * 40_000];
+        private int nbCommunes;
+
+        @Override
+        public void accept(String codeDepartement, RecensementCsvParser.Region region) {
+            rangsDepartement.computeIfAbsent(codeDepartement, code -> {
+                departements.add(new int[] {chaine(code), chaine(region.code()), chaine(region.nom())});
+                return departements.size() - 1;
+            });
+        }
+
+        @Override
+        public void accept(VilleDto dto) {
+            if ((nbCommunes + 1) * 5 > communes.length) {
+                communes = Arrays.copyOf(communes, communes.length * 2);
+            }
+            int i = nbCommunes++ * 5;
+            communes[i] = chaine(dto.getCode());
+            communes[i + 1] = chaine(dto.getNom());
+            communes[i + 2] = dto.getPopulationMunicipale();
+            communes[i + 3] = dto.getPopulationTotale();
+            communes[i + 4] = rangsDepartement.get(dto.getCodeDepartement());
+        }
+
+        private int chaine(String valeur) {
+            return dictionnaire.computeIfAbsent(valeur, v -> {
+                chaines.add(v);
+                return chaines.size() - 1;
+            });
+        }
+
+        /**
+         * Écrit la copie binaire dans un fichier temporaire voisin puis la met en place d'un seul
+         * déplacement : un démarrage concurrent ne lit jamais un fichier à moitié écrit.
+         *
+         * @param fichier   destination.
+         * @param empreinte empreinte du CSV lu ({@link #empreinte(Resource)}).
+         * @return taille du fichier écrit.
+         * @throws IOException si l'écriture échoue.
+         */
+        public long ecrire(Path fichier, long empreinte) throws IOException {
+            Path dossier = fichier.toAbsolutePath().getParent();
+            Files.createDirectories(dossier);
+            Path temporaire = Files.createTempFile(dossier, fichier.getFileName().toString(), ".tmp");
+            try {
+                CRC32C crc = new CRC32C();
+                try (OutputStream fluxFichier = Files.newOutputStream(temporaire);
+                     CheckedOutputStream controle = new CheckedOutputStream(new BufferedOutputStream(fluxFichier, 1 << 16), crc);
+                     DataOutputStream out = new DataOutputStream(controle)) {
+                    out.writeInt(MAGIQUE);
+                    out.writeShort(VERSION);
+                    out.writeLong(empreinte);
+                    out.writeInt(chaines.size());
+                    out.writeInt(departements.size());
+                    out.writeInt(nbCommunes);
+                    for (String chaine : chaines) {
+                        byte[] octets = chaine.getBytes(StandardCharsets.UTF_8);
+                        if (octets.length > 0xFFFF) {
+                            throw new IOException("Chaîne trop longue pour la copie binaire : " + chaine);
+                        }
+                        out.writeShort(octets.length);
+                        out.write(octets);
+                    }
+                    for (int[] departement : departements) {
+                        for (int valeur : departement) {
+                            out.writeInt(valeur);
+                        }
+                    }
+                    for (int i = 0; i < nbCommunes * 5; i++) {
+                        out.writeInt(communes[i]);
+                    }
+                    out.flush();
+                    // Le CRC couvre tout ce qui précède : la dernière valeur est écrite hors contrôle
+                    new DataOutputStream(fluxFichier).writeInt((int) crc.getValue());
+                }
+                Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaire);
+            }
+            return Files.size(fichier);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package app.loader;
+
+import app.dto.RafraichissementDto;
+import app.dto.VilleDto;
+import app.metrics.ChargementMetriques;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Charge les départements et les communes depuis le fichier recensement.csv au démarrage.
+ * <p>
+ * Alternative hors-ligne à {@code RecensementApiExterne}, activée par
+ * {@code recensement.source=csv} (profil {@code csv}). Le fichier est lu en flux et les lignes sont écrites
+ * par lots JDBC ({@link RecensementJdbcWriter}), chaque lot dans sa propre transaction.
+ * </p>
+ * <p>
+ * La lecture reste séquentielle, mais les lots pleins sont insérés sur des threads virtuels,
+ * au plus {@code recensement.chargement.parallelisme} à la fois ({@link ChargementParallele}).
+ * </p>
+ * <p>
+ * Seules les communes nouvelles ou dont l'empreinte a changé sont écrites, et les villes absentes du
+ * fichier supprimées ({@link Synchronisation}) : sur une base déjà chargée, un redémarrage ou un
+ * rafraîchissement ({@link #rafraichir()}) ne réécrit rien si le fichier est inchangé.
+ * </p>
+ * <p>
+ * Après un chargement réussi, une copie binaire du fichier est écrite ({@code recensement.csv.binaire},
+ * {@link RecensementBinaire}) ; tant que le CSV garde la même empreinte, les chargements suivants la
+ * lisent à la place du texte.
+ * </p>
+ * Les régions sont créées avec leur code et leur nom ; le fichier ne contient pas le nom
+ * des départements : ceux créés ici n'ont que leur code et leur région.
+ */
+@Component
+@ConditionalOnProperty(name = "recensement.source", havingValue = "csv")
+public class RecensementCsvLoader implements CommandLineRunner, ChargeurRecensement {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecensementCsvLoader.class);
+
+    private static final String SOURCE = "csv";
+
+    private final RecensementJdbcWriter writer;
+    private final ChargementMetriques metriques;
+    private final TransactionTemplate transactionTemplate;
+    private final Resource fichier;
+    private final int tailleLot;
+    private final int parallelisme;
+    /** Copie binaire du fichier ({@link RecensementBinaire}), ou {@code null} si désactivée. */
+    private final Path copieBinaire;
+
+    public RecensementCsvLoader(RecensementJdbcWriter writer,
+                                ChargementMetriques metriques,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${recensement.csv.fichier:classpath:recensement.csv}") Resource fichier,
+                                @Value("${recensement.csv.taille-lot:5000}") int tailleLot,
+                                @Value("${recensement.chargement.parallelisme:8}") int parallelisme,
+                                @Value("${recensement.csv.binaire:}") String copieBinaire) {
+        this.writer = writer;
+        this.metriques = metriques;
+        this.transactionTemplate = transactionTemplate;
+        this.fichier = fichier;
+        this.tailleLot = tailleLot;
+        this.parallelisme = parallelisme;
+        this.copieBinaire = copieBinaire.isBlank() ? null : Path.of(copieBinaire);
+    }
+
+    @Override
+    public void run(String... args) {
+        rafraichir();
+    }
+
+    @Override
+    public RafraichissementDto rafraichir() {
+        long debut = System.nanoTime();
+
+        // Lu par les tâches d'insertion pendant que le fil de lecture y ajoute les nouveaux départements
+        Map<String, Long> idsDepartement = new ConcurrentHashMap<>(writer.chargerIdsDepartements());
+        Synchronisation synchronisation = new Synchronisation(writer, transactionTemplate, SOURCE);
+        // Utilisés par le seul fil de lecture
+        Map<String, Long> idsRegion = writer.chargerIdsRegions();
+        Map<String, RecensementCsvParser.Region> regions = new HashMap<>();
+        long finPrechargement = System.nanoTime();
+
+        long lues;
+        long empreinte = 0;
+        String origine = fichier.getFilename();
+        RecensementBinaire.Enregistreur enregistreur = null;
+        try (ChargementParallele chargement = new ChargementParallele(parallelisme)) {
+            LotEnCours lot = new LotEnCours(tailleLot);
+            Consumer<VilleDto> traitement = dto -> {
+                if (!synchronisation.aEcrire(dto)) {
+                    return;
+                }
+                List<VilleDto> plein = lot.ajouter(dto);
+                if (plein != null) {
+                    soumettreLot(chargement, plein, regions, idsRegion, idsDepartement, synchronisation);
+                }
+            };
+            BiConsumer<String, RecensementCsvParser.Region> regionsLues = regions::put;
+
+            lues = -1;
+            if (copieBinaire != null) {
+                empreinte = RecensementBinaire.empreinte(fichier);
+                if (RecensementBinaire.correspond(copieBinaire, empreinte)) {
+                    try {
+                        lues = RecensementBinaire.parcourir(copieBinaire, traitement, regionsLues);
+                        origine = copieBinaire.toString();
+                    } catch (IOException e) {
+                        // Rien n'a été transmis : le fichier CSV est relu
+                        LOG.warn("Copie binaire {} illisible, lecture du CSV : {}", copieBinaire, e.getMessage());
+                    }
+                }
+                if (lues < 0) {
+                    enregistreur = new RecensementBinaire.Enregistreur();
+                    traitement = traitement.andThen(enregistreur);
+                    regionsLues = regionsLues.andThen(enregistreur);
+                }
+            }
+            if (lues < 0) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(fichier.getInputStream(), StandardCharsets.UTF_8), 1 << 16)) {
+                    lues = RecensementCsvParser.parcourir(reader, traitement, regionsLues);
+                }
+            }
+            List<VilleDto> reste = lot.vider();
+            if (!reste.isEmpty()) {
+                soumettreLot(chargement, reste, regions, idsRegion, idsDepartement, synchronisation);
+            }
+            chargement.attendre();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture de " + fichier.getFilename() + " impossible", e);
+        }
+        long finEcriture = System.nanoTime();
+        RafraichissementDto bilan = synchronisation.terminer(debut);
+        if (enregistreur != null) {
+            enregistrer(enregistreur, empreinte);
+        }
+
+        long fin = System.nanoTime();
+        metriques.phase(SOURCE, "prechargement", debut, finPrechargement);
+        metriques.phase(SOURCE, "lecture_insertion", finPrechargement, finEcriture);
+        metriques.phase(SOURCE, "suppression", finEcriture, fin);
+        metriques.phase(SOURCE, "total", debut, fin);
+        metriques.insertions(SOURCE, "ville", bilan.inserees());
+
+        double secondes = (fin - debut) / 1_000_000_000.0;
+        LOG.info("{} communes lues depuis {} ({} en base) : {} insérées, {} mises à jour, {} supprimées, "
+                        + "{} inchangées, en {} s ({} lignes/s, {} lots en parallèle).",
+                lues, origine, synchronisation.existantes(), bilan.inserees(), bilan.modifiees(),
+                bilan.supprimees(), bilan.inchangees(), String.format("%.2f", secondes),
+                Math.round(lues / Math.max(secondes, 0.001)), parallelisme);
+        return bilan;
+    }
+
+    /**
+     * Écrit la copie binaire du fichier qui vient d'être chargé. Un échec n'interrompt pas le chargement :
+     * le démarrage suivant relira simplement le CSV.
+     */
+    private void enregistrer(RecensementBinaire.Enregistreur enregistreur, long empreinte) {
+        long debut = System.nanoTime();
+        try {
+            long octets = enregistreur.ecrire(copieBinaire, empreinte);
+            LOG.info("Copie binaire {} écrite : {} Ko en {} ms.", copieBinaire, octets / 1024,
+                    (System.nanoTime() - debut) / 1_000_000);
+        } catch (IOException e) {
+            LOG.warn("Écriture de la copie binaire {} impossible : {}", copieBinaire, e.getMessage());
+        }
+    }
+
+    /**
+     * Crée d'abord, sur le fil de lecture, les régions et départements encore inconnus du lot
+     * (deux lots concurrents ne peuvent donc pas insérer le même département), puis confie
+     * l'insertion des villes à un thread virtuel, dans sa propre transaction.
+     */
+    private void soumettreLot(ChargementParallele chargement, List<VilleDto> lot,
+                              Map<String, RecensementCsvParser.Region> regions, Map<String, Long> idsRegion,
+                              Map<String, Long> idsDepartement, Synchronisation synchronisation) {
+        Set<String> codesDep = new HashSet<>();
+        for (VilleDto dto : lot) {
+            if (!idsDepartement.containsKey(dto.getCodeDepartement())) {
+                codesDep.add(dto.getCodeDepartement());
+            }
+        }
+        if (!codesDep.isEmpty()) {
+            Map<String, String> nomsRegion = new HashMap<>();
+            for (String codeDep : codesDep) {
+                RecensementCsvParser.Region region = regions.get(codeDep);
+                nomsRegion.put(region.code(), region.nom());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                writer.insererRegionsManquantes(nomsRegion, idsRegion);
+                Map<String, Long> regionDesDepartements = new HashMap<>();
+                for (String codeDep : codesDep) {
+                    regionDesDepartements.put(codeDep, idsRegion.get(regions.get(codeDep).code()));
+                }
+                writer.insererDepartementsManquants(codesDep, Collections.emptyMap(), regionDesDepartements, idsDepartement);
+            });
+        }
+        chargement.soumettre(() -> synchronisation.ecrire(lot, idsDepartement));
+    }
+
+    /** Lot de villes en cours de constitution, rempli par le seul fil de lecture. */
+    private static final class LotEnCours {
+
+        private final int taille;
+        private List<VilleDto> villes;
+
+        LotEnCours(int taille) {
+            this.taille = taille;
+            this.villes = new ArrayList<>(taille);
+        }
+
+        /**
+         * @param dto ville à ajouter au lot.
+         * @return le lot, s'il vient d'atteindre sa taille (un nouveau lot vide le remplace), sinon {@code null}.
+         */
+        List<VilleDto> ajouter(VilleDto dto) {
+            villes.add(dto);
+            return villes.size() >= taille ? vider() : null;
+        }
+
+        /** @return les villes du lot, remplacé par un nouveau lot vide. */
+        List<VilleDto> vider() {
+            List<VilleDto> lot = villes;
+            villes = new ArrayList<>(taille);
+            return lot;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package app.loader;
+
+import app.dto.VilleDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Lecteur en flux du fichier recensement.csv.
+ * <p>
+ * Le fichier est lu ligne par ligne, sans jamais être chargé entièrement en mémoire.
+ * Chaque ligne est découpée sur le séparateur {@code ;} et transformée en {@link VilleDto}
+ * transmis immédiatement au consommateur.
+ * </p>
+ * Colonnes attendues :
+ * <pre>
+ * Code région;Nom de la région;Code département;Code arrondissement;Code canton;
+ * Code commune;Nom de la commune;Population municipale;Population comptée à part;Population totale;
+ * </pre>
+ */
+public final class RecensementCsvParser {
+
+    private static final char SEPARATEUR = ';';
+
+    private static final int COL_CODE_REGION = 0;
+    private static final int COL_NOM_REGION = 1;
+    private static final int COL_CODE_DEPARTEMENT = 2;
+    private static final int COL_CODE_COMMUNE = 5;
+    private static final int COL_NOM = 6;
+    private static final int COL_POPULATION_MUNICIPALE = 7;
+    private static final int COL_POPULATION_TOTALE = 9;
+    private static final int NB_COLONNES = 10;
+
+    private RecensementCsvParser() {
+    }
+
+    /**
+     * Région d'un département, telle que décrite par le fichier.
+     *
+     * @param code code INSEE de la région (ex : "76").
+     * @param nom  nom de la région.
+     */
+    public record Region(String code, String nom) {
+    }
+
+    /**
+     * Parcourt le flux CSV (ligne d'en-tête comprise) et transmet chaque commune au consommateur.
+     *
+     * @param reader       flux CSV encodé en UTF-8.
+     * @param consommateur traitement appliqué à chaque commune lue.
+     * @return nombre de communes lues.
+     * @throws IOException si la lecture du flux échoue.
+     */
+    public static long parcourir(BufferedReader reader, Consumer<VilleDto> consommateur) throws IOException {
+        return parcourir(reader, consommateur, (codeDepartement, region) -> { });
+    }
+
+    /**
+     * Variante de {@link #parcourir(BufferedReader, Consumer)} qui transmet aussi la région
+     * de chaque département, avant la première de ses communes.
+     *
+     * @param reader       flux CSV encodé en UTF-8.
+     * @param consommateur traitement appliqué à chaque commune lue.
+     * @param regions      reçoit le code du département et sa région, à chaque changement de département.
+     * @return nombre de communes lues.
+     * @throws IOException si la lecture du flux échoue.
+     */
+    public static long parcourir(BufferedReader reader, Consumer<VilleDto> consommateur,
+                                 BiConsumer<String, Region> regions) throws IOException {
+        String ligne = reader.readLine(); // en-tête
+        long nbLignes = 0;
+        String[] colonnes = new String[NB_COLONNES];
+        String departementPrecedent = null;
+        while ((ligne = reader.readLine()) != null) {
+            if (ligne.isBlank()) {
+                continue;
+            }
+            if (decouper(ligne, colonnes) < NB_COLONNES) {
+                throw new IllegalArgumentException("Ligne CSV invalide : " + ligne);
+            }
+            String codeDepartement = colonnes[COL_CODE_DEPARTEMENT];
+            if (!codeDepartement.equals(departementPrecedent)) {
+                regions.accept(codeDepartement, new Region(colonnes[COL_CODE_REGION], colonnes[COL_NOM_REGION]));
+                departementPrecedent = codeDepartement;
+            }
+            VilleDto dto = new VilleDto();
+            dto.setCodeDepartement(codeDepartement);
+            dto.setCode(codeInsee(codeDepartement, colonnes[COL_CODE_COMMUNE]));
+            dto.setNom(colonnes[COL_NOM]);
+            // setPopulationTotale recopie la valeur dans la population municipale : on la fixe en second
+            dto.setPopulationTotale(parsePopulation(colonnes[COL_POPULATION_TOTALE]));
+            dto.setPopulationMunicipale(parsePopulation(colonnes[COL_POPULATION_MUNICIPALE]));
+            consommateur.accept(dto);
+            nbLignes++;
+        }
+        return nbLignes;
+    }
+
+    /**
+     * Construit le code INSEE d'une commune à partir des codes département et commune.
+     * <p>
+     * En métropole (département sur 2 caractères, "2A"/"2B" compris) le code INSEE est la simple
+     * concaténation. Outre-mer, le code commune (ex : "101" pour le 971) reprend déjà le dernier
+     * chiffre du département : seuls ses deux derniers caractères sont conservés ("97101").
+     * </p>
+     *
+     * @param codeDepartement code du département (ex : "01", "2A", "971").
+     * @param codeCommune     code de la commune dans le département (ex : "004", "101").
+     * @return le code INSEE sur 5 caractères.
+     */
+    static String codeInsee(String codeDepartement, String codeCommune) {
+        if (codeDepartement.length() == 3) {
+            return codeDepartement + codeCommune.substring(codeCommune.length() - 2);
+        }
+        return codeDepartement + codeCommune;
+    }
+
+    /**
+     * Convertit une population écrite avec des espaces comme séparateurs de milliers ("14 081").
+     */
+    static int parsePopulation(String valeur) {
+        int resultat = 0;
+        boolean chiffre = false;
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c >= '0' && c <= '9') {
+                resultat = resultat * 10 + (c - '0');
+                chiffre = true;
+            } else if (!Character.isWhitespace(c) && !Character.isSpaceChar(c)) {
+                throw new NumberFormatException("Population invalide : " + valeur);
+            }
+        }
+        if (!chiffre) {
+            throw new NumberFormatException("Population vide");
+        }
+        return resultat;
+    }
+
+    /**
+     * Découpe une ligne sur le séparateur sans passer par les expressions régulières.
+     *
+     * @return nombre de colonnes renseignées dans le tableau.
+     */
+    private static int decouper(String ligne, String[] colonnes) {
+        int debut = 0;
+        int index = 0;
+        while (index < colonnes.length) {
+            int fin = ligne.indexOf(SEPARATEUR, debut);
+            if (fin < 0) {
+                if (debut < ligne.length()) {
+                    colonnes[index++] = ligne.substring(debut).trim();
+                }
+                break;
+            }
+            colonnes[index++] = ligne.substring(debut, fin).trim();
+            debut = fin + 1;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,273 @@
+package app.loader;
+
+import app.dto.VilleDto;
+import app.entities.Ville;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écriture en masse des régions, des départements et des villes via des lots JDBC.
+ * <p>
+ * Contrairement à {@code VilleRepository.save}, aucune entité n'est gérée par Hibernate :
+ * les lignes sont envoyées par paquets de requêtes préparées ({@code executeBatch}),
+ * ce qui supprime un aller-retour réseau par ligne.
+ * </p>
+ * <p>
+ * Les identifiants sont réservés par blocs sur les séquences des entités, exactement comme le fait
+ * Hibernate avec l'optimiseur pooled-lo : chaque valeur tirée d'une séquence ouvre un bloc de
+ * {@link Ville#TAILLE_BLOC_IDS} identifiants. Chargeur et API peuvent donc écrire en parallèle
+ * sans collision, et les identifiants insérés sont connus sans relire la table.
+ * </p>
+ * Les appels doivent être faits dans une transaction : en auto-commit, chaque ligne du lot
+ * serait validée individuellement.
+ */
+@Component
+public class RecensementJdbcWriter {
+
+    private static final String INSERT_REGION =
+            "INSERT INTO region (id, code, nom) VALUES (?, ?, ?)";
+
+    private static final String INSERT_DEPARTEMENT =
+            "INSERT INTO departement (id, code, nom, region_id) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_VILLE =
+            "INSERT INTO ville (id, code, nom, population_municipale, population_totale, departement_id, empreinte) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_VILLE =
+            "UPDATE ville SET nom = ?, population_municipale = ?, population_totale = ?, departement_id = ?, empreinte = ? WHERE id = ?";
+
+    private static final String DELETE_VILLE =
+            "DELETE FROM ville WHERE id = ?";
+
+    /**
+     * Identifiant, empreinte et département d'une ville en base.
+     *
+     * @param id              identifiant technique.
+     * @param empreinte       empreinte du contenu ({@link Ville#empreinte}), {@code null} si jamais calculée.
+     * @param codeDepartement code du département de la ville.
+     */
+    public record EmpreinteVille(long id, Long empreinte, String codeDepartement) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecensementJdbcWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Réserve des identifiants sur une séquence, par blocs de {@link Ville#TAILLE_BLOC_IDS}.
+     * Les identifiants inutilisés du dernier bloc sont perdus, comme avec Hibernate.
+     *
+     * @param sequence nom de la séquence.
+     * @param nombre   nombre d'identifiants souhaités.
+     * @return les identifiants réservés, croissants.
+     */
+    long[] reserverIds(String sequence, int nombre) {
+        long[] ids = new long[nombre];
+        String sql = "SELECT NEXT VALUE FOR " + sequence;
+        for (int i = 0; i < nombre; i += Ville.TAILLE_BLOC_IDS) {
+            Long debut = jdbcTemplate.queryForObject(sql, Long.class);
+            for (int j = 0; j < Ville.TAILLE_BLOC_IDS && i + j < nombre; j++) {
+                ids[i + j] = debut + j;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Charge la correspondance code → identifiant de toutes les régions en une requête.
+     *
+     * @return map code de la région → identifiant technique.
+     */
+    public Map<String, Long> chargerIdsRegions() {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, code FROM region", rs -> {
+            ids.put(rs.getString(2), rs.getLong(1));
+        });
+        return ids;
+    }
+
+    /**
+     * Insère en un lot les régions absentes de la map, puis complète la map avec leurs identifiants.
+     *
+     * @param noms       nom de chaque région requise, par code.
+     * @param idsParCode map code → identifiant, complétée par cette méthode.
+     * @return nombre de régions insérées.
+     */
+    public int insererRegionsManquantes(Map<String, String> noms, Map<String, Long> idsParCode) {
+        List<String> manquantes = new ArrayList<>();
+        noms.forEach((code, nom) -> {
+            if (!idsParCode.containsKey(code)) {
+                manquantes.add(code);
+            }
+        });
+        if (manquantes.isEmpty()) {
+            return 0;
+        }
+        long[] ids = reserverIds("region_seq", manquantes.size());
+        List<Object[]> lignes = new ArrayList<>(manquantes.size());
+        for (int i = 0; i < manquantes.size(); i++) {
+            String code = manquantes.get(i);
+            lignes.add(new Object[]{ids[i], code, noms.get(code)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_REGION, lignes);
+        for (int i = 0; i < manquantes.size(); i++) {
+            idsParCode.put(manquantes.get(i), ids[i]);
+        }
+        return lignes.size();
+    }
+
+    /**
+     * Charge la correspondance code → identifiant de tous les départements en une requête.
+     *
+     * @return map code du département → identifiant technique.
+     */
+    public Map<String, Long> chargerIdsDepartements() {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, code FROM departement", rs -> {
+            ids.put(rs.getString(2), rs.getLong(1));
+        });
+        return ids;
+    }
+
+    /**
+     * Charge en une requête l'identifiant, l'empreinte et le département de toutes les villes, par code INSEE.
+     *
+     * @return map code INSEE → identifiant, empreinte et département.
+     */
+    public Map<String, EmpreinteVille> chargerEmpreintesVilles() {
+        Map<String, EmpreinteVille> empreintes = new HashMap<>();
+        jdbcTemplate.query("SELECT v.code, v.id, v.empreinte, d.code FROM ville v JOIN departement d ON d.id = v.departement_id", rs -> {
+            long empreinte = rs.getLong(3);
+            Long valeur = rs.wasNull() ? null : empreinte;
+            empreintes.put(rs.getString(1), new EmpreinteVille(rs.getLong(2), valeur, rs.getString(4)));
+        });
+        return empreintes;
+    }
+
+    /**
+     * Charge la correspondance code INSEE → identifiant de toutes les villes en une requête.
+     *
+     * @return map code INSEE → identifiant technique.
+     */
+    public Map<String, Long> chargerIdsVilles() {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT code, id FROM ville", rs -> {
+            ids.put(rs.getString(1), rs.getLong(2));
+        });
+        return ids;
+    }
+
+    /**
+     * Insère en un lot les départements absents de la map, puis complète la map avec leurs identifiants.
+     *
+     * @param codes         codes des départements requis.
+     * @param noms          noms connus par code (peut ne pas contenir tous les codes).
+     * @param idsRegion     identifiant de la région de chaque département, par code du département
+     *                      (peut ne pas contenir tous les codes).
+     * @param idsParCode    map code → identifiant, complétée par cette méthode.
+     * @return nombre de départements insérés.
+     */
+    public int insererDepartementsManquants(Collection<String> codes, Map<String, String> noms,
+                                            Map<String, Long> idsRegion, Map<String, Long> idsParCode) {
+        List<String> manquants = new ArrayList<>();
+        for (String code : codes) {
+            if (!idsParCode.containsKey(code)) {
+                manquants.add(code);
+            }
+        }
+        if (manquants.isEmpty()) {
+            return 0;
+        }
+        long[] ids = reserverIds("departement_seq", manquants.size());
+        List<Object[]> lignes = new ArrayList<>(manquants.size());
+        for (int i = 0; i < manquants.size(); i++) {
+            String code = manquants.get(i);
+            lignes.add(new Object[]{ids[i], code, noms.get(code), idsRegion.get(code)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_DEPARTEMENT, lignes);
+        for (int i = 0; i < manquants.size(); i++) {
+            idsParCode.put(manquants.get(i), ids[i]);
+        }
+        return lignes.size();
+    }
+
+    /**
+     * Insère un lot de villes en une seule exécution JDBC.
+     *
+     * @param villes         villes à insérer.
+     * @param idsDepartement map code du département → identifiant technique.
+     * @return nombre de villes insérées (celles dont le département est inconnu sont ignorées).
+     */
+    public int insererVilles(List<VilleDto> villes, Map<String, Long> idsDepartement) {
+        List<Object[]> lignes = new ArrayList<>(villes.size());
+        for (VilleDto dto : villes) {
+            Long depId = idsDepartement.get(dto.getCodeDepartement());
+            if (depId != null) {
+                lignes.add(new Object[]{null, dto.getCode(), dto.getNom(),
+                        dto.getPopulationMunicipale(), dto.getPopulationTotale(), depId, empreinte(dto)});
+            }
+        }
+        if (!lignes.isEmpty()) {
+            long[] ids = reserverIds("ville_seq", lignes.size());
+            for (int i = 0; i < lignes.size(); i++) {
+                lignes.get(i)[0] = ids[i];
+            }
+            jdbcTemplate.batchUpdate(INSERT_VILLE, lignes);
+        }
+        return lignes.size();
+    }
+
+    /**
+     * Met à jour un lot de villes existantes en une seule exécution JDBC.
+     *
+     * @param villes         nouvelles valeurs des villes.
+     * @param idsVille       identifiant de chaque ville à mettre à jour, par code INSEE.
+     * @param idsDepartement map code du département → identifiant technique.
+     * @return nombre de villes mises à jour (celles dont le département est inconnu sont ignorées).
+     */
+    public int mettreAJourVilles(List<VilleDto> villes, Map<String, Long> idsVille, Map<String, Long> idsDepartement) {
+        List<Object[]> lignes = new ArrayList<>(villes.size());
+        for (VilleDto dto : villes) {
+            Long depId = idsDepartement.get(dto.getCodeDepartement());
+            Long id = idsVille.get(dto.getCode());
+            if (depId != null && id != null) {
+                lignes.add(new Object[]{dto.getNom(), dto.getPopulationMunicipale(), dto.getPopulationTotale(),
+                        depId, empreinte(dto), id});
+            }
+        }
+        if (!lignes.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_VILLE, lignes);
+        }
+        return lignes.size();
+    }
+
+    /**
+     * Supprime un lot de villes en une seule exécution JDBC.
+     *
+     * @param ids identifiants des villes.
+     * @return nombre de villes supprimées.
+     */
+    public int supprimerVilles(Collection<Long> ids) {
+        List<Object[]> lignes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            lignes.add(new Object[]{id});
+        }
+        if (!lignes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_VILLE, lignes);
+        }
+        return lignes.size();
+    }
+
+    private static long empreinte(VilleDto dto) {
+        return Ville.empreinte(dto.getNom(), dto.getPopulationMunicipale(), dto.getPopulationTotale(),
+                dto.getCodeDepartement());
+    }
+}
@@ -0,0 +1,155 @@
+package app.loader;
+
+import app.dto.RafraichissementDto;
+import app.dto.VilleDto;
+import app.entities.Ville;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rafraîchissement incrémental des villes : compare chaque commune lue dans la source aux villes en
+ * base, par code INSEE et empreinte du contenu ({@link Ville#empreinte}).
+ * <p>
+ * Les empreintes sont préchargées en une requête. Une commune inconnue est insérée, une commune dont
+ * l'empreinte diffère est mise à jour, une commune identique est ignorée ; les villes que la source
+ * n'a pas citées sont supprimées à la fin ({@link #terminer(long)}). Sur une source inchangée, rien
+ * n'est donc écrit.
+ * </p>
+ * <p>
+ * Les communes lues sont comptées par département : seules les villes d'un département dont la
+ * source a renvoyé au moins une commune peuvent être supprimées.
+ * </p>
+ * <p>
+ * {@link #aEcrire(VilleDto)} et {@link #ecrire(List, Map)} peuvent être appelées depuis plusieurs
+ * threads ; une instance ne sert qu'à un rafraîchissement.
+ * </p>
+ */
+public final class Synchronisation {
+
+    /** Nombre de villes supprimées par lot JDBC. */
+    private static final int TAILLE_LOT_SUPPRESSION = 1000;
+
+    private final RecensementJdbcWriter writer;
+    private final TransactionTemplate transactionTemplate;
+    private final String source;
+
+    /** Villes en base que la source n'a pas encore citées. */
+    private final Map<String, RecensementJdbcWriter.EmpreinteVille> restantes;
+
+    /** Identifiant des villes à mettre à jour, par code INSEE. */
+    private final Map<String, Long> aModifier = new ConcurrentHashMap<>();
+
+    private final Set<String> vues = ConcurrentHashMap.newKeySet();
+
+    private final int existantes;
+
+    private final AtomicLong lues = new AtomicLong();
+
+    /** Nombre de communes lues, par code du département. */
+    private final Map<String, AtomicLong> luesParDepartement = new ConcurrentHashMap<>();
+    private final AtomicLong inchangees = new AtomicLong();
+    private final AtomicLong inserees = new AtomicLong();
+    private final AtomicLong modifiees = new AtomicLong();
+
+    public Synchronisation(RecensementJdbcWriter writer, TransactionTemplate transactionTemplate, String source) {
+        this.writer = writer;
+        this.transactionTemplate = transactionTemplate;
+        this.source = source;
+        this.restantes = new ConcurrentHashMap<>(writer.chargerEmpreintesVilles());
+        this.existantes = restantes.size();
+    }
+
+    /** @return nombre de villes en base au début du rafraîchissement. */
+    public int existantes() {
+        return existantes;
+    }
+
+    /**
+     * Classe une commune lue dans la source. Toute commune reçue doit passer par ici, même si elle
+     * n'est finalement pas écrite : elle est ainsi retirée des villes à supprimer.
+     *
+     * @return {@code true} si elle doit être écrite (nouvelle ou modifiée), {@code false} si elle est
+     * identique à la base ou déjà lue.
+     */
+    public boolean aEcrire(VilleDto dto) {
+        lues.incrementAndGet();
+        if (dto.getCodeDepartement() != null) {
+            luesParDepartement.computeIfAbsent(dto.getCodeDepartement(), c -> new AtomicLong()).incrementAndGet();
+        }
+        if (!vues.add(dto.getCode())) {
+            return false;
+        }
+        RecensementJdbcWriter.EmpreinteVille existante = restantes.remove(dto.getCode());
+        if (existante == null) {
+            return true;
+        }
+        long empreinte = Ville.empreinte(dto.getNom(), dto.getPopulationMunicipale(), dto.getPopulationTotale(),
+                dto.getCodeDepartement());
+        if (existante.empreinte() != null && existante.empreinte() == empreinte) {
+            inchangees.incrementAndGet();
+            return false;
+        }
+        aModifier.put(dto.getCode(), existante.id());
+        return true;
+    }
+
+    /**
+     * Écrit un lot de communes retenues par {@link #aEcrire(VilleDto)} dans sa propre transaction :
+     * insertion des nouvelles, mise à jour des autres.
+     *
+     * @param lot            communes à écrire.
+     * @param idsDepartement map code du département → identifiant technique.
+     */
+    public void ecrire(List<VilleDto> lot, Map<String, Long> idsDepartement) {
+        List<VilleDto> nouvelles = new ArrayList<>(lot.size());
+        List<VilleDto> modifications = new ArrayList<>();
+        for (VilleDto dto : lot) {
+            (aModifier.containsKey(dto.getCode()) ? modifications : nouvelles).add(dto);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            inserees.addAndGet(writer.insererVilles(nouvelles, idsDepartement));
+            modifiees.addAndGet(writer.mettreAJourVilles(modifications, aModifier, idsDepartement));
+        });
+    }
+
+    /**
+     * Supprime par lots les villes que la source n'a pas citées. Les villes d'un département pour
+     * lequel la source n'a renvoyé aucune commune sont conservées : une réponse vide est plus
+     * probablement une panne qu'un département désert.
+     *
+     * @param debut début du rafraîchissement ({@link System#nanoTime()}).
+     * @return le bilan du rafraîchissement.
+     */
+    public RafraichissementDto terminer(long debut) {
+        long supprimees = 0;
+        List<Long> ids = new ArrayList<>(TAILLE_LOT_SUPPRESSION);
+        for (RecensementJdbcWriter.EmpreinteVille v : restantes.values()) {
+            if (!luesParDepartement.containsKey(v.codeDepartement())) {
+                continue;
+            }
+            ids.add(v.id());
+            if (ids.size() == TAILLE_LOT_SUPPRESSION) {
+                supprimees += supprimer(ids);
+            }
+        }
+        supprimees += supprimer(ids);
+        return new RafraichissementDto(source, lues.get(), inserees.get(), modifiees.get(), supprimees,
+                inchangees.get(), (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    private int supprimer(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Integer nb = transactionTemplate.execute(status -> writer.supprimerVilles(ids));
+        ids.clear();
+        return nb == null ? 0 : nb;
+    }
+}
@@ -0,0 +1,76 @@
+package app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durées des phases du chargement initial, publiées sous {@value #TIMER}
+ * avec les étiquettes {@code source} (api, csv) et {@code phase}, et durée du démarrage
+ * jusqu'à l'application prête, sous {@value #DEMARRAGE}.
+ */
+@Component
+public class ChargementMetriques {
+
+    static final String TIMER = "recensement.chargement";
+    static final String DEMARRAGE = "recensement.demarrage";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChargementMetriques.class);
+
+    private final MeterRegistry registry;
+
+    public ChargementMetriques(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Enregistre la durée d'une phase.
+     *
+     * @param source source des données.
+     * @param phase  nom de la phase.
+     * @param debut  début de la phase ({@link System#nanoTime()}).
+     * @param fin    fin de la phase ({@link System#nanoTime()}).
+     */
+    public void phase(String source, String phase, long debut, long fin) {
+        Timer.builder(TIMER)
+                .description("Durée des phases du chargement initial")
+                .tag("source", source)
+                .tag("phase", phase)
+                .register(registry)
+                .record(fin - debut, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Enregistre le nombre de lignes insérées par une source.
+     *
+     * @param source source des données.
+     * @param type   type de ligne (departement, ville).
+     * @param nombre nombre de lignes insérées.
+     */
+    public void insertions(String source, String type, long nombre) {
+        registry.counter(TIMER + ".insertions", "source", source, "type", type).increment(nombre);
+    }
+
+    /**
+     * Enregistre la durée du démarrage, chargement des données compris, jusqu'à l'application prête.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrage(ApplicationReadyEvent event) {
+        Duration duree = event.getTimeTaken();
+        if (duree == null) {
+            return;
+        }
+        Timer.builder(DEMARRAGE)
+                .description("Durée du démarrage jusqu'à l'application prête, chargement compris")
+                .register(registry)
+                .record(duree);
+        LOG.info("Application prête en {} ms.", duree.toMillis());
+    }
+}
@@ -0,0 +1,37 @@
+package app.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate sur le thread courant.
+ * <p>
+ * Le compteur est remis à zéro au début de chaque requête HTTP et lu à la fin
+ * par {@link RequetesSqlInterceptor}. Les accès JDBC directs (chargement initial)
+ * ne passent pas par Hibernate et ne sont pas comptés.
+ * </p>
+ */
+public class CompteurRequetesSql implements StatementInspector {
+
+    private final ThreadLocal<int[]> compteur = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        compteur.get()[0]++;
+        return sql;
+    }
+
+    /** Remet le compteur du thread courant à zéro. */
+    public void reinitialiser() {
+        compteur.get()[0] = 0;
+    }
+
+    /**
+     * @return nombre de requêtes SQL depuis la dernière remise à zéro, qui est aussi effectuée.
+     */
+    public int lireEtReinitialiser() {
+        int[] valeur = compteur.get();
+        int nb = valeur[0];
+        valeur[0] = 0;
+        return nb;
+    }
+}
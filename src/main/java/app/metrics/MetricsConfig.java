@@ -0,0 +1,61 @@
+package app.metrics;
+
+import app.index.PopulationIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Métriques applicatives exposées par l'actuator ({@code /actuator/prometheus}).
+ * <p>
+ * S'ajoutent aux métriques fournies par Spring Boot : latences par endpoint
+ * ({@code http.server.requests}), méthodes de service annotées {@code @Timed},
+ * statistiques Hibernate ({@code hibernate.*}) et caches ({@code cache.*}).
+ * </p>
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final CompteurRequetesSql compteurRequetesSql = new CompteurRequetesSql();
+    private final MeterRegistry registry;
+
+    public MetricsConfig(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Branche le compteur de requêtes SQL sur Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer compteurRequetesSqlCustomizer() {
+        return proprietes -> proprietes.put(AvailableSettings.STATEMENT_INSPECTOR, compteurRequetesSql);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequetesSqlInterceptor(compteurRequetesSql, this.registry));
+    }
+
+    /**
+     * Compteurs du top N servi par l'index des populations.
+     */
+    @Bean
+    public MeterBinder populationIndexMetriques(PopulationIndex populationIndex) {
+        return registry -> {
+            FunctionCounter.builder("recensement.index.top", populationIndex, PopulationIndex::getTopSucces)
+                    .description("Top N par département servis par l'index")
+                    .tag("resultat", "succes")
+                    .register(registry);
+            FunctionCounter.builder("recensement.index.top", populationIndex, PopulationIndex::getTopEchecs)
+                    .description("Top N par département renvoyés vers la base")
+                    .tag("resultat", "echec")
+                    .register(registry);
+        };
+    }
+}
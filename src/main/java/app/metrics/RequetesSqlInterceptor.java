@@ -0,0 +1,43 @@
+package app.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Publie le nombre de requêtes SQL exécutées par chaque requête HTTP,
+ * sous {@value #RESUME} étiqueté par méthode et motif d'URI (comme {@code http.server.requests}).
+ */
+public class RequetesSqlInterceptor implements HandlerInterceptor {
+
+    static final String RESUME = "recensement.http.requetes.sql";
+
+    private final CompteurRequetesSql compteur;
+    private final MeterRegistry registry;
+
+    public RequetesSqlInterceptor(CompteurRequetesSql compteur, MeterRegistry registry) {
+        this.compteur = compteur;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        compteur.reinitialiser();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object motif = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(RESUME)
+                .description("Requêtes SQL Hibernate par requête HTTP")
+                .tag("method", request.getMethod())
+                .tag("uri", motif != null ? motif.toString() : "UNKNOWN")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(compteur.lireEtReinitialiser());
+    }
+}
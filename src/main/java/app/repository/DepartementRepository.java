@@ -1,8 +1,14 @@
 package app.repository;
 
+import app.dto.DepartementDto;
+import app.dto.DepartementRegionProjection;
 import app.entities.Departement;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,7 +18,7 @@ import java.util.Optional;
  * (création, lecture, mise à jour, suppression) ainsi que la possibilité
  * de définir des requêtes personnalisées si nécessaire.
  */
-public interface DepartementRepository extends JpaRepository<Departement, String> {
+public interface DepartementRepository extends JpaRepository<Departement, Long> {
 
     /**
      * Recherche d’un département par son code.
@@ -26,7 +32,62 @@ public interface DepartementRepository extends JpaRepository<Departement, String
      */
     Optional<Departement> findByCode(String code);
 
+    /**
+     * Recherche d’un département par son code, avec ses villes chargées dans la même requête.
+     *
+     * @param code le code du département.
+     * @return le département et ses villes, ou {@code Optional.empty()} si aucun trouvé.
+     */
+    @EntityGraph(attributePaths = "villes")
+    Optional<Departement> findWithVillesByCode(String code);
+
+    /**
+     * Recherche en une requête des départements par leurs codes.
+     *
+     * @param codes codes des départements.
+     * @return les départements trouvés (ordre non garanti).
+     */
+    List<Departement> findByCodeIn(Collection<String> codes);
+
 
     boolean existsByCode(String code);
 
-}
\ No newline at end of file
+    /**
+     * Synthèse de tous les départements (code, nom, nombre de communes, population totale)
+     * calculée en une seule requête d'agrégation, sans charger les villes.
+     *
+     * @return la synthèse de chaque département, triée par code.
+     */
+    @Query("SELECT new app.dto.DepartementDto(d.id, d.code, d.nom, COUNT(v.id), COALESCE(SUM(v.populationTotale), 0L)) " +
+            "FROM Departement d LEFT JOIN d.villes v GROUP BY d.id, d.code, d.nom ORDER BY d.code")
+    List<DepartementDto> findAllResumes();
+
+    /**
+     * Synthèse d'un département.
+     *
+     * @param code le code du département.
+     * @return la synthèse du département, ou {@code Optional.empty()} si aucun trouvé.
+     */
+    @Query("SELECT new app.dto.DepartementDto(d.id, d.code, d.nom, COUNT(v.id), COALESCE(SUM(v.populationTotale), 0L)) " +
+            "FROM Departement d LEFT JOIN d.villes v WHERE d.code = :code GROUP BY d.id, d.code, d.nom")
+    Optional<DepartementDto> findResumeByCode(String code);
+
+    /**
+     * Chaque département avec le code et le nom de sa région, en une requête.
+     *
+     * @return la hiérarchie régions → départements, à plat.
+     */
+    @Query("SELECT new app.dto.DepartementRegionProjection(d.id, d.code, d.nom, r.code, r.nom) " +
+            "FROM Departement d LEFT JOIN d.region r")
+    List<DepartementRegionProjection> findAllAvecRegion();
+
+    /**
+     * Variante de {@link #findAllAvecRegion()} pour un seul département.
+     *
+     * @param code le code du département.
+     * @return le département et sa région, ou {@code Optional.empty()} si aucun trouvé.
+     */
+    @Query("SELECT new app.dto.DepartementRegionProjection(d.id, d.code, d.nom, r.code, r.nom) " +
+            "FROM Departement d LEFT JOIN d.region r WHERE d.code = :code")
+    Optional<DepartementRegionProjection> findAvecRegionByCode(String code);
+}
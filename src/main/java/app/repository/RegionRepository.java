@@ -0,0 +1,22 @@
+package app.repository;
+
+import app.entities.Region;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository JPA pour l'entité {@link Region}.
+ */
+@Repository
+public interface RegionRepository extends JpaRepository<Region, Long> {
+
+    /**
+     * Recherche une région par son code.
+     *
+     * @param code code de la région.
+     * @return la région, ou {@code Optional.empty()} si aucune trouvée.
+     */
+    Optional<Region> findByCode(String code);
+}
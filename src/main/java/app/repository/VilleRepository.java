@@ -1,13 +1,23 @@
 package app.repository;
 
-import app.entities.Departement;
+import app.dto.VilleExportLigne;
+import app.dto.VilleProjection;
 import app.entities.Ville;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository Spring Data JPA pour la gestion des entités {@link Ville}.
@@ -15,9 +25,16 @@ import java.util.Optional;
  * Cette interface permet d'effectuer des recherches personnalisées
  * sur les villes stockées en base, en complément des opérations CRUD
  * fournies par {@link JpaRepository}.
+ * <p>
+ * Les recherches renvoient des {@link VilleProjection} construites par une seule requête
+ * jointe au département : aucune entité gérée, aucun chargement paresseux.
  */
 public interface VilleRepository extends JpaRepository<Ville, Long> {
 
+    /** Clause commune des requêtes de projection (alias {@code v} pour la ville, {@code d} pour le département). */
+    String SELECT_PROJECTION = "SELECT new app.dto.VilleProjection(v.id, v.code, v.nom, v.populationMunicipale, " +
+            "v.populationTotale, d.code) FROM Ville v JOIN v.departement d ";
+
     /**
      * Vérifie si une ville existe déjà en base avec le code donné.
      * @param code code INSEE de la ville
@@ -33,18 +50,20 @@ public interface VilleRepository extends JpaRepository<Ville, Long> {
     Optional<Ville> findByCode(String code);
 
     /**
-     * Recherche d'une ville par son nom
+     * Recherche d'une ville par son nom (insensible à la casse).
      * @param nom nom de la ville
      * @return Liste de villes correspondantes
      */
-    List<Ville> findByNomIgnoreCase(String nom);
+    @Query(SELECT_PROJECTION + "WHERE LOWER(v.nom) = LOWER(:nom)")
+    List<VilleProjection> findByNomIgnoreCase(String nom);
 
     /**
      * Recherche toutes les villes dont le nom commence par une chaîne donnée.
      * @param prefix Le préfixe du nom de la ville (insensible à la casse).
      * @return Liste des villes correspondantes.
      */
-    List<Ville> findByNomStartingWithIgnoreCase(String prefix);
+    @Query(SELECT_PROJECTION + "WHERE LOWER(v.nom) LIKE LOWER(CONCAT(:prefix, '%'))")
+    List<VilleProjection> findByNomStartingWithIgnoreCase(String prefix);
 
     /**
      * Recherche toutes les villes dont la population est supérieure à une valeur donnée.
@@ -52,7 +71,8 @@ public interface VilleRepository extends JpaRepository<Ville, Long> {
      * @param min Population minimale.
      * @return Liste des villes correspondantes.
      */
-    List<Ville> findByPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(int min);
+    @Query(SELECT_PROJECTION + "WHERE v.populationTotale > :min ORDER BY v.populationTotale DESC")
+    List<VilleProjection> findByPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(int min);
 
     /**
      * Recherche toutes les villes dont la population est comprise entre deux bornes.
@@ -61,42 +81,166 @@ public interface VilleRepository extends JpaRepository<Ville, Long> {
      * @param max Population maximale.
      * @return Liste des villes correspondantes.
      */
-    List<Ville> findByPopulationTotaleBetweenOrderByPopulationTotaleDesc(int min, int max);
+    @Query(SELECT_PROJECTION + "WHERE v.populationTotale BETWEEN :min AND :max ORDER BY v.populationTotale DESC")
+    List<VilleProjection> findByPopulationTotaleBetweenOrderByPopulationTotaleDesc(int min, int max);
 
     /**
      * Recherche toutes les villes d’un département dont la population est supérieure à une valeur donnée.
      * Résultat trié par population décroissante.
-     * @param departement departement Département concerné.
+     * @param codeDep Code du département concerné.
      * @param min Population minimale.
      * @return Liste des villes correspondantes.
      */
-    List<Ville> findByDepartementAndPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(Departement departement, int min);
+    @Query(SELECT_PROJECTION + "WHERE d.code = :codeDep AND v.populationTotale > :min ORDER BY v.populationTotale DESC")
+    List<VilleProjection> findByDepartementAndPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(String codeDep, int min);
 
     /**
      * Recherche toutes les villes d’un département dont la population est comprise entre deux bornes.
      * Résultat trié par population décroissante.
-     * @param departement departement Département concerné.
+     * @param codeDep Code du département concerné.
      * @param min Population minimale.
      * @param max Population maximale.
      * @return Liste des villes correspondantes.
      */
-    List<Ville> findByDepartementAndPopulationTotaleBetweenOrderByPopulationTotaleDesc(Departement departement, int min, int max);
+    @Query(SELECT_PROJECTION + "WHERE d.code = :codeDep AND v.populationTotale BETWEEN :min AND :max " +
+            "ORDER BY v.populationTotale DESC")
+    List<VilleProjection> findByDepartementAndPopulationTotaleBetweenOrderByPopulationTotaleDesc(String codeDep, int min, int max);
 
     /**
-     * Recherche les {@code n} villes les plus peuplées d’un département.
-     * Utilise {@link Pageable} pour limiter le nombre de résultats.
-     * @param departement Département concerné.
+     * Récupère les n villes les plus peuplées d’un département.
+     * @param codeDep Code du département.
      * @param pageable pageable Objet de pagination pour limiter le nombre de résultats.
      * @return Liste des villes correspondantes.
      */
-    List<Ville> findByDepartementOrderByPopulationTotaleDesc(Departement departement, Pageable pageable);
+    @Query(SELECT_PROJECTION + "WHERE d.code = :codeDep ORDER BY v.populationTotale DESC")
+    List<VilleProjection> findTopByDepartementCodeOrderByPopulationDesc(String codeDep, Pageable pageable);
 
     /**
-     * Variante avec une requête JPQL : permet de récupérer explicitement les n villes les plus peuplées d’un département.
-     * @param codeDep Code du département.
+     * Récupère les n villes les plus peuplées d’une région.
+     * @param codeRegion Code de la région.
      * @param pageable pageable Objet de pagination pour limiter le nombre de résultats.
      * @return Liste des villes correspondantes.
      */
-    @Query("SELECT v FROM Ville v WHERE v.departement.code = :codeDep ORDER BY v.populationTotale DESC")
-    List<Ville> findTopByDepartementCodeOrderByPopulationDesc(String codeDep, Pageable pageable);
+    @Query(SELECT_PROJECTION + "JOIN d.region r WHERE r.code = :codeRegion ORDER BY v.populationTotale DESC")
+    List<VilleProjection> findTopByRegionCodeOrderByPopulationDesc(String codeRegion, Pageable pageable);
+
+    /**
+     * Projection d'une ville par son identifiant.
+     * @param id identifiant de la ville.
+     * @return la projection, ou {@code Optional.empty()} si aucune ville trouvée.
+     */
+    @Query(SELECT_PROJECTION + "WHERE v.id = :id")
+    Optional<VilleProjection> findProjectionById(Long id);
+
+    /**
+     * Projections des villes dont l'identifiant figure dans la liste (ordre non garanti).
+     * <p>
+     * Requête SQL native : une liste IN de plusieurs centaines de paramètres empêche Hibernate de
+     * réutiliser le plan d'une requête JPQL, retraduite à chaque appel pour plus de temps que son
+     * exécution. Le SQL natif n'est pas retraduit.
+     * </p>
+     * @param ids identifiants recherchés.
+     * @return Liste des projections trouvées.
+     */
+    @NativeQuery(value = "SELECT v.id, v.code, v.nom, v.population_municipale, v.population_totale, " +
+            "d.code AS code_departement FROM ville v JOIN departement d ON d.id = v.departement_id " +
+            "WHERE v.id IN (:ids)", sqlResultSetMapping = Ville.PROJECTION)
+    List<VilleProjection> findProjectionsByIdIn(Collection<Long> ids);
+
+    /**
+     * Projections des villes dont le code INSEE figure dans la liste (ordre non garanti).
+     * @param codes codes INSEE recherchés.
+     * @return Liste des projections trouvées.
+     */
+    @Query(SELECT_PROJECTION + "WHERE v.code IN :codes")
+    List<VilleProjection> findProjectionsByCodeIn(Collection<String> codes);
+
+    /**
+     * Entités des villes dont l'identifiant figure dans la liste, avec leur département
+     * chargé dans la même requête (mises à jour en lot).
+     * @param ids identifiants recherchés.
+     * @return Liste des villes trouvées (ordre non garanti).
+     */
+    @EntityGraph(attributePaths = "departement")
+    List<Ville> findWithDepartementByIdIn(Collection<Long> ids);
+
+    /**
+     * Page de projections de toutes les villes.
+     * @param pageable Pagination et tri.
+     * @return Page de projections.
+     */
+    @Query(value = SELECT_PROJECTION, countQuery = "SELECT COUNT(v) FROM Ville v")
+    Page<VilleProjection> findAllProjections(Pageable pageable);
+
+    /**
+     * Projection de toutes les villes avec le code de leur département, en une seule requête.
+     * Sert à construire les index en mémoire.
+     * @return Liste des projections de toutes les villes.
+     */
+    @Query(SELECT_PROJECTION)
+    List<VilleProjection> findAllProjections();
+
+    /**
+     * Parcourt en flux les villes de population supérieure à {@code min}, jointes à leur département.
+     * Résultat trié par population décroissante.
+     * <p>
+     * Le curseur est lu par paquets de {@code fetchSize} lignes : la mémoire reste constante
+     * quel que soit le volume. À consommer dans une transaction et à fermer après usage.
+     * @param min Population minimale.
+     * @return Flux des lignes d'export.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new app.dto.VilleExportLigne(v.nom, v.populationTotale, d.code, d.nom) " +
+            "FROM Ville v JOIN v.departement d WHERE v.populationTotale > :min ORDER BY v.populationTotale DESC")
+    Stream<VilleExportLigne> streamExportByPopulationMin(int min);
+
+    /**
+     * Parcourt en flux les villes d'un département, triées par nom, avec le nom du département.
+     * À consommer dans une transaction et à fermer après usage.
+     * @param codeDep Code du département.
+     * @return Flux des lignes d'export.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new app.dto.VilleExportLigne(v.nom, v.populationTotale, d.code, d.nom) " +
+            "FROM Ville v JOIN v.departement d WHERE d.code = :codeDep ORDER BY v.nom")
+    Stream<VilleExportLigne> streamExportByDepartementCode(String codeDep);
+
+    /**
+     * Page des villes d'un département.
+     * @param codeDep Code du département.
+     * @param pageable Pagination et tri.
+     * @return Page de projections.
+     */
+    @Query(value = SELECT_PROJECTION + "WHERE d.code = :codeDep",
+            countQuery = "SELECT COUNT(v) FROM Ville v WHERE v.departement.code = :codeDep")
+    Page<VilleProjection> findByDepartementCode(String codeDep, Pageable pageable);
+
+    /**
+     * Page de villes par curseur, dans l'ordre des identifiants : villes d'identifiant
+     * strictement supérieur à {@code apresId}. Ni OFFSET ni COUNT : le coût ne dépend que de la taille de page.
+     * @param apresId identifiant de la dernière ville de la page précédente (0 pour commencer).
+     * @param limit Nombre maximal de villes.
+     * @return Liste de projections triées par identifiant.
+     */
+    @Query(SELECT_PROJECTION + "WHERE v.id > :apresId ORDER BY v.id")
+    List<VilleProjection> findPageApresId(long apresId, Limit limit);
+
+    /**
+     * Page de villes par curseur, par population décroissante puis identifiant décroissant :
+     * villes situées strictement après le couple (population, id) donné.
+     * @param population population de la dernière ville de la page précédente.
+     * @param apresId identifiant de la dernière ville de la page précédente.
+     * @param limit Nombre maximal de villes.
+     * @return Liste de projections triées par population puis identifiant décroissants.
+     */
+    @Query(SELECT_PROJECTION + "WHERE v.populationTotale < :population " +
+            "OR (v.populationTotale = :population AND v.id < :apresId) " +
+            "ORDER BY v.populationTotale DESC, v.id DESC")
+    List<VilleProjection> findPageApresPopulation(int population, long apresId, Limit limit);
 }
\ No newline at end of file
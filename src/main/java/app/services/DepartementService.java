@@ -1,6 +1,9 @@
 package app.services;
 
+import app.dto.DepartementDto;
+import app.dto.VilleDto;
 import app.entities.Departement;
+import org.springframework.data.domain.Page;
 
 import java.util.List;
 import java.util.Optional;
@@ -8,7 +11,13 @@ import java.util.Optional;
 public interface DepartementService {
     List<Departement> getAll();
 
-    Optional<Departement> findByCode(String code);
+    Optional<DepartementDto> findByCode(String code);
+
+    List<DepartementDto> getAllResumes();
+
+    Optional<DepartementDto> findResumeByCode(String code);
+
+    Page<VilleDto> findVilles(String code, int page, int size);
 
     Departement addDepartement(Departement departement);
 
@@ -0,0 +1,17 @@
+package app.services;
+
+import app.dto.DepartementDto;
+import app.dto.PopulationStatistiquesDto;
+import app.dto.RegionDto;
+import app.exceptions.NotFoundException;
+
+import java.util.List;
+
+public interface RegionService {
+
+    List<RegionDto> getAll();
+
+    List<DepartementDto> getDepartements(String code) throws NotFoundException;
+
+    PopulationStatistiquesDto getStatistiques(String code) throws NotFoundException;
+}
@@ -0,0 +1,18 @@
+package app.services;
+
+import app.dto.PopulationStatistiquesDto;
+import app.dto.VerificationAgregatsDto;
+import app.exceptions.NotFoundException;
+
+import java.util.List;
+
+public interface StatistiquesService {
+
+    PopulationStatistiquesDto getNational();
+
+    List<PopulationStatistiquesDto> getDepartements();
+
+    PopulationStatistiquesDto getDepartement(String code) throws NotFoundException;
+
+    VerificationAgregatsDto verifier();
+}
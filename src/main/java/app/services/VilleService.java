@@ -1,6 +1,9 @@
 package app.services;
 
-import app.entities.Departement;
+import app.dto.DepartementDto;
+import app.dto.ResultatLotDto;
+import app.dto.VilleDto;
+import app.dto.VillePageCurseurDto;
 import app.entities.Ville;
 import app.exceptions.NotFoundException;
 import org.springframework.data.domain.Page;
@@ -9,11 +12,13 @@ import java.util.List;
 import java.util.Optional;
 
 public interface VilleService {
-    Page<Ville> getAll(int page, int size);
+    Page<VilleDto> getAll(int page, int size);
 
-    Optional<Ville> getById(Long id);
+    VillePageCurseurDto getAllParCurseur(String curseur, String tri, int size);
 
-    List<Ville> findByNomExact(String nom) throws NotFoundException;
+    Optional<VilleDto> getById(Long id);
+
+    List<VilleDto> findByNomExact(String nom) throws NotFoundException;
 
     Ville addVille(Ville ville) throws NotFoundException;
 
@@ -21,15 +26,23 @@ public interface VilleService {
 
     void deleteVille(Long id) throws NotFoundException;
 
-    List<Ville> findByNomPrefix(String prefix) throws NotFoundException;
+    ResultatLotDto addVilles(List<VilleDto> villes);
+
+    ResultatLotDto updateVilles(List<VilleDto> villes);
+
+    List<VilleDto> findByNomPrefix(String prefix) throws NotFoundException;
+
+    List<VilleDto> findByNomPrefix(String prefix, int limite) throws NotFoundException;
+
+    List<VilleDto> findByPopulationMin(int min) throws NotFoundException;
 
-    List<Ville> findByPopulationMin(int min) throws NotFoundException;
+    List<VilleDto> findByPopulationBetween(int min, int max) throws NotFoundException;
 
-    List<Ville> findByPopulationBetween(int min, int max) throws NotFoundException;
+    List<VilleDto> findByDepartementAndPopulationMin(DepartementDto departement, int min) throws NotFoundException;
 
-    List<Ville> findByDepartementAndPopulationMin(Departement departement, int min) throws NotFoundException;
+    List<VilleDto> findByDepartementAndPopulationBetween(DepartementDto departement, int min, int max) throws NotFoundException;
 
-    List<Ville> findByDepartementAndPopulationBetween(Departement departement, int min, int max) throws NotFoundException;
+    List<VilleDto> findTopNByDepartement(DepartementDto departement, int n) throws NotFoundException;
 
-    List<Ville> findTopNByDepartement(Departement departement, int n) throws NotFoundException;
+    List<VilleDto> findTopNByRegion(String codeRegion, int n) throws NotFoundException;
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package app.services.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position dans un parcours de villes par curseur, sérialisée en jeton opaque.
+ * <p>
+ * Deux ordres sont possibles : par identifiant croissant ({@code id}) ou par population
+ * décroissante puis identifiant décroissant ({@code population}). Le jeton mémorise l'ordre
+ * et la clé de la dernière ville renvoyée ; la page suivante reprend strictement après elle.
+ * </p>
+ *
+ * @param tri        ordre du parcours.
+ * @param population population de la dernière ville (ordre {@code population} uniquement).
+ * @param id         identifiant de la dernière ville.
+ */
+record CurseurVille(Tri tri, int population, long id) {
+
+    enum Tri { ID, POPULATION }
+
+    /**
+     * Position de départ d'un parcours ; par identifiant, elle précède aussi les identifiants négatifs
+     * des villes d'une photographie CSV absentes de la base.
+     */
+    static CurseurVille debut(Tri tri) {
+        return new CurseurVille(tri, Integer.MAX_VALUE, tri == Tri.ID ? Long.MIN_VALUE : Long.MAX_VALUE);
+    }
+
+    /**
+     * @param tri ordre demandé : "id" ou "population".
+     * @return l'ordre correspondant.
+     * @throws IllegalArgumentException si l'ordre est inconnu.
+     */
+    static Tri tri(String tri) {
+        return switch (tri) {
+            case "id" -> Tri.ID;
+            case "population" -> Tri.POPULATION;
+            default -> throw new IllegalArgumentException("Tri inconnu : " + tri);
+        };
+    }
+
+    /**
+     * @param jeton jeton produit par {@link #encoder()}.
+     * @return la position correspondante.
+     * @throws IllegalArgumentException si le jeton est invalide.
+     */
+    static CurseurVille decoder(String jeton) {
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(jeton), StandardCharsets.US_ASCII).split(":");
+            if (parties.length == 2 && "i".equals(parties[0])) {
+                return new CurseurVille(Tri.ID, 0, Long.parseLong(parties[1]));
+            }
+            if (parties.length == 3 && "p".equals(parties[0])) {
+                return new CurseurVille(Tri.POPULATION, Integer.parseInt(parties[1]), Long.parseLong(parties[2]));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // jeton mal formé : même erreur qu'une structure inattendue
+        }
+        throw new IllegalArgumentException("Curseur invalide : " + jeton);
+    }
+
+    /** @return le jeton opaque représentant cette position. */
+    String encoder() {
+        String brut = tri == Tri.ID ? "i:" + id : "p:" + population + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -1,12 +1,30 @@
 package app.services.impl;
 
+import app.cache.CacheConfig;
+import app.dto.DepartementDto;
+import app.dto.DepartementMapper;
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.dto.VilleProjection;
 import app.entities.Departement;
+import app.entities.Ville;
+import app.events.DepartementEvent;
+import app.events.VilleEvent;
 import app.exceptions.NotFoundException;
 import app.services.DepartementService;
+import app.snapshot.Recensement;
+import app.snapshot.SnapshotRecensement;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import app.repository.DepartementRepository;
+import app.repository.VilleRepository;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,14 +34,34 @@ import java.util.Optional;
  * <p>
  * Fournit des opérations de consultation et de CRUD
  * en s'appuyant sur {@link DepartementRepository}.
+ * <p>
+ * La recherche par code est mise en cache ({@link CacheConfig#DEPARTEMENTS}) ; les entités
+ * renvoyées sont alors détachées, sans leurs villes. Les villes d'un département se consultent
+ * par page ({@link #findVilles(String, int, int)}).
+ * <p>
+ * En mode {@code snapshot}, les consultations sont servies par la photographie en mémoire
+ * ({@link SnapshotRecensement}) ; les départements renvoyés sont alors construits depuis celle-ci.
+ * <p>
+ * Les transactions sont en lecture seule sauf pour les écritures : ni flush ni contrôle des
+ * modifications à la fin d'une consultation, et routage vers la réplique si elle est configurée.
  */
 @Service
-@Transactional
+@Transactional(readOnly = true)
+@Timed(value = "recensement.service", histogram = true)
 public class DepartementServiceImpl implements DepartementService {
 
     @Autowired
     private DepartementRepository departementRepository;
 
+    @Autowired
+    private VilleRepository villeRepository;
+
+    @Autowired
+    private SnapshotRecensement snapshots;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Récupère tous les départements.
      *
@@ -31,6 +69,10 @@ public class DepartementServiceImpl implements DepartementService {
      */
     @Override
     public List<Departement> getAll() {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.departements();
+        }
         return departementRepository.findAll();
     }
 
@@ -38,11 +80,69 @@ public class DepartementServiceImpl implements DepartementService {
      * Recherche un département par son code.
      *
      * @param code code du département (ex: "75").
+     * <p>
+     * Le cache conserve un {@link DepartementDto} et non l'entité : une entité détachée partagée entre
+     * requêtes exposerait ses associations paresseuses hors session.
+     * </p>
+     *
      * @return Optional du département.
      */
     @Override
-    public Optional<Departement> findByCode(String code) {
-        return departementRepository.findById(code);
+    @Cacheable(cacheNames = CacheConfig.DEPARTEMENTS, key = "@datasetVersion.cleDepartement(#code)", sync = true)
+    public Optional<DepartementDto> findByCode(String code) {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.departement(code).map(DepartementMapper::toDto);
+        }
+        return departementRepository.findByCode(code).map(DepartementMapper::toDto);
+    }
+
+    /**
+     * Synthèse de tous les départements (nombre de communes, population totale),
+     * calculée par une seule requête d'agrégation.
+     *
+     * @return liste des synthèses, triée par code.
+     */
+    @Override
+    public List<DepartementDto> getAllResumes() {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.resumes();
+        }
+        return departementRepository.findAllResumes();
+    }
+
+    /**
+     * Synthèse d'un département.
+     *
+     * @param code code du département (ex: "75").
+     * @return Optional de la synthèse.
+     */
+    @Override
+    public Optional<DepartementDto> findResumeByCode(String code) {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.resume(code);
+        }
+        return departementRepository.findResumeByCode(code);
+    }
+
+    /**
+     * Page des villes d'un département, triées par nom.
+     *
+     * @param code code du département.
+     * @param page numéro de page (à partir de 0).
+     * @param size taille de page.
+     * @return page de villes.
+     */
+    @Override
+    public Page<VilleDto> findVilles(String code, int page, int size) {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.villesDuDepartement(code, page, size);
+        }
+        return villeRepository.findByDepartementCode(code, PageRequest.of(page, size, Sort.by("nom")))
+                .map(VilleMapper::toDto);
     }
 
     /**
@@ -52,8 +152,11 @@ public class DepartementServiceImpl implements DepartementService {
      * @return département persisté.
      */
     @Override
+    @Transactional
     public Departement addDepartement(Departement departement) {
-        return departementRepository.save(departement);
+        Departement saved = departementRepository.save(departement);
+        eventPublisher.publishEvent(new DepartementEvent(saved.getCode()));
+        return saved;
     }
 
     /**
@@ -65,24 +168,35 @@ public class DepartementServiceImpl implements DepartementService {
      * @return département mis à jour.
      */
     @Override
+    @Transactional
     public Departement updateDepartement(String code, Departement departement) {
-        Departement existDep = departementRepository.findById(code)
+        Departement existDep = departementRepository.findByCode(code)
                 .orElseThrow(() -> new NotFoundException("Département inexistant : " + code));
         existDep.setNom(departement.getNom());
-        return departementRepository.save(existDep);
+        Departement saved = departementRepository.save(existDep);
+        eventPublisher.publishEvent(new DepartementEvent(code));
+        return saved;
     }
 
     /**
      * Supprime un département par son code.
      * Si le département n'existe pas, une NotFoundException est levée.
+     * Ses villes sont supprimées en cascade : un {@link VilleEvent} est publié pour chacune,
+     * ce qui les retire des caches après validation.
      *
      * @param code code du département.
      */
     @Override
+    @Transactional
     public void deleteDepartement(String code) {
-        if (!departementRepository.existsById(code)) {
-            throw new NotFoundException("Impossible de supprimer : département inexistant " + code);
+        Departement dep = departementRepository.findWithVillesByCode(code)
+                .orElseThrow(() -> new NotFoundException("Impossible de supprimer : département inexistant " + code));
+        if (dep.getVilles() != null) {
+            for (Ville ville : dep.getVilles()) {
+                eventPublisher.publishEvent(new VilleEvent(VilleProjection.of(ville), null));
+            }
         }
-        departementRepository.deleteById(code);
+        departementRepository.delete(dep);
+        eventPublisher.publishEvent(new DepartementEvent(code));
     }
 }
\ No newline at end of file
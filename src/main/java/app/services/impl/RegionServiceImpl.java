@@ -0,0 +1,105 @@
+package app.services.impl;
+
+import app.dto.DepartementDto;
+import app.dto.DepartementRegionProjection;
+import app.dto.PopulationStatistiquesDto;
+import app.dto.RegionDto;
+import app.exceptions.NotFoundException;
+import app.index.PopulationAgregats;
+import app.index.PopulationAgregats.Agregat;
+import app.index.PopulationIndex;
+import app.index.PopulationIndex.Repartition;
+import app.index.RegionIndex;
+import app.services.RegionService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service des régions.
+ * <p>
+ * Tout est servi depuis la mémoire : hiérarchie régions → départements ({@link RegionIndex}),
+ * agrégats par département cumulés sur la région ({@link PopulationAgregats}) et segments triés
+ * des départements pour minimum, maximum et médiane ({@link PopulationIndex}). Une région coûte
+ * ainsi autant qu'une dizaine de départements, sans jointure régions / départements / villes.
+ * <p>
+ * Tant que le chargement n'est pas terminé, les agrégats par département sont calculés en base
+ * et la répartition est omise.
+ */
+@Service
+@Timed(value = "recensement.service", histogram = true)
+public class RegionServiceImpl implements RegionService {
+
+    @Autowired
+    private RegionIndex regionIndex;
+
+    @Autowired
+    private PopulationAgregats agregats;
+
+    @Autowired
+    private PopulationIndex populationIndex;
+
+    @Override
+    public List<RegionDto> getAll() {
+        Map<String, Agregat> parDepartement = agregatsParDepartement();
+        List<RegionDto> resultat = new ArrayList<>();
+        for (RegionIndex.Region region : regionIndex.regions().values()) {
+            Agregat agregat = cumul(region, parDepartement);
+            resultat.add(new RegionDto(region.code(), region.nom(), region.departements().size(),
+                    agregat.nombreCommunes(), agregat.population()));
+        }
+        return resultat;
+    }
+
+    @Override
+    public List<DepartementDto> getDepartements(String code) throws NotFoundException {
+        RegionIndex.Region region = trouver(code);
+        Map<String, Agregat> parDepartement = agregatsParDepartement();
+        List<DepartementDto> resultat = new ArrayList<>(region.departements().size());
+        for (DepartementRegionProjection d : region.departements()) {
+            Agregat agregat = parDepartement.getOrDefault(d.code(), new Agregat(0, 0));
+            resultat.add(new DepartementDto(d.id(), d.code(), d.nom(), agregat.nombreCommunes(), agregat.population()));
+        }
+        return resultat;
+    }
+
+    @Override
+    public PopulationStatistiquesDto getStatistiques(String code) throws NotFoundException {
+        RegionIndex.Region region = trouver(code);
+        Agregat agregat = cumul(region, agregatsParDepartement());
+        Repartition repartition = populationIndex.repartition(region.codesDepartement());
+        return new PopulationStatistiquesDto(region.code(), agregat.nombreCommunes(), agregat.population(),
+                repartition == null ? null : repartition.min(),
+                repartition == null ? null : repartition.max(),
+                repartition == null ? null : repartition.mediane());
+    }
+
+    private RegionIndex.Region trouver(String code) {
+        RegionIndex.Region region = regionIndex.region(code);
+        if (region == null) {
+            throw new NotFoundException("Région introuvable : " + code);
+        }
+        return region;
+    }
+
+    private Map<String, Agregat> agregatsParDepartement() {
+        return agregats.estPret() ? agregats.departements() : agregats.recalculer();
+    }
+
+    private static Agregat cumul(RegionIndex.Region region, Map<String, Agregat> parDepartement) {
+        long nombre = 0;
+        long population = 0;
+        for (String codeDep : region.codesDepartement()) {
+            Agregat a = parDepartement.get(codeDep);
+            if (a != null) {
+                nombre += a.nombreCommunes();
+                population += a.population();
+            }
+        }
+        return new Agregat(nombre, population);
+    }
+}
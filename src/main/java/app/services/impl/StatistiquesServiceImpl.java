@@ -0,0 +1,165 @@
+package app.services.impl;
+
+import app.dto.PopulationStatistiquesDto;
+import app.dto.VerificationAgregatsDto;
+import app.dto.VilleProjection;
+import app.exceptions.NotFoundException;
+import app.index.PopulationAgregats;
+import app.index.PopulationAgregats.Agregat;
+import app.index.PopulationIndex;
+import app.index.PopulationIndex.Repartition;
+import app.repository.DepartementRepository;
+import app.repository.VilleRepository;
+import app.services.DepartementService;
+import app.services.StatistiquesService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Service des statistiques de population.
+ * <p>
+ * Nombre de communes et population totale viennent des {@link PopulationAgregats} ;
+ * minimum, maximum et médiane des segments triés du {@link PopulationIndex}. Aucune lecture
+ * ne touche la base, sauf tant que le chargement n'est pas terminé : les totaux sont alors
+ * calculés en base et la répartition est omise.
+ * <p>
+ * Seuls les départements ayant au moins une commune sont listés.
+ */
+@Service
+@Timed(value = "recensement.service", histogram = true)
+public class StatistiquesServiceImpl implements StatistiquesService {
+
+    @Autowired
+    private PopulationAgregats agregats;
+
+    @Autowired
+    private PopulationIndex populationIndex;
+
+    @Autowired
+    private DepartementService departementService;
+
+    @Autowired
+    private DepartementRepository departementRepository;
+
+    @Autowired
+    private VilleRepository villeRepository;
+
+    @Override
+    public PopulationStatistiquesDto getNational() {
+        Agregat national = agregats.estPret() ? agregats.national() : sommer(agregats.recalculer());
+        return dto(null, national, populationIndex.repartition((String) null));
+    }
+
+    @Override
+    public List<PopulationStatistiquesDto> getDepartements() {
+        Map<String, Agregat> parCode = new TreeMap<>(agregats.estPret() ? agregats.departements() : agregats.recalculer());
+        List<PopulationStatistiquesDto> resultat = new ArrayList<>(parCode.size());
+        parCode.forEach((code, agregat) -> {
+            if (agregat.nombreCommunes() > 0) {
+                resultat.add(dto(code, agregat, populationIndex.repartition(code)));
+            }
+        });
+        return resultat;
+    }
+
+    @Override
+    public PopulationStatistiquesDto getDepartement(String code) throws NotFoundException {
+        if (!agregats.estPret()) {
+            return departementRepository.findResumeByCode(code)
+                    .map(r -> dto(code, new Agregat(r.getNombreCommunes(), r.getPopulationTotale()), null))
+                    .orElseThrow(() -> new NotFoundException("Département introuvable : " + code));
+        }
+        if (departementService.findByCode(code).isEmpty()) {
+            throw new NotFoundException("Département introuvable : " + code);
+        }
+        return dto(code, agregats.departement(code), populationIndex.repartition(code));
+    }
+
+    /**
+     * Compare tout ce qui est tenu à jour en mémoire avec un recalcul complet en base : nombre de
+     * communes et population totale ({@link PopulationAgregats}, par {@code GROUP BY}), minimum,
+     * maximum et médiane ({@link PopulationIndex}, depuis les populations de toutes les villes),
+     * par département et pour la France entière. Le résultat n'est significatif qu'en l'absence
+     * d'écriture pendant la vérification.
+     */
+    @Override
+    public VerificationAgregatsDto verifier() {
+        Map<String, Agregat> attendus = agregats.recalculer();
+        Map<String, Agregat> courants = agregats.departements();
+        Map<String, Repartition> repartitions = recalculerRepartitions();
+        List<String> ecarts = new ArrayList<>();
+
+        TreeSet<String> codes = new TreeSet<>(attendus.keySet());
+        codes.addAll(courants.keySet());
+        for (String code : codes) {
+            Agregat attendu = attendus.getOrDefault(code, new Agregat(0, 0));
+            Agregat courant = courants.getOrDefault(code, new Agregat(0, 0));
+            if (!attendu.equals(courant)) {
+                ecarts.add("Département " + code + " : attendu " + attendu + ", en mémoire " + courant);
+            }
+            comparer("Département " + code, repartitions.get(code), populationIndex.repartition(code), ecarts);
+        }
+        Agregat total = sommer(attendus);
+        if (!Objects.equals(total, agregats.national())) {
+            ecarts.add("France : attendu " + total + ", en mémoire " + agregats.national());
+        }
+        comparer("France", repartitions.get(null), populationIndex.repartition((String) null), ecarts);
+        return new VerificationAgregatsDto(ecarts.isEmpty(), codes.size(),
+                total.nombreCommunes(), total.population(), ecarts);
+    }
+
+    /**
+     * Minimum, maximum et médiane recalculés depuis les populations de toutes les villes en base.
+     *
+     * @return répartition par code de département, et pour la France entière sous la clé {@code null}.
+     */
+    private Map<String, Repartition> recalculerRepartitions() {
+        Map<String, List<Integer>> parCode = new HashMap<>();
+        List<VilleProjection> villes = villeRepository.findAllProjections();
+        int[] toutes = new int[villes.size()];
+        for (int i = 0; i < toutes.length; i++) {
+            VilleProjection v = villes.get(i);
+            toutes[i] = v.populationTotale();
+            parCode.computeIfAbsent(v.codeDepartement(), c -> new ArrayList<>()).add(v.populationTotale());
+        }
+        Map<String, Repartition> resultat = new HashMap<>();
+        parCode.forEach((code, populations) ->
+                resultat.put(code, Repartition.de(populations.stream().mapToInt(Integer::intValue).sorted().toArray())));
+        Arrays.sort(toutes);
+        resultat.put(null, Repartition.de(toutes));
+        return resultat;
+    }
+
+    private static void comparer(String libelle, Repartition attendue, Repartition courante, List<String> ecarts) {
+        if (!Objects.equals(attendue, courante)) {
+            ecarts.add(libelle + " : répartition attendue " + attendue + ", en mémoire " + courante);
+        }
+    }
+
+    private static Agregat sommer(Map<String, Agregat> parCode) {
+        long nombre = 0;
+        long population = 0;
+        for (Agregat a : parCode.values()) {
+            nombre += a.nombreCommunes();
+            population += a.population();
+        }
+        return new Agregat(nombre, population);
+    }
+
+    private static PopulationStatistiquesDto dto(String code, Agregat agregat, Repartition repartition) {
+        return new PopulationStatistiquesDto(code, agregat.nombreCommunes(), agregat.population(),
+                repartition == null ? null : repartition.min(),
+                repartition == null ? null : repartition.max(),
+                repartition == null ? null : repartition.mediane());
+    }
+}
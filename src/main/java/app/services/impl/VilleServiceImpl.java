@@ -1,50 +1,183 @@
 package app.services.impl;
 
+import app.cache.CacheConfig;
+import app.dto.DepartementDto;
+import app.dto.ResultatLotDto;
+import app.dto.ResultatVilleDto;
+import app.dto.VilleDto;
+import app.dto.VilleMapper;
+import app.dto.VillePageCurseurDto;
+import app.dto.VilleProjection;
 import app.entities.Departement;
 import app.entities.Ville;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
 import app.exceptions.NotFoundException;
+import app.index.NomIndex;
+import app.index.PopulationIndex;
+import app.index.RegionIndex;
 import app.services.VilleService;
+import app.snapshot.Recensement;
+import app.snapshot.SnapshotRecensement;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import app.repository.DepartementRepository;
 import app.repository.VilleRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.LongStream;
 
 /**
  * Service métier pour la gestion des entités {@link Ville}.
  * <p>
  * Fournit des opérations de consultation, de recherche et de CRUD
- * en s'appuyant sur {@link VilleRepository}.
+ * en s'appuyant sur {@link VilleRepository}. Les lectures renvoient des {@link VilleDto}
+ * construits depuis des projections, sans entité gérée.
+ * <p>
+ * Les recherches par tranche de population et par préfixe de nom passent par le {@link PopulationIndex}
+ * et le {@link NomIndex} dès qu'ils sont construits ; chaque écriture publie un {@link VilleEvent}
+ * qui les tient à jour.
+ * <p>
+ * Les lectures par identifiant et par nom exact sont mises en cache ; les entrées concernées
+ * par une écriture sont invalidées après validation ({@link app.cache.VilleCacheInvalidation}).
+ * <p>
+ * Les créations et mises à jour en lot valident départements et codes INSEE en quelques requêtes,
+ * puis laissent Hibernate regrouper les INSERT et UPDATE en lots JDBC à la validation ; un seul
+ * {@link VillesEvent} est publié pour tout le lot.
+ * <p>
+ * En mode {@code snapshot}, toutes les lectures sont servies par la photographie en mémoire
+ * ({@link SnapshotRecensement}), sans base de données ; les écritures y sont visibles au
+ * rechargement suivant.
+ * <p>
+ * Les transactions sont en lecture seule sauf pour les écritures : ni flush ni contrôle des
+ * modifications à la fin d'une recherche, et routage vers la réplique si elle est configurée.
  */
 @Service
-@Transactional
+@Transactional(readOnly = true)
+@Timed(value = "recensement.service", histogram = true)
 public class VilleServiceImpl implements VilleService {
 
     @Autowired
     private VilleRepository villeRepository;
 
     @Autowired
-    private DepartementServiceImpl departementService;
+    private DepartementRepository departementRepository;
+
+    @Autowired
+    private PopulationIndex populationIndex;
+
+    @Autowired
+    private NomIndex nomIndex;
+
+    @Autowired
+    private RegionIndex regionIndex;
+
+    @Autowired
+    private SnapshotRecensement snapshots;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** Nombre maximal de résultats demandés explicitement à la recherche par préfixe. */
+    @Value("${recensement.nom.limite-max:1000}")
+    private int limitePrefixeMax;
+
+    /**
+     * Nombre maximal de clés par requête IN : écritures en lot et chargement des villes désignées par les index.
+     * Reste, une fois la liste remplie à la puissance de deux supérieure, loin des 65 535 paramètres de MariaDB.
+     */
+    static final int TAILLE_LOT_IDS = 1000;
+
+    /** Nombre maximal de villes par création ou mise à jour en lot. */
+    @Value("${recensement.lot.taille-max:10000}")
+    private int tailleLotMax;
 
     // ------------------- CRUD -------------------
 
     @Override
-    public Page<Ville> getAll(int page, int size) {
-        return villeRepository.findAll(PageRequest.of(page, size));
+    public Page<VilleDto> getAll(int page, int size) {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.page(page, size);
+        }
+        return villeRepository.findAllProjections(PageRequest.of(page, size)).map(VilleMapper::toDto);
     }
 
+    /**
+     * Parcours par curseur (keyset) : chaque page reprend après la dernière ville de la précédente,
+     * sans OFFSET ni requête de comptage.
+     *
+     * @param curseur jeton renvoyé par la page précédente, vide ou {@code null} pour commencer.
+     * @param tri     ordre du premier appel : "id" ou "population" (ensuite porté par le jeton).
+     * @param size    taille de page.
+     * @return la page et le jeton de la suivante.
+     * @throws IllegalArgumentException si le jeton, le tri ou la taille est invalide.
+     */
     @Override
-    public Optional<Ville> getById(Long id) {
-        return villeRepository.findById(id);
+    public VillePageCurseurDto getAllParCurseur(String curseur, String tri, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Taille de page invalide : " + size);
+        }
+        CurseurVille position = curseur == null || curseur.isEmpty()
+                ? CurseurVille.debut(CurseurVille.tri(tri))
+                : CurseurVille.decoder(curseur);
+        // Une ville de plus que demandé pour savoir s'il existe une page suivante
+        Limit limite = Limit.of(size + 1);
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes;
+        if (recensement != null) {
+            villes = position.tri() == CurseurVille.Tri.ID
+                    ? recensement.apresId(position.id(), limite.max())
+                    : recensement.apresPopulation(position.population(), position.id(), limite.max());
+        } else {
+            villes = toDtos(position.tri() == CurseurVille.Tri.ID
+                    ? villeRepository.findPageApresId(position.id(), limite)
+                    : villeRepository.findPageApresPopulation(position.population(), position.id(), limite));
+        }
+
+        String suivant = null;
+        if (villes.size() > size) {
+            villes = villes.subList(0, size);
+            VilleDto derniere = villes.get(size - 1);
+            suivant = new CurseurVille(position.tri(), derniere.getPopulationTotale(), derniere.getId()).encoder();
+        }
+        return new VillePageCurseurDto(villes, suivant);
     }
 
     @Override
-    public List<Ville> findByNomExact(String nom) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByNomIgnoreCase(nom);
+    @Cacheable(cacheNames = CacheConfig.VILLES, key = "@datasetVersion.cleVille(#id)", sync = true)
+    public Optional<VilleDto> getById(Long id) {
+        Recensement recensement = snapshots.courant();
+        if (recensement != null) {
+            return recensement.ville(id);
+        }
+        return villeRepository.findProjectionById(id).map(VilleMapper::toDto);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.VILLES_PAR_NOM, key = "@datasetVersion.cleVille(#nom.toLowerCase())", sync = true)
+    public List<VilleDto> findByNomExact(String nom) throws NotFoundException {
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes = recensement != null
+                ? recensement.parNomExact(nom)
+                : toDtos(villeRepository.findByNomIgnoreCase(nom));
         if (villes.isEmpty()) {
             throw new NotFoundException("Ville non trouvée avec le nom : " + nom);
         }
@@ -52,46 +185,290 @@ public class VilleServiceImpl implements VilleService {
     }
 
     @Override
+    @Transactional
     public Ville addVille(Ville ville) throws NotFoundException {
         Departement dep = ville.getDepartement();
         if (dep == null || dep.getCode() == null) {
             throw new NotFoundException("Département manquant pour la ville.");
         }
-        Departement existDep = departementService.findByCode(dep.getCode())
+        Departement existDep = departementEnBase(dep.getCode())
                 .orElseThrow(() -> new NotFoundException("Département inexistant : " + dep.getCode()));
         ville.setDepartement(existDep);
-        return villeRepository.save(ville);
+        Ville saved = villeRepository.save(ville);
+        eventPublisher.publishEvent(new VilleEvent(null, VilleProjection.of(saved)));
+        return saved;
     }
 
     @Override
+    @Transactional
     public Ville updateVille(Long id, Ville ville) throws NotFoundException {
-        if (!villeRepository.existsById(id)) {
-            throw new NotFoundException("Ville introuvable: id=" + id);
-        }
+        VilleProjection avant = villeRepository.findProjectionById(id)
+                .orElseThrow(() -> new NotFoundException("Ville introuvable: id=" + id));
         Departement dep = ville.getDepartement();
         if (dep == null || dep.getCode() == null) {
             throw new NotFoundException("Département manquant pour la ville.");
         }
-        Departement existDep = departementService.findByCode(dep.getCode())
+        Departement existDep = departementEnBase(dep.getCode())
                 .orElseThrow(() -> new NotFoundException("Département inexistant : " + dep.getCode()));
         ville.setDepartement(existDep);
         ville.setId(id);
-        return villeRepository.save(ville);
+        Ville saved = villeRepository.save(ville);
+        eventPublisher.publishEvent(new VilleEvent(avant, VilleProjection.of(saved)));
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteVille(Long id) throws NotFoundException {
-        if (!villeRepository.existsById(id)) {
-            throw new NotFoundException("Impossible de supprimer : ville inexistante avec id=" + id);
-        }
+        VilleProjection avant = villeRepository.findProjectionById(id)
+                .orElseThrow(() -> new NotFoundException("Impossible de supprimer : ville inexistante avec id=" + id));
         villeRepository.deleteById(id);
+        eventPublisher.publishEvent(new VilleEvent(avant, null));
+    }
+
+    /**
+     * Département auquel rattacher une ville écrite, relu en base dans la transaction courante : le
+     * service des départements ne renvoie que des {@link DepartementDto}, en cache ou tirés de la photographie.
+     */
+    private Optional<Departement> departementEnBase(String code) {
+        return departementRepository.findByCode(code);
+    }
+
+    // ------------------- Écritures en lot -------------------
+
+    /**
+     * Crée des villes en lot. Les villes invalides (département inexistant, code INSEE déjà utilisé,
+     * champ manquant…) sont rejetées sans faire échouer les autres.
+     *
+     * @param villes villes à créer, avec le code de leur département.
+     * @return le résultat de chaque ville, dans l'ordre reçu.
+     * @throws IllegalArgumentException si le lot est vide ou dépasse {@code recensement.lot.taille-max}.
+     */
+    @Override
+    @Transactional
+    public ResultatLotDto addVilles(List<VilleDto> villes) {
+        verifierTailleLot(villes);
+        Map<String, Departement> departements = departementsDuLot(villes);
+        Set<String> codesUtilises = new HashSet<>();
+        for (VilleProjection v : parTranches(codesDuLot(villes), villeRepository::findProjectionsByCodeIn)) {
+            codesUtilises.add(v.code());
+        }
+
+        List<ResultatVilleDto> resultats = new ArrayList<>(villes.size());
+        List<VilleEvent> evenements = new ArrayList<>(villes.size());
+        for (int i = 0; i < villes.size(); i++) {
+            VilleDto dto = villes.get(i);
+            String erreur = valider(dto, departements);
+            if (erreur == null && !codesUtilises.add(dto.getCode())) {
+                erreur = "Code INSEE déjà utilisé : " + dto.getCode();
+            }
+            if (erreur != null) {
+                resultats.add(ResultatVilleDto.rejetee(i, dto, erreur));
+                continue;
+            }
+            Ville ville = VilleMapper.toEntity(dto, departements.get(dto.getCodeDepartement()));
+            ville.setId(null);
+            // Identifiant tiré du bloc de séquence en mémoire : l'INSERT est différé jusqu'au flush
+            villeRepository.save(ville);
+            resultats.add(new ResultatVilleDto(i, ville.getCode(), ville.getId(), ResultatVilleDto.Statut.CREEE, null));
+            evenements.add(new VilleEvent(null, VilleProjection.of(ville)));
+        }
+        return terminerLot(resultats, evenements);
+    }
+
+    /**
+     * Met à jour des villes en lot, désignées par leur identifiant. Les villes sont chargées en
+     * quelques requêtes puis modifiées en place : les UPDATE sont regroupés à la validation.
+     *
+     * @param villes villes à mettre à jour, avec leur identifiant et le code de leur département.
+     * @return le résultat de chaque ville, dans l'ordre reçu.
+     * @throws IllegalArgumentException si le lot est vide ou dépasse {@code recensement.lot.taille-max}.
+     */
+    @Override
+    @Transactional
+    public ResultatLotDto updateVilles(List<VilleDto> villes) {
+        verifierTailleLot(villes);
+        Map<String, Departement> departements = departementsDuLot(villes);
+        Set<Long> ids = new LinkedHashSet<>();
+        for (VilleDto dto : villes) {
+            if (dto != null && dto.getId() != null) {
+                ids.add(dto.getId());
+            }
+        }
+        Map<Long, Ville> existantes = new HashMap<>(ids.size() * 2);
+        for (Ville v : parTranches(ids, villeRepository::findWithDepartementByIdIn)) {
+            existantes.put(v.getId(), v);
+        }
+        Map<String, Long> titulaires = new HashMap<>();
+        for (VilleProjection v : parTranches(codesDuLot(villes), villeRepository::findProjectionsByCodeIn)) {
+            titulaires.put(v.code(), v.id());
+        }
+
+        List<ResultatVilleDto> resultats = new ArrayList<>(villes.size());
+        List<VilleEvent> evenements = new ArrayList<>(villes.size());
+        Set<Long> traitees = new HashSet<>();
+        for (int i = 0; i < villes.size(); i++) {
+            VilleDto dto = villes.get(i);
+            String erreur = valider(dto, departements);
+            Ville ville = null;
+            if (erreur == null) {
+                Long id = dto.getId();
+                Long titulaire = titulaires.get(dto.getCode());
+                ville = id == null ? null : existantes.get(id);
+                if (id == null) {
+                    erreur = "Identifiant manquant pour la ville.";
+                } else if (!traitees.add(id)) {
+                    erreur = "Ville présente plusieurs fois dans le lot : id=" + id;
+                } else if (ville == null) {
+                    erreur = "Ville introuvable: id=" + id;
+                } else if (titulaire != null && !titulaire.equals(id)) {
+                    erreur = "Code INSEE déjà utilisé : " + dto.getCode();
+                }
+            }
+            if (erreur != null) {
+                resultats.add(ResultatVilleDto.rejetee(i, dto, erreur));
+                continue;
+            }
+            VilleProjection avant = VilleProjection.of(ville);
+            ville.setNom(dto.getNom());
+            ville.setCode(dto.getCode());
+            ville.setPopulationTotale(dto.getPopulationTotale());
+            // par cohérence avec VilleMapper, populationMunicipale = populationTotale
+            ville.setPopulationMunicipale(dto.getPopulationTotale());
+            ville.setDepartement(departements.get(dto.getCodeDepartement()));
+            titulaires.remove(avant.code());
+            titulaires.put(ville.getCode(), ville.getId());
+            resultats.add(new ResultatVilleDto(i, ville.getCode(), ville.getId(), ResultatVilleDto.Statut.MODIFIEE, null));
+            evenements.add(new VilleEvent(avant, VilleProjection.of(ville)));
+        }
+        return terminerLot(resultats, evenements);
+    }
+
+    private void verifierTailleLot(List<VilleDto> villes) {
+        if (villes == null || villes.isEmpty()) {
+            throw new IllegalArgumentException("Lot de villes vide.");
+        }
+        if (villes.size() > tailleLotMax) {
+            throw new IllegalArgumentException("Lot trop volumineux : " + villes.size()
+                    + " villes (maximum " + tailleLotMax + ").");
+        }
+    }
+
+    /** Charge en une requête tous les départements cités par le lot, par code. */
+    private Map<String, Departement> departementsDuLot(List<VilleDto> villes) {
+        Set<String> codes = new HashSet<>();
+        for (VilleDto dto : villes) {
+            if (dto != null && dto.getCodeDepartement() != null) {
+                codes.add(dto.getCodeDepartement());
+            }
+        }
+        Map<String, Departement> parCode = new HashMap<>();
+        if (!codes.isEmpty()) {
+            for (Departement d : departementRepository.findByCodeIn(codes)) {
+                parCode.put(d.getCode(), d);
+            }
+        }
+        return parCode;
+    }
+
+    private static Set<String> codesDuLot(List<VilleDto> villes) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (VilleDto dto : villes) {
+            if (dto != null && dto.getCode() != null) {
+                codes.add(dto.getCode());
+            }
+        }
+        return codes;
+    }
+
+    /** @return le motif de rejet d'une ville du lot, ou {@code null} si elle est valide. */
+    private static String valider(VilleDto dto, Map<String, Departement> departements) {
+        if (dto == null) {
+            return "Ville manquante.";
+        }
+        if (dto.getNom() == null || dto.getNom().isBlank()) {
+            return "Nom manquant pour la ville.";
+        }
+        if (dto.getCode() == null || dto.getCode().isBlank()) {
+            return "Code INSEE manquant pour la ville.";
+        }
+        if (dto.getPopulationTotale() < 0) {
+            return "Population négative : " + dto.getPopulationTotale();
+        }
+        if (dto.getCodeDepartement() == null) {
+            return "Département manquant pour la ville.";
+        }
+        if (!departements.containsKey(dto.getCodeDepartement())) {
+            return "Département inexistant : " + dto.getCodeDepartement();
+        }
+        return null;
+    }
+
+    private ResultatLotDto terminerLot(List<ResultatVilleDto> resultats, List<VilleEvent> evenements) {
+        if (!evenements.isEmpty()) {
+            eventPublisher.publishEvent(new VillesEvent(evenements));
+        }
+        int reussis = evenements.size();
+        return new ResultatLotDto(resultats.size(), reussis, resultats.size() - reussis, resultats);
+    }
+
+    /** Exécute une requête IN par tranches de {@value #TAILLE_LOT_IDS} clés. */
+    private static <K, T> List<T> parTranches(Collection<K> cles, Function<List<K>, List<T>> requete) {
+        List<T> resultats = new ArrayList<>(cles.size());
+        List<K> tranche = new ArrayList<>(TAILLE_LOT_IDS);
+        for (K cle : cles) {
+            tranche.add(cle);
+            if (tranche.size() == TAILLE_LOT_IDS) {
+                resultats.addAll(requete.apply(tranche));
+                tranche.clear();
+            }
+        }
+        if (!tranche.isEmpty()) {
+            resultats.addAll(requete.apply(tranche));
+        }
+        return resultats;
     }
 
     // ------------------- Recherches spécifiques -------------------
 
     @Override
-    public List<Ville> findByNomPrefix(String prefix) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByNomStartingWithIgnoreCase(prefix);
+    public List<VilleDto> findByNomPrefix(String prefix) throws NotFoundException {
+        return rechercherParPrefixe(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Recherche par préfixe insensible aux accents, à la casse et à la ponctuation.
+     * Tant que le {@link NomIndex} n'est pas construit, la recherche SQL (sensible aux accents) est utilisée.
+     *
+     * @throws IllegalArgumentException si le préfixe ne contient ni lettre ni chiffre (il désignerait
+     *                                  toutes les villes) ou si la limite n'est pas comprise entre 1 et
+     *                                  {@code recensement.nom.limite-max}.
+     */
+    @Override
+    public List<VilleDto> findByNomPrefix(String prefix, int limite) throws NotFoundException {
+        if (limite < 1 || limite > limitePrefixeMax) {
+            throw new IllegalArgumentException("Limite invalide : " + limite + " (attendue entre 1 et "
+                    + limitePrefixeMax + ").");
+        }
+        return rechercherParPrefixe(prefix, limite);
+    }
+
+    private List<VilleDto> rechercherParPrefixe(String prefix, int limite) {
+        if (NomIndex.normaliser(prefix).isEmpty()) {
+            throw new IllegalArgumentException("Préfixe invalide : « " + prefix + " » ne contient ni lettre ni chiffre.");
+        }
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes;
+        if (recensement != null) {
+            villes = recensement.parPrefixe(prefix, limite);
+        } else if (nomIndex.estPret()) {
+            villes = chargerDansOrdre(nomIndex.idsParPrefixe(prefix, limite));
+        } else {
+            villes = toDtos(villeRepository.findByNomStartingWithIgnoreCase(prefix));
+            if (villes.size() > limite) {
+                villes = villes.subList(0, limite);
+            }
+        }
         if (villes.isEmpty()) {
             throw new NotFoundException("Aucune ville dont le nom commence par " + prefix + " n’a été trouvée");
         }
@@ -99,8 +476,12 @@ public class VilleServiceImpl implements VilleService {
     }
 
     @Override
-    public List<Ville> findByPopulationMin(int min) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(min);
+    public List<VilleDto> findByPopulationMin(int min) throws NotFoundException {
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes = recensement != null ? recensement.populationSuperieure(null, min)
+                : populationIndex.estPret()
+                ? chargerDansOrdre(populationIndex.idsPopulationSuperieure(min))
+                : toDtos(villeRepository.findByPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(min));
         if (villes.isEmpty()) {
             throw new NotFoundException("Aucune ville n’a une population supérieure à " + min);
         }
@@ -108,8 +489,12 @@ public class VilleServiceImpl implements VilleService {
     }
 
     @Override
-    public List<Ville> findByPopulationBetween(int min, int max) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByPopulationTotaleBetweenOrderByPopulationTotaleDesc(min, max);
+    public List<VilleDto> findByPopulationBetween(int min, int max) throws NotFoundException {
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes = recensement != null ? recensement.populationEntre(null, min, max)
+                : populationIndex.estPret()
+                ? chargerDansOrdre(populationIndex.idsPopulationEntre(min, max))
+                : toDtos(villeRepository.findByPopulationTotaleBetweenOrderByPopulationTotaleDesc(min, max));
         if (villes.isEmpty()) {
             throw new NotFoundException("Aucune ville n’a une population comprise entre " + min + " et " + max);
         }
@@ -117,8 +502,12 @@ public class VilleServiceImpl implements VilleService {
     }
 
     @Override
-    public List<Ville> findByDepartementAndPopulationMin(Departement departement, int min) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByDepartementAndPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(departement, min);
+    public List<VilleDto> findByDepartementAndPopulationMin(DepartementDto departement, int min) throws NotFoundException {
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes = recensement != null ? recensement.populationSuperieure(departement.getCode(), min)
+                : populationIndex.estPret()
+                ? chargerDansOrdre(populationIndex.idsPopulationSuperieure(departement.getCode(), min))
+                : toDtos(villeRepository.findByDepartementAndPopulationTotaleGreaterThanOrderByPopulationTotaleDesc(departement.getCode(), min));
         if (villes.isEmpty()) {
             throw new NotFoundException("Aucune ville n’a une population supérieure à " + min + " dans le département " + departement.getCode());
         }
@@ -126,8 +515,12 @@ public class VilleServiceImpl implements VilleService {
     }
 
     @Override
-    public List<Ville> findByDepartementAndPopulationBetween(Departement departement, int min, int max) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByDepartementAndPopulationTotaleBetweenOrderByPopulationTotaleDesc(departement, min, max);
+    public List<VilleDto> findByDepartementAndPopulationBetween(DepartementDto departement, int min, int max) throws NotFoundException {
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes = recensement != null ? recensement.populationEntre(departement.getCode(), min, max)
+                : populationIndex.estPret()
+                ? chargerDansOrdre(populationIndex.idsPopulationEntre(departement.getCode(), min, max))
+                : toDtos(villeRepository.findByDepartementAndPopulationTotaleBetweenOrderByPopulationTotaleDesc(departement.getCode(), min, max));
         if (villes.isEmpty()) {
             throw new NotFoundException("Aucune ville n’a une population comprise entre " + min + " et " + max +
                     " dans le département " + departement.getCode());
@@ -136,11 +529,79 @@ public class VilleServiceImpl implements VilleService {
     }
 
     @Override
-    public List<Ville> findTopNByDepartement(Departement departement, int n) throws NotFoundException {
-        List<Ville> villes = villeRepository.findByDepartementOrderByPopulationTotaleDesc(departement, PageRequest.of(0, n));
+    public List<VilleDto> findTopNByDepartement(DepartementDto departement, int n) throws NotFoundException {
+        Recensement recensement = snapshots.courant();
+        List<VilleDto> villes;
+        if (recensement != null) {
+            villes = recensement.top(departement.getCode(), n);
+        } else {
+            long[] ids = populationIndex.idsTop(departement.getCode(), n);
+            villes = ids != null
+                    ? chargerDansOrdre(ids)
+                    : toDtos(villeRepository.findTopByDepartementCodeOrderByPopulationDesc(departement.getCode(), PageRequest.of(0, n)));
+        }
         if (villes.isEmpty()) {
             throw new NotFoundException("Aucune ville trouvée dans le département " + departement.getCode());
         }
         return villes;
     }
-}
\ No newline at end of file
+
+    /**
+     * Top N d'une région : fusion des segments de ses départements dans le {@link PopulationIndex},
+     * à partir de la hiérarchie en mémoire ({@link RegionIndex}).
+     */
+    @Override
+    public List<VilleDto> findTopNByRegion(String codeRegion, int n) throws NotFoundException {
+        RegionIndex.Region region = regionIndex.region(codeRegion);
+        if (region == null) {
+            throw new NotFoundException("Région introuvable : " + codeRegion);
+        }
+        long[] ids = populationIndex.idsTop(region.codesDepartement(), n);
+        List<VilleDto> villes = ids != null
+                ? chargerDansOrdre(ids)
+                : toDtos(villeRepository.findTopByRegionCodeOrderByPopulationDesc(codeRegion, PageRequest.of(0, n)));
+        if (villes.isEmpty()) {
+            throw new NotFoundException("Aucune ville trouvée dans la région " + codeRegion);
+        }
+        return villes;
+    }
+
+    /**
+     * Charge les villes désignées par l'index en conservant l'ordre des identifiants.
+     * <p>
+     * Les identifiants sont découpés en tranches de {@value #TAILLE_LOT_IDS} : une liste IN unique
+     * dépasserait, pour les recherches les plus larges, la limite de 65 535 paramètres d'une requête
+     * préparée MariaDB. La requête est native ({@link VilleRepository#findProjectionsByIdIn(Collection)})
+     * et le remplissage des listes IN ({@code hibernate.query.in_clause_parameter_padding}) borne le
+     * nombre de requêtes SQL distinctes.
+     * </p>
+     *
+     * @param ids identifiants dans l'ordre attendu.
+     * @return villes dans le même ordre.
+     */
+    private List<VilleDto> chargerDansOrdre(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Long, VilleProjection> parId = new HashMap<>(ids.length * 2);
+        for (VilleProjection v : parTranches(LongStream.of(ids).boxed().toList(), villeRepository::findProjectionsByIdIn)) {
+            parId.put(v.id(), v);
+        }
+        List<VilleDto> villes = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            VilleProjection v = parId.get(id);
+            if (v != null) {
+                villes.add(VilleMapper.toDto(v));
+            }
+        }
+        return villes;
+    }
+
+    private static List<VilleDto> toDtos(List<VilleProjection> projections) {
+        List<VilleDto> villes = new ArrayList<>(projections.size());
+        for (VilleProjection v : projections) {
+            villes.add(VilleMapper.toDto(v));
+        }
+        return villes;
+    }
+}
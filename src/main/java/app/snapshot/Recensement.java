@@ -0,0 +1,533 @@
+package app.snapshot;
+
+import app.dto.DepartementDto;
+import app.dto.VilleDto;
+import app.dto.VilleExportLigne;
+import app.entities.Departement;
+import app.index.NomIndex;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Photographie immuable et compacte du recensement : départements et villes en colonnes
+ * (tableaux de types primitifs et de chaînes), avec les ordres utiles aux lectures.
+ * <p>
+ * Les villes sont rangées par identifiant ; des permutations d'indices donnent l'ordre par population
+ * (national et par département), l'ordre par nom dans chaque département et l'ordre des noms
+ * normalisés ({@link NomIndex#normaliser(String)}) pour la recherche par préfixe. Chaque lecture est
+ * une dichotomie suivie d'un parcours, sans base de données. Rien n'étant jamais modifié après la
+ * construction, l'objet se partage entre threads sans verrou ; un rechargement en construit un autre
+ * ({@link SnapshotRecensement}).
+ * </p>
+ * <p>
+ * Les résultats respectent les ordres des requêtes SQL équivalentes : population décroissante puis
+ * identifiant décroissant, nom dans l'ordre alphabétique français.
+ * </p>
+ */
+public final class Recensement {
+
+    /** Origine des données d'une photographie. */
+    public enum Source { BASE, CSV }
+
+    private final Source source;
+    private final Instant construitLe;
+    private final long dureeConstructionMs;
+    private final long octets;
+
+    // Départements, triés par code
+    private final long[] idsDep;
+    private final String[] codesDep;
+    private final String[] nomsDep;
+    private final long[] populationsDep;
+    private final Map<String, Integer> rangsDep;
+
+    // Villes, triées par identifiant
+    private final long[] ids;
+    private final String[] codes;
+    private final String[] noms;
+    private final int[] populationsMunicipales;
+    private final int[] populations;
+    private final short[] deps;
+
+    /** Villes par population croissante puis identifiant croissant, nationales et par département. */
+    private final int[] parPopulation;
+    private final int[][] parPopulationDep;
+
+    /** Villes de chaque département par nom. */
+    private final int[][] parNomDep;
+
+    /** Noms normalisés triés et villes correspondantes. */
+    private final String[] cles;
+    private final int[] parCle;
+
+    /** Villes par nom en minuscules (recherche exacte), par identifiant croissant. */
+    private final Map<String, int[]> parNomExact;
+
+    private Recensement(Constructeur c, Source source, long debutNanos) {
+        this.source = source;
+        this.construitLe = Instant.now();
+
+        // Départements cités par les villes mais absents de la liste (source CSV)
+        for (VilleBrute v : c.villes) {
+            c.departements.computeIfAbsent(v.codeDepartement(), code -> new DepartementBrut(null, code, null));
+        }
+        List<DepartementBrut> departements = new ArrayList<>(c.departements.values());
+        departements.sort(Comparator.comparing(DepartementBrut::code));
+        int nbDep = departements.size();
+        idsDep = new long[nbDep];
+        codesDep = new String[nbDep];
+        nomsDep = new String[nbDep];
+        populationsDep = new long[nbDep];
+        rangsDep = new HashMap<>(nbDep * 2);
+        for (int d = 0; d < nbDep; d++) {
+            DepartementBrut dep = departements.get(d);
+            // Département absent de la base (source CSV) : identifiant négatif, jamais attribué en base
+            idsDep[d] = dep.id() != null ? dep.id() : -(d + 1);
+            codesDep[d] = dep.code();
+            nomsDep[d] = dep.nom();
+            rangsDep.put(dep.code(), d);
+        }
+
+        List<VilleBrute> villes = c.villes;
+        villes.sort(Comparator.comparingLong(VilleBrute::id));
+        int n = villes.size();
+        ids = new long[n];
+        codes = new String[n];
+        noms = new String[n];
+        populationsMunicipales = new int[n];
+        populations = new int[n];
+        deps = new short[n];
+        int[] nbParDep = new int[nbDep];
+        for (int i = 0; i < n; i++) {
+            VilleBrute v = villes.get(i);
+            int d = rangsDep.get(v.codeDepartement());
+            ids[i] = v.id();
+            codes[i] = v.code();
+            noms[i] = v.nom();
+            populationsMunicipales[i] = v.populationMunicipale();
+            populations[i] = v.populationTotale();
+            deps[i] = (short) d;
+            nbParDep[d]++;
+            populationsDep[d] += v.populationTotale();
+        }
+
+        // Ordre par population : les indices suivent l'ordre des identifiants, un tri stable suffit
+        parPopulation = trier(n, Comparator.comparingInt(i -> populations[i]));
+        parPopulationDep = repartir(parPopulation, nbParDep);
+        // Clés de collation calculées une fois par nom plutôt qu'à chaque comparaison
+        Collator collator = Collator.getInstance(Locale.FRENCH);
+        CollationKey[] clesCollation = new CollationKey[n];
+        for (int i = 0; i < n; i++) {
+            clesCollation[i] = collator.getCollationKey(noms[i]);
+        }
+        parNomDep = repartir(trier(n, Comparator.comparing(i -> clesCollation[i])), nbParDep);
+
+        String[] normalises = new String[n];
+        for (int i = 0; i < n; i++) {
+            normalises[i] = NomIndex.normaliser(noms[i]);
+        }
+        parCle = trier(n, Comparator.comparing(i -> normalises[i]));
+        cles = new String[n];
+        for (int k = 0; k < n; k++) {
+            cles[k] = normalises[parCle[k]];
+        }
+
+        Map<String, List<Integer>> exacts = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            exacts.computeIfAbsent(noms[i].toLowerCase(Locale.ROOT), k -> new ArrayList<>(1)).add(i);
+        }
+        parNomExact = new HashMap<>(exacts.size() * 2);
+        exacts.forEach((nom, liste) -> parNomExact.put(nom, liste.stream().mapToInt(Integer::intValue).toArray()));
+
+        octets = estimerOctets();
+        dureeConstructionMs = (System.nanoTime() - debutNanos) / 1_000_000;
+    }
+
+    // ------------------- Informations -------------------
+
+    public Source source() { return source; }
+
+    public Instant construitLe() { return construitLe; }
+
+    /** @return durée de construction, lecture de la source comprise. */
+    public long dureeConstructionMs() { return dureeConstructionMs; }
+
+    /** @return estimation de la mémoire occupée (tableaux, chaînes et tables), en octets. */
+    public long octets() { return octets; }
+
+    public int nombreVilles() { return ids.length; }
+
+    public int nombreDepartements() { return codesDep.length; }
+
+    // ------------------- Villes -------------------
+
+    public Optional<VilleDto> ville(long id) {
+        int i = Arrays.binarySearch(ids, id);
+        return i >= 0 ? Optional.of(dto(i)) : Optional.empty();
+    }
+
+    /** Page de villes dans l'ordre des identifiants, comme la lecture paginée en base. */
+    public Page<VilleDto> page(int page, int size) {
+        PageRequest demande = PageRequest.of(page, size);
+        List<VilleDto> contenu = new ArrayList<>();
+        long debut = demande.getOffset();
+        for (long i = debut; i < ids.length && i < debut + size; i++) {
+            contenu.add(dto((int) i));
+        }
+        return new PageImpl<>(contenu, demande, ids.length);
+    }
+
+    /** Villes d'identifiant strictement supérieur à {@code apresId}, par identifiant croissant. */
+    public List<VilleDto> apresId(long apresId, int limite) {
+        int i = Arrays.binarySearch(ids, apresId);
+        int debut = i >= 0 ? i + 1 : -i - 1;
+        List<VilleDto> villes = new ArrayList<>(Math.min(limite, ids.length - debut));
+        for (int k = debut; k < ids.length && villes.size() < limite; k++) {
+            villes.add(dto(k));
+        }
+        return villes;
+    }
+
+    /** Villes situées strictement après le couple (population, id), par population puis identifiant décroissants. */
+    public List<VilleDto> apresPopulation(int population, long apresId, int limite) {
+        // Position du premier couple (population, id) supérieur ou égal à celui du curseur
+        int bas = 0;
+        int haut = parPopulation.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            int v = parPopulation[milieu];
+            if (populations[v] < population || (populations[v] == population && ids[v] < apresId)) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        List<VilleDto> villes = new ArrayList<>(Math.min(limite, bas));
+        for (int k = bas - 1; k >= 0 && villes.size() < limite; k--) {
+            villes.add(dto(parPopulation[k]));
+        }
+        return villes;
+    }
+
+    /** Villes dont le nom est égal à {@code nom}, sans tenir compte de la casse. */
+    public List<VilleDto> parNomExact(String nom) {
+        int[] villes = parNomExact.get(nom.toLowerCase(Locale.ROOT));
+        List<VilleDto> resultat = new ArrayList<>(villes == null ? 0 : villes.length);
+        if (villes != null) {
+            for (int i : villes) {
+                resultat.add(dto(i));
+            }
+        }
+        return resultat;
+    }
+
+    /** Villes dont le nom normalisé commence par le préfixe normalisé, dans l'ordre des noms normalisés. */
+    public List<VilleDto> parPrefixe(String prefix, int limite) {
+        String cle = NomIndex.normaliser(prefix);
+        int k = Arrays.binarySearch(cles, cle);
+        // Remonte au premier exemplaire de la clé en cas de doublons
+        int debut = k >= 0 ? k : -k - 1;
+        while (debut > 0 && cles[debut - 1].equals(cle)) {
+            debut--;
+        }
+        List<VilleDto> villes = new ArrayList<>();
+        for (int p = debut; p < cles.length && cles[p].startsWith(cle) && villes.size() < limite; p++) {
+            villes.add(dto(parCle[p]));
+        }
+        return villes;
+    }
+
+    /**
+     * @param codeDepartement code du département, {@code null} pour la France entière.
+     * @return villes de population strictement supérieure à {@code min}, par population décroissante.
+     */
+    public List<VilleDto> populationSuperieure(String codeDepartement, int min) {
+        int[] ordre = ordrePopulation(codeDepartement);
+        return decroissant(ordre, premierAuDela(ordre, min), ordre.length);
+    }
+
+    /**
+     * @param codeDepartement code du département, {@code null} pour la France entière.
+     * @return villes de population comprise entre {@code min} et {@code max} inclus, par population décroissante.
+     */
+    public List<VilleDto> populationEntre(String codeDepartement, int min, int max) {
+        int[] ordre = ordrePopulation(codeDepartement);
+        return decroissant(ordre, premierAuDela(ordre, (long) min - 1), premierAuDela(ordre, max));
+    }
+
+    /**
+     * @param codeDepartement code du département, {@code null} pour la France entière.
+     * @return les {@code n} villes les plus peuplées, par population décroissante.
+     */
+    public List<VilleDto> top(String codeDepartement, int n) {
+        int[] ordre = ordrePopulation(codeDepartement);
+        return decroissant(ordre, Math.max(0, ordre.length - n), ordre.length);
+    }
+
+    // ------------------- Départements -------------------
+
+    public boolean contientDepartement(String code) {
+        return rangsDep.containsKey(code);
+    }
+
+    /** @return le département, détaché et sans ses villes. */
+    public Optional<Departement> departement(String code) {
+        Integer d = rangsDep.get(code);
+        return d == null ? Optional.empty() : Optional.of(entite(d));
+    }
+
+    /** @return tous les départements, détachés et sans leurs villes, triés par code. */
+    public List<Departement> departements() {
+        List<Departement> resultat = new ArrayList<>(codesDep.length);
+        for (int d = 0; d < codesDep.length; d++) {
+            resultat.add(entite(d));
+        }
+        return resultat;
+    }
+
+    /** @return synthèse de chaque département, triée par code. */
+    public List<DepartementDto> resumes() {
+        List<DepartementDto> resultat = new ArrayList<>(codesDep.length);
+        for (int d = 0; d < codesDep.length; d++) {
+            resultat.add(resume(d));
+        }
+        return resultat;
+    }
+
+    public Optional<DepartementDto> resume(String code) {
+        Integer d = rangsDep.get(code);
+        return d == null ? Optional.empty() : Optional.of(resume(d));
+    }
+
+    /** Page des villes d'un département, triées par nom (vide si le département est inconnu). */
+    public Page<VilleDto> villesDuDepartement(String code, int page, int size) {
+        PageRequest demande = PageRequest.of(page, size);
+        Integer d = rangsDep.get(code);
+        int[] ordre = d == null ? new int[0] : parNomDep[d];
+        List<VilleDto> contenu = new ArrayList<>();
+        long debut = demande.getOffset();
+        for (long k = debut; k < ordre.length && k < debut + size; k++) {
+            contenu.add(dto(ordre[(int) k]));
+        }
+        return new PageImpl<>(contenu, demande, ordre.length);
+    }
+
+    // ------------------- Exports -------------------
+
+    /** Lignes de l'export CSV : villes de population strictement supérieure à {@code min}, par population décroissante. */
+    public Iterator<VilleExportLigne> exportPopulationSuperieure(int min) {
+        int debut = premierAuDela(parPopulation, min);
+        return lignes(new Iterator<>() {
+            private int k = parPopulation.length - 1;
+
+            @Override
+            public boolean hasNext() {
+                return k >= debut;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return parPopulation[k--];
+            }
+        });
+    }
+
+    /** Lignes du PDF d'un département : ses villes, par nom. */
+    public Iterator<VilleExportLigne> exportDepartement(String code) {
+        Integer d = rangsDep.get(code);
+        int[] ordre = d == null ? new int[0] : parNomDep[d];
+        return lignes(Arrays.stream(ordre).iterator());
+    }
+
+    // ------------------- Interne -------------------
+
+    private VilleDto dto(int i) {
+        VilleDto dto = new VilleDto();
+        dto.setId(ids[i]);
+        dto.setNom(noms[i]);
+        dto.setCode(codes[i]);
+        dto.setPopulationTotale(populations[i]);
+        dto.setPopulationMunicipale(populationsMunicipales[i]);
+        dto.setCodeDepartement(codesDep[deps[i]]);
+        return dto;
+    }
+
+    private Departement entite(int d) {
+        Departement dep = new Departement(codesDep[d], nomsDep[d]);
+        dep.setId(idsDep[d]);
+        return dep;
+    }
+
+    private DepartementDto resume(int d) {
+        return new DepartementDto(idsDep[d], codesDep[d], nomsDep[d],
+                (long) parPopulationDep[d].length, populationsDep[d]);
+    }
+
+    private Iterator<VilleExportLigne> lignes(Iterator<Integer> indices) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return indices.hasNext();
+            }
+
+            @Override
+            public VilleExportLigne next() {
+                int i = indices.next();
+                return new VilleExportLigne(noms[i], populations[i], codesDep[deps[i]], nomsDep[deps[i]]);
+            }
+        };
+    }
+
+    private int[] ordrePopulation(String codeDepartement) {
+        if (codeDepartement == null) {
+            return parPopulation;
+        }
+        Integer d = rangsDep.get(codeDepartement);
+        return d == null ? new int[0] : parPopulationDep[d];
+    }
+
+    /** @return position de la première ville de population strictement supérieure à {@code valeur}. */
+    private int premierAuDela(int[] ordre, long valeur) {
+        int bas = 0;
+        int haut = ordre.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (populations[ordre[milieu]] <= valeur) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /** Villes des positions [debut, fin[ d'un ordre croissant, de la dernière à la première. */
+    private List<VilleDto> decroissant(int[] ordre, int debut, int fin) {
+        List<VilleDto> villes = new ArrayList<>(Math.max(0, fin - debut));
+        for (int k = fin - 1; k >= debut; k--) {
+            villes.add(dto(ordre[k]));
+        }
+        return villes;
+    }
+
+    /** Indices 0..n-1 triés (tri stable : à égalité, l'ordre des identifiants est conservé). */
+    private static int[] trier(int n, Comparator<Integer> ordre) {
+        Integer[] indices = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, ordre);
+        int[] resultat = new int[n];
+        for (int i = 0; i < n; i++) {
+            resultat[i] = indices[i];
+        }
+        return resultat;
+    }
+
+    /** Répartit un ordre global en un ordre par département, en le conservant. */
+    private int[][] repartir(int[] ordre, int[] nbParDep) {
+        int[][] parDep = new int[nbParDep.length][];
+        for (int d = 0; d < nbParDep.length; d++) {
+            parDep[d] = new int[nbParDep[d]];
+        }
+        int[] remplis = new int[nbParDep.length];
+        for (int i : ordre) {
+            int d = deps[i];
+            parDep[d][remplis[d]++] = i;
+        }
+        return parDep;
+    }
+
+    private long estimerOctets() {
+        int n = ids.length;
+        // Colonnes et permutations
+        long total = tableau(8L * n) + tableau(4L * n) * 4 + tableau(2L * n) + tableau(4L * n) * 3;
+        total += 2 * tableau(4L * n) + 2 * 16L * codesDep.length;
+        for (int i = 0; i < n; i++) {
+            total += chaine(codes[i]) + chaine(noms[i]) + chaine(cles[i]);
+        }
+        for (Map.Entry<String, int[]> e : parNomExact.entrySet()) {
+            // Entrée de table, tableau d'indices, clé si elle diffère du nom (majuscules)
+            total += 32 + 4 + tableau(4L * e.getValue().length);
+            int premier = e.getValue()[0];
+            if (!e.getKey().equals(noms[premier])) {
+                total += chaine(e.getKey());
+            }
+        }
+        for (int d = 0; d < codesDep.length; d++) {
+            total += chaine(codesDep[d]) + chaine(nomsDep[d]) + 32 + 16;
+        }
+        return total;
+    }
+
+    private static long tableau(long contenu) {
+        return (16 + contenu + 7) / 8 * 8;
+    }
+
+    /** Taille d'une chaîne compacte : objet String et tableau d'octets (Latin-1) ou de caractères. */
+    private static long chaine(String s) {
+        if (s == null) {
+            return 0;
+        }
+        int largeur = s.chars().allMatch(c -> c < 256) ? 1 : 2;
+        return 24 + tableau((long) s.length() * largeur);
+    }
+
+    private record VilleBrute(long id, String code, String nom, int populationMunicipale,
+                              int populationTotale, String codeDepartement) {
+    }
+
+    private record DepartementBrut(Long id, String code, String nom) {
+    }
+
+    /**
+     * Collecte des départements et des villes, puis construction de la photographie.
+     * Un constructeur ne sert qu'une fois et n'est pas partagé entre threads.
+     */
+    public static final class Constructeur {
+
+        private final long debut = System.nanoTime();
+        private final Map<String, DepartementBrut> departements = new HashMap<>();
+        private final List<VilleBrute> villes = new ArrayList<>();
+
+        /**
+         * @param id   identifiant en base, {@code null} si le département n'y est pas (un identifiant négatif
+         *             lui est alors attribué dans l'ordre des codes).
+         * @param code code du département.
+         * @param nom  nom, éventuellement inconnu.
+         */
+        public Constructeur departement(Long id, String code, String nom) {
+            departements.put(code, new DepartementBrut(id, code, nom));
+            return this;
+        }
+
+        /** Ajoute une ville ; un département encore inconnu est créé sans nom. */
+        public Constructeur ville(long id, String code, String nom, int populationMunicipale,
+                                  int populationTotale, String codeDepartement) {
+            villes.add(new VilleBrute(id, code, nom, populationMunicipale, populationTotale, codeDepartement));
+            return this;
+        }
+
+        public Recensement construire(Source source) {
+            return new Recensement(this, source, debut);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package app.snapshot;
+
+import app.cache.CacheConfig;
+import app.cache.DatasetVersion;
+import app.dto.DepartementRegionProjection;
+import app.dto.VilleProjection;
+import app.loader.RecensementCsvParser;
+import app.loader.RecensementJdbcWriter;
+import app.repository.DepartementRepository;
+import app.repository.VilleRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mode de service sur photographie ({@code recensement.mode=snapshot}).
+ * <p>
+ * Une fois le chargement terminé, l'ensemble des villes et départements est lu en deux requêtes et
+ * figé dans un {@link Recensement} immuable ; les lectures des services et les exports s'y adressent
+ * sans toucher la base. Un rechargement (depuis la base ou le fichier CSV) construit une nouvelle
+ * photographie sur un thread dédié pendant que l'ancienne continue de servir, puis la remplace d'un
+ * seul échange de référence : une requête voit l'une ou l'autre, jamais un mélange.
+ * </p>
+ * <p>
+ * Les écritures restent faites en base et ne sont visibles qu'au rechargement suivant. Après chaque
+ * échange, les caches de lecture sont vidés et les versions des données avancées
+ * ({@link DatasetVersion#recharger()}) : ETags et PDF en cache de l'ancienne photographie ne sont
+ * plus servis.
+ * </p>
+ * <p>
+ * En mode {@code base} (par défaut), {@link #courant()} renvoie toujours {@code null} et rien n'est construit.
+ * </p>
+ */
+@Component
+public class SnapshotRecensement {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotRecensement.class);
+
+    private final VilleRepository villeRepository;
+    private final DepartementRepository departementRepository;
+    private final RecensementJdbcWriter writer;
+    private final CacheManager cacheManager;
+    private final DatasetVersion datasetVersion;
+    private final Resource fichier;
+    private final boolean actif;
+    private final Timer construction;
+    private final ExecutorService executor;
+
+    private final AtomicReference<Recensement> courant = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Recensement>> enCours = new AtomicReference<>();
+
+    public SnapshotRecensement(VilleRepository villeRepository, DepartementRepository departementRepository,
+                               RecensementJdbcWriter writer, CacheManager cacheManager, DatasetVersion datasetVersion, MeterRegistry registry,
+                               @Value("${recensement.csv.fichier:classpath:recensement.csv}") Resource fichier,
+                               @Value("${recensement.mode:base}") String mode) {
+        this.villeRepository = villeRepository;
+        this.departementRepository = departementRepository;
+        this.writer = writer;
+        this.cacheManager = cacheManager;
+        this.datasetVersion = datasetVersion;
+        this.fichier = fichier;
+        this.actif = "snapshot".equalsIgnoreCase(mode);
+        this.construction = Timer.builder("recensement.snapshot.construction")
+                .description("Durée de construction d'une photographie, lecture de la source comprise")
+                .register(registry);
+        Gauge.builder("recensement.snapshot.octets", courant, r -> r.get() == null ? 0 : r.get().octets())
+                .description("Mémoire estimée de la photographie servie")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("recensement.snapshot.villes", courant, r -> r.get() == null ? 0 : r.get().nombreVilles())
+                .description("Nombre de villes de la photographie servie")
+                .register(registry);
+        this.executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "snapshot"));
+    }
+
+    /** @return {@code true} si l'application sert ses lectures depuis une photographie. */
+    public boolean estActif() {
+        return actif;
+    }
+
+    /**
+     * @return la photographie servie, ou {@code null} en mode {@code base} et tant que la première
+     * n'est pas construite (les lectures passent alors par la base).
+     */
+    public Recensement courant() {
+        return courant.get();
+    }
+
+    /** @return {@code true} si un rechargement est en cours. */
+    public boolean rechargementEnCours() {
+        CompletableFuture<Recensement> f = enCours.get();
+        return f != null && !f.isDone();
+    }
+
+    /**
+     * Première photographie, construite depuis la base avant la publication des versions.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DatasetVersion.AVANT_VERSION)
+    public void construire() {
+        if (actif) {
+            courant.set(construireDepuis(Recensement.Source.BASE));
+        }
+    }
+
+    /**
+     * Lance la construction d'une nouvelle photographie en arrière-plan ; elle remplacera la photographie
+     * servie une fois terminée. Une demande reçue pendant un rechargement renvoie celui en cours.
+     *
+     * @param source origine des données.
+     * @return l'achèvement du rechargement.
+     * @throws IllegalStateException si le mode {@code snapshot} n'est pas actif.
+     */
+    public CompletableFuture<Recensement> recharger(Recensement.Source source) {
+        if (!actif) {
+            throw new IllegalStateException("Le mode snapshot n'est pas actif (recensement.mode=base).");
+        }
+        return enCours.updateAndGet(f -> f != null && !f.isDone() ? f
+                : CompletableFuture.supplyAsync(() -> remplacer(construireDepuis(source)), executor));
+    }
+
+    private Recensement remplacer(Recensement nouveau) {
+        courant.set(nouveau);
+        for (String nom : new String[] {CacheConfig.VILLES, CacheConfig.VILLES_PAR_NOM, CacheConfig.DEPARTEMENTS}) {
+            Cache cache = cacheManager.getCache(nom);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        datasetVersion.recharger();
+        return nouveau;
+    }
+
+    private Recensement construireDepuis(Recensement.Source source) {
+        try {
+            Recensement recensement = construction.recordCallable(() -> source == Recensement.Source.BASE
+                    ? depuisBase() : depuisCsv());
+            LOG.info("Photographie construite depuis {} : {} villes, {} départements, {} Mo estimés, en {} ms.",
+                    source, recensement.nombreVilles(), recensement.nombreDepartements(),
+                    String.format("%.1f", recensement.octets() / 1_048_576.0), recensement.dureeConstructionMs());
+            return recensement;
+        } catch (Exception e) {
+            LOG.error("Échec de la construction de la photographie depuis {}.", source, e);
+            throw e instanceof RuntimeException r ? r : new IllegalStateException(e);
+        }
+    }
+
+    private Recensement depuisBase() {
+        Recensement.Constructeur constructeur = new Recensement.Constructeur();
+        for (DepartementRegionProjection d : departementRepository.findAllAvecRegion()) {
+            constructeur.departement(d.id(), d.code(), d.nom());
+        }
+        for (VilleProjection v : villeRepository.findAllProjections()) {
+            constructeur.ville(v.id(), v.code(), v.nom(), v.populationMunicipale(), v.populationTotale(),
+                    v.codeDepartement());
+        }
+        return constructeur.construire(Recensement.Source.BASE);
+    }
+
+    /**
+     * Photographie lue dans le fichier CSV ; les départements n'ont pas de nom.
+     * <p>
+     * Les identifiants sont ceux de la base, associés par code INSEE (une requête par table) : une
+     * écriture par identifiant ({@code PUT /villes/{id}}…) vise bien la ville que la photographie
+     * présente. Une ville ou un département absent de la base reçoit un identifiant négatif, qu'aucune
+     * écriture ne peut atteindre.
+     * </p>
+     */
+    private Recensement depuisCsv() throws IOException {
+        Map<String, Long> villesEnBase = writer.chargerIdsVilles();
+        Map<String, Long> departementsEnBase = writer.chargerIdsDepartements();
+        Recensement.Constructeur constructeur = new Recensement.Constructeur();
+        Set<String> departements = new HashSet<>();
+        long[] absentes = {0};
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(fichier.getInputStream(), StandardCharsets.UTF_8), 1 << 16)) {
+            RecensementCsvParser.parcourir(reader, dto -> {
+                Long id = villesEnBase.get(dto.getCode());
+                constructeur.ville(id != null ? id : --absentes[0], dto.getCode(), dto.getNom(),
+                        dto.getPopulationMunicipale(), dto.getPopulationTotale(), dto.getCodeDepartement());
+                departements.add(dto.getCodeDepartement());
+            });
+        }
+        for (String code : departements) {
+            Long id = departementsEnBase.get(code);
+            if (id != null) {
+                constructeur.departement(id, code, null);
+            }
+        }
+        if (absentes[0] < 0) {
+            LOG.warn("Photographie CSV : {} villes absentes de la base, servies sous un identifiant négatif.",
+                    -absentes[0]);
+        }
+        return constructeur.construire(Recensement.Source.CSV);
+    }
+
+    @PreDestroy
+    void arreter() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,161 @@
+package app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Serveur HTTP local qui imite les trois ressources de l'API GeoGouv lues par {@link RecensementApiExterne} :
+ * {@code /regions}, {@code /departements} et {@code /departements/{code}/communes}.
+ * <p>
+ * Le contenu est modifiable entre deux chargements et chaque ressource compte les appels reçus.
+ * </p>
+ */
+public final class ApiGeoBouchon implements AutoCloseable {
+
+    /** Commune telle que renvoyée par l'API. */
+    public record Commune(String code, String nom, String codeDepartement, int population) {
+    }
+
+    private final HttpServer serveur;
+    private final Map<String, String> regions = new LinkedHashMap<>();
+    private final Map<String, String[]> departements = new LinkedHashMap<>();
+    private final Map<String, List<Commune>> communes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> appels = new ConcurrentHashMap<>();
+
+    public ApiGeoBouchon() {
+        try {
+            serveur = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        serveur.setExecutor(Executors.newCachedThreadPool());
+        serveur.createContext("/", this::repondre);
+        serveur.start();
+    }
+
+    /** @return adresse à donner à {@code recensement.api.url}. */
+    public String url() {
+        return "http://" + serveur.getAddress().getHostString() + ":" + serveur.getAddress().getPort();
+    }
+
+    public synchronized ApiGeoBouchon region(String code, String nom) {
+        regions.put(code, nom);
+        return this;
+    }
+
+    public synchronized ApiGeoBouchon departement(String code, String nom, String codeRegion) {
+        departements.put(code, new String[] {nom, codeRegion});
+        communes.putIfAbsent(code, new ArrayList<>());
+        return this;
+    }
+
+    /** Ajoute la commune, ou remplace celle de même code. */
+    public synchronized ApiGeoBouchon commune(String code, String nom, String codeDepartement, int population) {
+        return communeDans(codeDepartement, code, nom, codeDepartement, population);
+    }
+
+    /**
+     * Ajoute la commune, ou remplace celle de même code, dans la réponse de
+     * {@code /departements/{departementServi}/communes}, quel que soit son {@code codeDepartement}.
+     */
+    public synchronized ApiGeoBouchon communeDans(String departementServi, String code, String nom,
+                                                  String codeDepartement, int population) {
+        retirer(code);
+        communes.computeIfAbsent(departementServi, c -> new ArrayList<>())
+                .add(new Commune(code, nom, codeDepartement, population));
+        return this;
+    }
+
+    public synchronized ApiGeoBouchon retirer(String code) {
+        communes.values().forEach(liste -> liste.removeIf(commune -> commune.code().equals(code)));
+        return this;
+    }
+
+    /** Vide le contenu et les compteurs d'appels. */
+    public synchronized void vider() {
+        regions.clear();
+        departements.clear();
+        communes.clear();
+        appels.clear();
+    }
+
+    /** @return nombre de communes servies, tous départements confondus. */
+    public synchronized int nbCommunes() {
+        return communes.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * @param ressource {@code /regions}, {@code /departements} ou {@code /departements/{code}/communes}.
+     * @return nombre d'appels reçus depuis le dernier {@link #remettreAZeroAppels()}.
+     */
+    public int appels(String ressource) {
+        AtomicInteger nb = appels.get(ressource);
+        return nb == null ? 0 : nb.get();
+    }
+
+    public void remettreAZeroAppels() {
+        appels.clear();
+    }
+
+    @Override
+    public void close() {
+        serveur.stop(0);
+    }
+
+    private void repondre(HttpExchange echange) throws IOException {
+        String chemin = echange.getRequestURI().getPath();
+        appels.computeIfAbsent(chemin, c -> new AtomicInteger()).incrementAndGet();
+        String corps;
+        synchronized (this) {
+            if (chemin.equals("/regions")) {
+                corps = regions.entrySet().stream()
+                        .map(r -> "{\"code\":" + json(r.getKey()) + ",\"nom\":" + json(r.getValue()) + "}")
+                        .collect(Collectors.joining(",", "[", "]"));
+            } else if (chemin.equals("/departements")) {
+                corps = departements.entrySet().stream()
+                        .map(d -> "{\"code\":" + json(d.getKey()) + ",\"nom\":" + json(d.getValue()[0])
+                                + ",\"codeRegion\":" + json(d.getValue()[1]) + "}")
+                        .collect(Collectors.joining(",", "[", "]"));
+            } else if (chemin.startsWith("/departements/") && chemin.endsWith("/communes")) {
+                String code = chemin.substring("/departements/".length(), chemin.length() - "/communes".length());
+                corps = communes.getOrDefault(code, List.of()).stream()
+                        .map(c -> "{\"nom\":" + json(c.nom()) + ",\"code\":" + json(c.code())
+                                + ",\"codeDepartement\":" + json(c.codeDepartement())
+                                + ",\"population\":" + c.population() + "}")
+                        .collect(Collectors.joining(",", "[", "]"));
+            } else {
+                corps = null;
+            }
+        }
+        if (corps == null) {
+            echange.sendResponseHeaders(404, -1);
+            echange.close();
+            return;
+        }
+        byte[] octets = corps.getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        echange.sendResponseHeaders(200, octets.length);
+        try (OutputStream out = echange.getResponseBody()) {
+            out.write(octets);
+        }
+    }
+
+    private static String json(String valeur) {
+        return valeur == null ? "null" : "\"" + valeur.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,179 @@
+package app;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge du serveur HTTP : {@value #CLIENTS_PAR_DEFAUT} clients simultanés, servis par les threads
+ * de plateforme de Tomcat puis par des threads virtuels ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * L'application est démarrée deux fois sur un port libre, avec le même jeu de données (servi par
+ * {@link ApiGeoBouchon}) et le même pool de connexions. Chaque client enchaîne des recherches qui
+ * passent par la base ; le débit et les latences p50 et p99 de chaque mode sont journalisés.
+ * </p>
+ * <p>
+ * Trop long pour la suite ordinaire, il ne s'exécute que sur demande :
+ * {@code mvn test -Dtest=ChargeServeurTest -Drecensement.charge=true}, avec en option
+ * {@code -Drecensement.charge.clients=<n>} et {@code -Drecensement.charge.requetes=<n par client>}.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "recensement.charge", matches = "true")
+class ChargeServeurTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChargeServeurTest.class);
+
+    private static final int CLIENTS_PAR_DEFAUT = 2_000;
+    private static final int CLIENTS = Integer.getInteger("recensement.charge.clients", CLIENTS_PAR_DEFAUT);
+    private static final int REQUETES_PAR_CLIENT = Integer.getInteger("recensement.charge.requetes", 20);
+    private static final int TAILLE_POOL = 20;
+
+    private static final int DEPARTEMENTS = 100;
+    private static final int COMMUNES_PAR_DEPARTEMENT = 100;
+
+    private static ApiGeoBouchon api;
+
+    @BeforeAll
+    static void remplir() {
+        api = new ApiGeoBouchon();
+        for (int r = 0; r < 10; r++) {
+            api.region("R" + r, "Région " + r);
+        }
+        for (int d = 0; d < DEPARTEMENTS; d++) {
+            String code = departement(d);
+            api.departement(code, "Département " + code, "R" + d % 10);
+            for (int c = 0; c < COMMUNES_PAR_DEPARTEMENT; c++) {
+                int n = d * COMMUNES_PAR_DEPARTEMENT + c;
+                api.commune(code + String.format("%03d", c), "Commune " + n, code, 1 + n * 7 % 100_000);
+            }
+        }
+    }
+
+    @AfterAll
+    static void arreter() {
+        api.close();
+    }
+
+    @Test
+    void threadsDePlateformeEtThreadsVirtuels() {
+        Resultat plateforme = mesurer(false);
+        Resultat virtuels = mesurer(true);
+
+        LOG.info("{} clients × {} requêtes, pool de {} connexions :", CLIENTS, REQUETES_PAR_CLIENT, TAILLE_POOL);
+        LOG.info("  threads de plateforme : {}", plateforme);
+        LOG.info("  threads virtuels      : {}", virtuels);
+
+        assertThat(plateforme.erreurs()).isZero();
+        assertThat(virtuels.erreurs()).isZero();
+    }
+
+    /** Démarre l'application dans le mode demandé, la chauffe puis la met sous charge. */
+    private static Resultat mesurer(boolean threadsVirtuels) {
+        try (ConfigurableApplicationContext contexte = new SpringApplicationBuilder(RecensementApiApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + threadsVirtuels,
+                        "--recensement.api.url=" + api.url(),
+                        "--spring.datasource.hikari.maximum-pool-size=" + TAILLE_POOL,
+                        "--spring.datasource.hikari.minimum-idle=" + TAILLE_POOL)) {
+            int port = contexte.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            charger(port, 200, 10);
+            return charger(port, CLIENTS, REQUETES_PAR_CLIENT);
+        }
+    }
+
+    /**
+     * Lance {@code clients} clients ensemble, chacun sur son thread virtuel et sa connexion, qui
+     * enchaînent {@code requetes} requêtes.
+     */
+    private static Resultat charger(int port, int clients, int requetes) {
+        long[] latences = new long[clients * requetes];
+        AtomicInteger erreurs = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        long debut;
+        try (HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                executor.submit(() -> {
+                    depart.await();
+                    for (int i = 0; i < requetes; i++) {
+                        HttpRequest requete = HttpRequest.newBuilder(uri(port, client, i))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long envoi = System.nanoTime();
+                        try {
+                            HttpResponse<Void> reponse = http.send(requete, HttpResponse.BodyHandlers.discarding());
+                            if (reponse.statusCode() != 200) {
+                                erreurs.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            erreurs.incrementAndGet();
+                        }
+                        latences[client * requetes + i] = System.nanoTime() - envoi;
+                    }
+                    return null;
+                });
+            }
+            debut = System.nanoTime();
+            depart.countDown();
+        }
+        long duree = System.nanoTime() - debut;
+        Arrays.sort(latences);
+        return new Resultat(latences.length, erreurs.get(), duree,
+                centile(latences, 0.50), centile(latences, 0.99));
+    }
+
+    /** Alterne des recherches servies par l'index et une requête IN, sur des départements variés. */
+    private static URI uri(int port, int client, int i) {
+        String departement = departement((client * 31 + i) % DEPARTEMENTS);
+        // Populations générées entre 1 et 70 000 : chaque intervalle contient des villes
+        int min = (client * 997 + i * 131) % 69_000;
+        String chemin = switch (i % 3) {
+            case 0 -> "/villes/departement/" + departement + "/population/min/0";
+            case 1 -> "/villes/population/" + min + "/" + (min + 1_000);
+            default -> "/villes/departement/" + departement + "/top/10";
+        };
+        return URI.create("http://localhost:" + port + chemin);
+    }
+
+    private static String departement(int rang) {
+        return String.format("%02d", rang + 1);
+    }
+
+    private static long centile(long[] triees, double rang) {
+        return triees[Math.min(triees.length - 1, (int) Math.ceil(rang * triees.length) - 1)];
+    }
+
+    private record Resultat(int requetes, int erreurs, long dureeNs, long p50Ns, long p99Ns) {
+
+        @Override
+        public String toString() {
+            return String.format("%d requêtes en %d ms, %d req/s, p50 %.1f ms, p99 %.1f ms, %d erreurs",
+                    requetes, dureeNs / 1_000_000, requetes * 1_000_000_000L / dureeNs,
+                    p50Ns / 1e6, p99Ns / 1e6, erreurs);
+        }
+    }
+}
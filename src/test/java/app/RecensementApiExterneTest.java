@@ -0,0 +1,153 @@
+package app;
+
+import app.dto.RafraichissementDto;
+import app.loader.ChargeurRecensement;
+import app.loader.RafraichissementRecensement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chargement du recensement depuis l'API (source par défaut), servie ici par {@link ApiGeoBouchon}.
+ * <p>
+ * Le contexte charge le contenu initial du bouchon au démarrage ; chaque test qui le modifie le
+ * rétablit ensuite ({@link #retablir()}).
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class RecensementApiExterneTest {
+
+    private static final ApiGeoBouchon API = new ApiGeoBouchon();
+
+    static {
+        remplir();
+    }
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.api.url", API::url);
+    }
+
+    @Autowired
+    private ChargeurRecensement chargeur;
+
+    @Autowired
+    private RafraichissementRecensement rafraichissement;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static void remplir() {
+        API.region("84", "Auvergne-Rhône-Alpes")
+                .region("11", "Île-de-France")
+                .departement("42", "Loire", "84")
+                .departement("75", "Paris", "11")
+                .commune("42218", "Saint-Étienne", "42", 173_089)
+                .commune("42187", "Roanne", "42", 34_366)
+                .commune("42095", "Firminy", "42", 16_981)
+                .commune("75056", "Paris", "75", 2_133_111);
+    }
+
+    @AfterEach
+    void retablir() {
+        API.vider();
+        remplir();
+        rafraichissement.rafraichir();
+        API.remettreAZeroAppels();
+    }
+
+    @AfterAll
+    static void arreter() {
+        API.close();
+    }
+
+    @Test
+    void lApiEstLaSourceParDefaut() {
+        assertThat(chargeur).isInstanceOf(RecensementApiExterne.class);
+    }
+
+    @Test
+    void leDemarrageChargeRegionsDepartementsEtCommunes() {
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ville", Integer.class))
+                .isEqualTo(API.nbCommunes());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT d.nom FROM departement d WHERE d.code = '42'", String.class)).isEqualTo("Loire");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT r.nom FROM departement d JOIN region r ON r.id = d.region_id WHERE d.code = '75'",
+                String.class)).isEqualTo("Île-de-France");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT v.nom FROM ville v WHERE v.code = '42218'", String.class)).isEqualTo("Saint-Étienne");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT v.population_municipale FROM ville v WHERE v.code = '75056'", Integer.class))
+                .isEqualTo(2_133_111);
+    }
+
+    @Test
+    void unRafraichissementSurUneSourceInchangeeNEcritRien() {
+        API.remettreAZeroAppels();
+
+        RafraichissementDto bilan = rafraichissement.rafraichir().orElseThrow();
+
+        assertThat(bilan.source()).isEqualTo("api");
+        assertThat(bilan.lues()).isEqualTo(API.nbCommunes());
+        assertThat(bilan.inchangees()).isEqualTo(API.nbCommunes());
+        assertThat(bilan.aChange()).isFalse();
+        assertThat(API.appels("/regions")).isEqualTo(1);
+        assertThat(API.appels("/departements")).isEqualTo(1);
+        assertThat(API.appels("/departements/42/communes")).isEqualTo(1);
+        assertThat(API.appels("/departements/75/communes")).isEqualTo(1);
+    }
+
+    @Test
+    void unRafraichissementAppliqueAjoutsModificationsEtSuppressions() {
+        API.commune("42187", "Roanne", "42", 35_000)
+                .retirer("42095")
+                .commune("42184", "Rive-de-Gier", "42", 15_524);
+
+        RafraichissementDto bilan = rafraichissement.rafraichir().orElseThrow();
+
+        assertThat(bilan.inserees()).isEqualTo(1);
+        assertThat(bilan.modifiees()).isEqualTo(1);
+        assertThat(bilan.supprimees()).isEqualTo(1);
+        assertThat(bilan.inchangees()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT v.population_totale FROM ville v WHERE v.code = '42187'", Integer.class)).isEqualTo(35_000);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ville v WHERE v.code IN ('42095', '42184')", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ville", Integer.class))
+                .isEqualTo(API.nbCommunes());
+    }
+
+    @Test
+    void uneCommuneDUnDepartementInconnuNEstPasSupprimee() {
+        API.communeDans("42", "42095", "Firminy", "99", 16_981);
+
+        RafraichissementDto bilan = rafraichissement.rafraichir().orElseThrow();
+
+        assertThat(bilan.supprimees()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT v.nom FROM ville v WHERE v.code = '42095'", String.class)).isEqualTo("Firminy");
+    }
+
+    @Test
+    void unDepartementSansCommuneDansLaReponseNEstPasVide() {
+        API.retirer("75056");
+        API.remettreAZeroAppels();
+
+        RafraichissementDto bilan = rafraichissement.rafraichir().orElseThrow();
+
+        assertThat(API.appels("/departements/75/communes")).isEqualTo(1);
+        assertThat(bilan.supprimees()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ville v WHERE v.code = '75056'", Integer.class)).isEqualTo(1);
+    }
+}
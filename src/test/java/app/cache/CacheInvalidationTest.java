@@ -0,0 +1,75 @@
+package app.cache;
+
+import app.ApiGeoBouchon;
+import app.dto.VilleDto;
+import app.entities.Departement;
+import app.entities.Ville;
+import app.services.VilleService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Une lecture qui a lu l'état précédent d'une ville et ne le range en cache qu'après l'invalidation
+ * ne le fait plus servir : il reste sous l'ancienne version de la clé.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class CacheInvalidationTest {
+
+    private static final ApiGeoBouchon API = new ApiGeoBouchon()
+            .region("84", "Auvergne-Rhône-Alpes")
+            .departement("42", "Loire", "84")
+            .commune("42218", "Saint-Étienne", "42", 173_089);
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.api.url", API::url);
+    }
+
+    @Autowired
+    private VilleService villeService;
+
+    @Autowired
+    private DatasetVersion datasetVersion;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterAll
+    static void arreter() {
+        API.close();
+    }
+
+    @Test
+    void unEtatLuAvantUneEcritureNEstPlusServiApresSonInvalidation() {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM ville WHERE code = '42218'", Long.class);
+        String cleAvant = datasetVersion.cleVille(id);
+        VilleDto avant = villeService.getById(id).orElseThrow();
+
+        Ville ville = new Ville();
+        ville.setCode("42218");
+        ville.setNom("Saint-Étienne");
+        ville.setPopulationMunicipale(180_000);
+        ville.setPopulationTotale(180_000);
+        ville.setDepartement(new Departement("42", null));
+        villeService.updateVille(id, ville);
+        // Lecture concurrente terminée après l'invalidation : elle range l'état qu'elle a lu
+        cacheManager.getCache(CacheConfig.VILLES).put(cleAvant, Optional.of(avant));
+
+        assertThat(villeService.getById(id).orElseThrow().getPopulationTotale()).isEqualTo(180_000);
+    }
+}
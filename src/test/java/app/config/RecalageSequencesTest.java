@@ -0,0 +1,50 @@
+package app.config;
+
+import app.ApiGeoBouchon;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Séquences d'identifiants d'une base dont les lignes ont été écrites avant leur création.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class RecalageSequencesTest {
+
+    private static final ApiGeoBouchon API = new ApiGeoBouchon().region("84", "Auvergne-Rhône-Alpes");
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.api.url", API::url);
+    }
+
+    @Autowired
+    private RecalageSequences recalage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterAll
+    static void arreter() {
+        API.close();
+    }
+
+    @Test
+    void uneSequenceEnRetardRepartApresLePlusGrandIdentifiant() {
+        // Ligne écrite du temps des identifiants générés par la base
+        jdbcTemplate.update("INSERT INTO region (id, code, nom) VALUES (50000, '99', 'Ancienne')");
+
+        assertThat(recalage.recaler("region", "region_seq")).isTrue();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR region_seq", Long.class)).isEqualTo(50_001L);
+        assertThat(recalage.recaler("region", "region_seq")).isFalse();
+    }
+}
@@ -0,0 +1,151 @@
+package app.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Routage des transactions entre deux bases H2 distinctes, primaire et réplique ({@link RoutageLectures}).
+ * <p>
+ * Chaque base porte une ligne témoin qui la nomme : la lire dans une transaction indique la base qui
+ * l'a servie. Aucune source de recensement n'est chargée.
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class RoutageLecturesTest {
+
+    private static final Duration FENETRE = Duration.ofSeconds(1);
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.source", () -> "aucune");
+        registry.add("recensement.datasource.replique.jdbc-url", () -> "jdbc:h2:mem:replique-" + UUID.randomUUID()
+                + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        registry.add("recensement.datasource.replique.username", () -> "sa");
+        registry.add("recensement.datasource.replique.password", () -> "");
+        registry.add("recensement.datasource.replique.driver-class-name", () -> "org.h2.Driver");
+        registry.add("recensement.datasource.replique.fenetre-primaire", FENETRE::toString);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("dataSourcePrimaire")
+    private DataSource primaire;
+
+    @Autowired
+    @Qualifier("dataSourceReplique")
+    private DataSource replique;
+
+    @BeforeEach
+    void marquerLesBases() {
+        marquer(primaire, "primaire");
+        marquer(replique, "replique");
+        attendreLaFinDeLaFenetre();
+    }
+
+    @Test
+    void uneTransactionEnLectureSeuleEstServieParLaReplique() {
+        assertThat(lectureSeule()).isEqualTo("replique");
+    }
+
+    @Test
+    void uneTransactionEnEcritureEstServieParLaPrimaire() {
+        assertThat(lecture(false)).isEqualTo("primaire");
+    }
+
+    @Test
+    void uneTransactionMixteLitEtEcritSurLaPrimaire() {
+        String valeur = UUID.randomUUID().toString();
+
+        String lue = transaction(false).execute(status -> {
+            String base = base();
+            jdbcTemplate.update("INSERT INTO ecriture (valeur) VALUES (?)", valeur);
+            return base;
+        });
+
+        assertThat(lue).isEqualTo("primaire");
+        assertThat(compterEcritures(primaire, valeur)).isEqualTo(1);
+        assertThat(compterEcritures(replique, valeur)).isZero();
+    }
+
+    @Test
+    void uneLectureQuiSuitUneEcritureEstServieParLaPrimairePendantLaFenetre() {
+        transaction(false).executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO ecriture (valeur) VALUES (?)", "apres-ecriture"));
+
+        assertThat(lectureSeule()).isEqualTo("primaire");
+
+        attendreLaFinDeLaFenetre();
+        assertThat(lectureSeule()).isEqualTo("replique");
+    }
+
+    @Test
+    void uneEcritureAnnuleeNOuvrePasDeFenetre() {
+        transaction(false).executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO ecriture (valeur) VALUES (?)", "annulee");
+            status.setRollbackOnly();
+        });
+
+        assertThat(lectureSeule()).isEqualTo("replique");
+    }
+
+    private String lectureSeule() {
+        return lecture(true);
+    }
+
+    /** @return la base qui a servi une lecture dans une transaction, en lecture seule ou non. */
+    private String lecture(boolean lectureSeule) {
+        return transaction(lectureSeule).execute(status -> base());
+    }
+
+    private String base() {
+        return jdbcTemplate.queryForObject("SELECT base FROM temoin", String.class);
+    }
+
+    private TransactionTemplate transaction(boolean lectureSeule) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(lectureSeule);
+        return template;
+    }
+
+    private static void marquer(DataSource base, String nom) {
+        JdbcTemplate jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS temoin (base VARCHAR(20) NOT NULL)");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS ecriture (valeur VARCHAR(40) NOT NULL)");
+        jdbc.update("DELETE FROM temoin");
+        jdbc.update("INSERT INTO temoin (base) VALUES (?)", nom);
+    }
+
+    private static int compterEcritures(DataSource base, String valeur) {
+        Integer nb = new JdbcTemplate(base).queryForObject("SELECT COUNT(*) FROM ecriture WHERE valeur = ?",
+                Integer.class, valeur);
+        return nb == null ? 0 : nb;
+    }
+
+    /** Attend que la fenêtre ouverte par le démarrage ou la dernière écriture soit refermée. */
+    private void attendreLaFinDeLaFenetre() {
+        await().atMost(FENETRE.multipliedBy(5)).pollInterval(Duration.ofMillis(100))
+                .until(() -> "replique".equals(lectureSeule()));
+    }
+}
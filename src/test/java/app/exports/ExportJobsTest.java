@@ -0,0 +1,149 @@
+package app.exports;
+
+import app.cache.DatasetVersion;
+import app.controllers.ExportController;
+import app.exceptions.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Déduplication, reprise après échec, purge et file d'attente bornée des {@link ExportJobs},
+ * avec des exporteurs simulés.
+ */
+class ExportJobsTest {
+
+    private final VilleCsvExporter villeCsvExporter = mock(VilleCsvExporter.class);
+    private final DatasetVersion datasetVersion = mock(DatasetVersion.class);
+
+    @TempDir
+    private Path repertoire;
+
+    private ExportJobs exportJobs;
+
+    @AfterEach
+    void arreter() {
+        if (exportJobs != null) {
+            exportJobs.arreter();
+        }
+    }
+
+    @Test
+    void deuxDemandesIdentiquesPartagentLeMemeExport() throws Exception {
+        exportJobs = exportJobs(2, 10, Duration.ofMinutes(15));
+        csvEcrit("ligne\n");
+        when(datasetVersion.globale()).thenReturn("v1");
+
+        ExportJob premier = exportJobs.exporterVillesCsv(1_000);
+        attendre(() -> premier.statut() == ExportJob.Statut.TERMINE);
+
+        assertThat(exportJobs.exporterVillesCsv(1_000)).isSameAs(premier);
+        assertThat(exportJobs.exporterVillesCsv(2_000)).isNotSameAs(premier);
+        when(datasetVersion.globale()).thenReturn("v2");
+        assertThat(exportJobs.exporterVillesCsv(1_000)).isNotSameAs(premier);
+        assertThat(Files.readString(premier.fichier())).isEqualTo("ligne\n");
+    }
+
+    @Test
+    void unExportEnEchecEstRelanceParLaDemandeSuivante() throws Exception {
+        exportJobs = exportJobs(2, 10, Duration.ofMinutes(15));
+        when(datasetVersion.globale()).thenReturn("v1");
+        when(villeCsvExporter.exporter(anyInt(), any())).thenThrow(new IOException("disque plein"));
+
+        ExportJob echec = exportJobs.exporterVillesCsv(1_000);
+        attendre(() -> echec.statut() == ExportJob.Statut.ECHEC);
+        assertThat(echec.erreur()).isEqualTo("disque plein");
+        assertThat(echec.fichier()).doesNotExist();
+
+        csvEcrit("ligne\n");
+        ExportJob relance = exportJobs.exporterVillesCsv(1_000);
+
+        assertThat(relance.id()).isNotEqualTo(echec.id());
+        attendre(() -> relance.statut() == ExportJob.Statut.TERMINE);
+    }
+
+    @Test
+    void unExportFiniEstOublieEtSonFichierSupprimeApresLaRetention() throws Exception {
+        exportJobs = exportJobs(2, 10, Duration.ofMillis(50));
+        csvEcrit("ligne\n");
+        when(datasetVersion.globale()).thenReturn("v1");
+
+        ExportJob job = exportJobs.exporterVillesCsv(1_000);
+        attendre(() -> job.statut() == ExportJob.Statut.TERMINE);
+        assertThat(exportJobs.job(job.id())).isSameAs(job);
+        Thread.sleep(100);
+
+        assertThatThrownBy(() -> exportJobs.job(job.id())).isInstanceOf(NotFoundException.class);
+        assertThat(job.fichier()).doesNotExist();
+        assertThat(exportJobs.exporterVillesCsv(1_000)).isNotSameAs(job);
+    }
+
+    @Test
+    void uneFileDAttentePleineRepond503() throws Exception {
+        exportJobs = exportJobs(1, 1, Duration.ofMinutes(15));
+        when(datasetVersion.globale()).thenReturn("v1");
+        CountDownLatch liberation = new CountDownLatch(1);
+        when(villeCsvExporter.exporter(anyInt(), any())).thenAnswer(invocation -> {
+            liberation.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+        ExportController controller = new ExportController();
+        ReflectionTestUtils.setField(controller, "exportJobs", exportJobs);
+        try {
+            ExportJob enCours = exportJobs.exporterVillesCsv(1);
+            attendre(() -> enCours.statut() == ExportJob.Statut.EN_COURS);
+            exportJobs.exporterVillesCsv(2);
+
+            assertThatThrownBy(() -> exportJobs.exporterVillesCsv(3)).isInstanceOf(RejectedExecutionException.class);
+            assertThatThrownBy(() -> controller.exporterVillesCsv(3))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            liberation.countDown();
+        }
+    }
+
+    private ExportJobs exportJobs(int parallelisme, int fileAttente, Duration retention) throws IOException {
+        return new ExportJobs(villeCsvExporter, mock(DepartementPdfExporter.class), datasetVersion,
+                new SimpleMeterRegistry(), repertoire, parallelisme, fileAttente, retention);
+    }
+
+    /** Le CSV simulé écrit {@code contenu} dans le fichier de l'export. */
+    private void csvEcrit(String contenu) throws IOException {
+        doAnswer(invocation -> {
+            VilleCsvExporter.Sortie sortie = invocation.getArgument(1);
+            sortie.ouvrir().write(contenu.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(villeCsvExporter).exporter(anyInt(), any());
+    }
+
+    private static void attendre(BooleanSupplier condition) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,87 @@
+package app.index;
+
+import app.dto.VilleProjection;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import app.repository.VilleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changements reçus par le {@link NomIndex} pendant une construction, et reconstruction
+ * déclenchée par un lot important.
+ */
+class NomIndexTest {
+
+    private final VilleRepository villeRepository = mock(VilleRepository.class);
+    private final NomIndex index = new NomIndex(villeRepository);
+
+    @Test
+    void unChangementRecuAvantLaConstructionEstRejoue() {
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, "Roanne")));
+        index.onVilleEvent(new VilleEvent(ville(1, "Roanne"), ville(1, "Riorges")));
+
+        index.construire();
+
+        assertThat(index.idsParPrefixe("roa", 10)).isEmpty();
+        assertThat(index.idsParPrefixe("rio", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void unChangementRecuPendantLaLectureDeLaBaseEstRejoue() {
+        when(villeRepository.findAllProjections()).thenAnswer(invocation -> {
+            // Validé après la lecture : absent des lignes renvoyées
+            index.onVilleEvent(new VilleEvent(null, ville(3, "Saint-Chamond")));
+            return List.of(ville(1, "Saint-Étienne"), ville(2, "Roanne"));
+        });
+
+        index.construire();
+
+        assertThat(index.estPret()).isTrue();
+        assertThat(index.idsParPrefixe("saint", 10)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void unLotImportantEstReconstruitHorsDuFilDeLEcriture() throws InterruptedException {
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, "Roanne")));
+        index.construire();
+
+        List<VilleProjection> villes = new ArrayList<>(List.of(ville(1, "Roanne")));
+        List<VilleEvent> lot = new ArrayList<>();
+        for (int i = 2; i <= PopulationIndex.SEUIL_RECONSTRUCTION + 2; i++) {
+            villes.add(ville(i, "Commune " + i));
+            lot.add(new VilleEvent(null, ville(i, "Commune " + i)));
+        }
+        CountDownLatch lecture = new CountDownLatch(1);
+        String[] thread = new String[1];
+        when(villeRepository.findAllProjections()).thenAnswer(invocation -> {
+            thread[0] = Thread.currentThread().getName();
+            lecture.await(5, TimeUnit.SECONDS);
+            return villes;
+        });
+
+        index.onVillesEvent(new VillesEvent(lot));
+
+        assertThat(index.estPret()).isFalse();
+        lecture.countDown();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!index.estPret() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(index.estPret()).isTrue();
+        assertThat(thread[0]).isEqualTo("index-noms");
+        assertThat(index.idsParPrefixe("commune", 1_000)).hasSize(lot.size());
+    }
+
+    private static VilleProjection ville(long id, String nom) {
+        return new VilleProjection(id, "C" + id, nom, 1_000, 1_000, "42");
+    }
+}
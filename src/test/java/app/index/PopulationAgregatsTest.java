@@ -0,0 +1,72 @@
+package app.index;
+
+import app.dto.VilleProjection;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import app.index.PopulationAgregats.Agregat;
+import app.repository.DepartementRepository;
+import app.repository.VilleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changements reçus par les {@link PopulationAgregats} après leur construction : appliqués une seule
+ * fois, y compris quand la lecture de la base les contenait déjà.
+ */
+class PopulationAgregatsTest {
+
+    private final VilleRepository villeRepository = mock(VilleRepository.class);
+    private final PopulationAgregats agregats =
+            new PopulationAgregats(mock(DepartementRepository.class), villeRepository);
+
+    @Test
+    void unChangementDejaLuParLaConstructionEstIgnore() {
+        // La construction a lu l'état validé, la notification arrive ensuite
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, "42", 5_000), ville(2, "75", 300)));
+        agregats.construire();
+
+        agregats.onVilleEvent(new VilleEvent(ville(1, "42", 100), ville(1, "42", 5_000)));
+        agregats.onVilleEvent(new VilleEvent(null, ville(2, "75", 300)));
+
+        assertThat(agregats.departement("42")).isEqualTo(new Agregat(1, 5_000));
+        assertThat(agregats.national()).isEqualTo(new Agregat(2, 5_300));
+    }
+
+    @Test
+    void unChangementRecuDeuxFoisNEstAppliqueQuUneFois() {
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, "42", 100)));
+        agregats.construire();
+        VilleEvent deplacement = new VilleEvent(ville(1, "42", 100), ville(1, "75", 200));
+        VilleEvent suppression = new VilleEvent(ville(1, "75", 200), null);
+
+        agregats.onVillesEvent(new VillesEvent(List.of(deplacement, deplacement)));
+        assertThat(agregats.departement("42")).isEqualTo(new Agregat(0, 0));
+        assertThat(agregats.departement("75")).isEqualTo(new Agregat(1, 200));
+
+        agregats.onVilleEvent(suppression);
+        agregats.onVilleEvent(suppression);
+        assertThat(agregats.national()).isEqualTo(new Agregat(0, 0));
+    }
+
+    @Test
+    void lesAgregatsPubliesNeSontPasModifiesParLesChangementsSuivants() {
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, "42", 100)));
+        agregats.construire();
+        Map<String, Agregat> avant = agregats.departements();
+
+        agregats.onVilleEvent(new VilleEvent(null, ville(2, "42", 50)));
+
+        assertThat(avant).containsEntry("42", new Agregat(1, 100));
+        assertThat(agregats.departements()).containsEntry("42", new Agregat(2, 150));
+    }
+
+    private static VilleProjection ville(long id, String codeDepartement, int population) {
+        return new VilleProjection(id, "C" + id, "Ville " + id, population, population, codeDepartement);
+    }
+}
@@ -0,0 +1,86 @@
+package app.index;
+
+import app.dto.VilleProjection;
+import app.events.VilleEvent;
+import app.events.VillesEvent;
+import app.repository.VilleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changements reçus par le {@link PopulationIndex} pendant une construction, et reconstruction
+ * déclenchée par un lot important.
+ */
+class PopulationIndexTest {
+
+    private final VilleRepository villeRepository = mock(VilleRepository.class);
+    private final PopulationIndex index = new PopulationIndex(villeRepository);
+
+    @Test
+    void unChangementRecuAvantLaConstructionEstRejoue() {
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, 100)));
+        index.onVilleEvent(new VilleEvent(ville(1, 100), ville(1, 5_000)));
+
+        index.construire();
+
+        assertThat(index.idsPopulationSuperieure(1_000)).containsExactly(1L);
+    }
+
+    @Test
+    void unChangementRecuPendantLaLectureDeLaBaseEstRejoue() {
+        when(villeRepository.findAllProjections()).thenAnswer(invocation -> {
+            // Validé après la lecture : absent des lignes renvoyées
+            index.onVilleEvent(new VilleEvent(null, ville(3, 300)));
+            return List.of(ville(1, 100), ville(2, 200));
+        });
+
+        index.construire();
+
+        assertThat(index.estPret()).isTrue();
+        assertThat(index.idsPopulationSuperieure(0)).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void unLotImportantEstReconstruitHorsDuFilDeLEcriture() throws InterruptedException {
+        when(villeRepository.findAllProjections()).thenReturn(List.of(ville(1, 100)));
+        index.construire();
+
+        List<VilleProjection> villes = new ArrayList<>(List.of(ville(1, 100)));
+        List<VilleEvent> lot = new ArrayList<>();
+        for (int i = 2; i <= PopulationIndex.SEUIL_RECONSTRUCTION + 2; i++) {
+            villes.add(ville(i, i * 10));
+            lot.add(new VilleEvent(null, ville(i, i * 10)));
+        }
+        CountDownLatch lecture = new CountDownLatch(1);
+        String[] thread = new String[1];
+        when(villeRepository.findAllProjections()).thenAnswer(invocation -> {
+            thread[0] = Thread.currentThread().getName();
+            lecture.await(5, TimeUnit.SECONDS);
+            return villes;
+        });
+
+        index.onVillesEvent(new VillesEvent(lot));
+
+        assertThat(index.estPret()).isFalse();
+        lecture.countDown();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!index.estPret() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(index.estPret()).isTrue();
+        assertThat(thread[0]).isEqualTo("index-populations");
+        assertThat(index.idsPopulationSuperieure(0)).hasSize(villes.size());
+    }
+
+    private static VilleProjection ville(long id, int population) {
+        return new VilleProjection(id, "C" + id, "Ville " + id, population, population, "42");
+    }
+}
@@ -0,0 +1,214 @@
+package app.loader;
+
+import app.dto.VilleDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lecture en flux du tableau de communes ({@link CommunesJsonParser}) comparée à sa matérialisation en
+ * {@code VilleDto[]}, contre un serveur local qui sert des fichiers JSON générés.
+ * <p>
+ * La mémoire retenue est mesurée après un GC complet, à mi-parcours du flux pour la lecture en flux et
+ * une fois le tableau reçu pour la matérialisation. Les bornes sont larges : elles distinguent un coût
+ * constant (un lot en cours) d'un coût proportionnel à la taille de la réponse.
+ * </p>
+ */
+class CommunesJsonParserTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommunesJsonParserTest.class);
+
+    private static final int PETIT = 50_000;
+    private static final int GRAND = 200_000;
+    private static final int TAILLE_LOT = 5_000;
+    private static final long MO = 1024 * 1024;
+
+    @TempDir
+    static Path dossier;
+
+    private static HttpServer serveur;
+    private static String url;
+
+    /** Débloque la seconde moitié de la réponse {@code /lent}. */
+    private static volatile CountDownLatch suite;
+    private static final AtomicBoolean reponseTerminee = new AtomicBoolean();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    @BeforeAll
+    static void demarrer() throws IOException {
+        generer(dossier.resolve("petit.json"), PETIT);
+        generer(dossier.resolve("grand.json"), GRAND);
+
+        serveur = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serveur.setExecutor(Executors.newCachedThreadPool());
+        serveur.createContext("/fichiers/", echange -> {
+            Path fichier = dossier.resolve(echange.getRequestURI().getPath().substring("/fichiers/".length()));
+            echange.getResponseHeaders().set("Content-Type", "application/json");
+            echange.sendResponseHeaders(200, 0);
+            try (OutputStream out = echange.getResponseBody()) {
+                Files.copy(fichier, out);
+            }
+        });
+        // Envoie la première moitié du fichier, puis attend que le client ait reçu une commune
+        serveur.createContext("/lent", echange -> {
+            byte[] contenu = Files.readAllBytes(dossier.resolve("petit.json"));
+            echange.getResponseHeaders().set("Content-Type", "application/json");
+            echange.sendResponseHeaders(200, 0);
+            try (OutputStream out = echange.getResponseBody()) {
+                out.write(contenu, 0, contenu.length / 2);
+                out.flush();
+                suite.await(10, TimeUnit.SECONDS);
+                reponseTerminee.set(true);
+                out.write(contenu, contenu.length / 2, contenu.length - contenu.length / 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        serveur.start();
+        url = "http://" + serveur.getAddress().getHostString() + ":" + serveur.getAddress().getPort();
+    }
+
+    @AfterAll
+    static void arreter() {
+        serveur.stop(0);
+    }
+
+    @Test
+    void lesCommunesArriventAvantLaFinDeLaReponse() {
+        suite = new CountDownLatch(1);
+        reponseTerminee.set(false);
+        AtomicBoolean recueAvantLaFin = new AtomicBoolean();
+
+        Long nb = restTemplate.execute(url + "/lent", HttpMethod.GET, null, response ->
+                CommunesJsonParser.parcourir(response.getBody(), objectMapper, dto -> {
+                    if (suite.getCount() > 0) {
+                        recueAvantLaFin.set(!reponseTerminee.get());
+                        suite.countDown();
+                    }
+                }));
+
+        assertThat(recueAvantLaFin).isTrue();
+        assertThat(nb).isEqualTo(PETIT);
+    }
+
+    @Test
+    void laLectureEnFluxGardeUneMemoireConstante() {
+        Mesure fluxPetit = enFlux("petit.json", PETIT);
+        Mesure fluxGrand = enFlux("grand.json", GRAND);
+        Mesure tableauGrand = materialise("grand.json", GRAND);
+
+        LOG.info("{} communes en flux : {} Mo retenus, {} communes/s.", PETIT, fluxPetit.retenuMo(), fluxPetit.debit());
+        LOG.info("{} communes en flux : {} Mo retenus, {} communes/s.", GRAND, fluxGrand.retenuMo(), fluxGrand.debit());
+        LOG.info("{} communes matérialisées : {} Mo retenus, {} communes/s.", GRAND, tableauGrand.retenuMo(),
+                tableauGrand.debit());
+
+        // Un lot en cours, quelle que soit la taille de la réponse
+        assertThat(fluxPetit.retenu()).isLessThan(16 * MO);
+        assertThat(fluxGrand.retenu()).isLessThan(16 * MO);
+        assertThat(fluxGrand.retenu() - fluxPetit.retenu()).isLessThan(8 * MO);
+        // Le tableau complet, lui, reste en mémoire jusqu'à son traitement
+        assertThat(tableauGrand.retenu()).isGreaterThan(4 * Math.max(fluxGrand.retenu(), MO));
+    }
+
+    /** Lit la réponse en flux et l'écrit par lots simulés, en mesurant la mémoire retenue à mi-parcours. */
+    private Mesure enFlux(String fichier, int nb) {
+        long avant = memoireRetenue();
+        AtomicLong milieu = new AtomicLong();
+        AtomicLong dureeMesure = new AtomicLong();
+        List<VilleDto> lot = new ArrayList<>(TAILLE_LOT);
+        long debut = System.nanoTime();
+        Long lues = restTemplate.execute(url + "/fichiers/" + fichier, HttpMethod.GET, null, response ->
+                CommunesJsonParser.parcourir(response.getBody(), objectMapper, dto -> {
+                    lot.add(dto);
+                    if (lot.size() >= TAILLE_LOT) {
+                        lot.clear();
+                    }
+                    if (milieu.get() == 0 && dto.getCode().equals(code(nb / 2))) {
+                        long debutMesure = System.nanoTime();
+                        milieu.set(memoireRetenue());
+                        dureeMesure.set(System.nanoTime() - debutMesure);
+                    }
+                }));
+        // Le GC de la mesure n'est pas compté dans le débit
+        long duree = System.nanoTime() - debut - dureeMesure.get();
+        assertThat(lues).isEqualTo(nb);
+        return new Mesure(nb, milieu.get() - avant, duree);
+    }
+
+    /** Lit la réponse en un tableau, comme {@code getForObject(url, VilleDto[].class)}. */
+    private Mesure materialise(String fichier, int nb) {
+        long avant = memoireRetenue();
+        long debut = System.nanoTime();
+        VilleDto[] communes = restTemplate.getForObject(url + "/fichiers/" + fichier, VilleDto[].class);
+        long duree = System.nanoTime() - debut;
+        long apres = memoireRetenue();
+        assertThat(communes).hasSize(nb);
+        Reference.reachabilityFence(communes);
+        return new Mesure(nb, apres - avant, duree);
+    }
+
+    private record Mesure(int communes, long retenu, long dureeNs) {
+
+        long retenuMo() {
+            return retenu / MO;
+        }
+
+        long debit() {
+            return communes * 1_000_000_000L / Math.max(dureeNs, 1);
+        }
+    }
+
+    private static long memoireRetenue() {
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String code(int i) {
+        return String.format("%05d", i);
+    }
+
+    private static void generer(Path fichier, int nb) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            out.write('[');
+            for (int i = 0; i < nb; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write("{\"nom\":\"Commune n°" + i + "\",\"code\":\"" + code(i) + "\",\"codeDepartement\":\""
+                        + (1 + i % 95) + "\",\"population\":" + (i % 100_000) + "}");
+            }
+            out.write(']');
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package app.loader;
+
+import app.dto.RafraichissementDto;
+import app.dto.VilleDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Copie binaire du CSV ({@link RecensementBinaire}) : relecture à l'identique, puis retour au CSV
+ * par le chargeur ({@link RecensementCsvLoader}) quand la copie ne correspond plus au fichier ou
+ * qu'elle est altérée.
+ * <p>
+ * Le contexte charge un petit CSV écrit dans un dossier temporaire, qui reçoit aussi la copie binaire.
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({"test", "csv"})
+class RecensementBinaireTest {
+
+    private static final String EN_TETE = "Code région;Nom de la région;Code département;Code arrondissement;"
+            + "Code canton;Code commune;Nom de la commune;Population municipale;Population comptée à part;"
+            + "Population totale;\n";
+
+    private static final String CSV = EN_TETE
+            + "84;Auvergne-Rhône-Alpes;42;1;01;218;Saint-Étienne;171 924;1 165;173 089;\n"
+            + "84;Auvergne-Rhône-Alpes;42;2;02;187;Roanne;34 366;524;34 890;\n"
+            + "11;Île-de-France;75;1;01;056;Paris;2 133 111;0;2 133 111;\n"
+            + "971;Guadeloupe;971;1;01;101;Les Abymes;53 491;711;54 202;\n";
+
+    private static final Path DOSSIER;
+    private static final Path FICHIER;
+    private static final Path COPIE;
+
+    static {
+        try {
+            DOSSIER = Files.createTempDirectory("recensement-binaire");
+            FICHIER = DOSSIER.resolve("recensement.csv");
+            COPIE = DOSSIER.resolve("recensement-csv.bin");
+            Files.writeString(FICHIER, CSV);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.csv.fichier", () -> "file:" + FICHIER.toAbsolutePath());
+        registry.add("recensement.csv.binaire", COPIE::toString);
+    }
+
+    @Autowired
+    private RafraichissementRecensement rafraichissement;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void retablir() throws IOException {
+        Files.writeString(FICHIER, CSV);
+        rafraichissement.rafraichir();
+    }
+
+    @Test
+    void laCopieBinaireRestitueLesCommunesEtRegionsDuCsv() throws IOException {
+        Path copie = DOSSIER.resolve("aller-retour.bin");
+        List<VilleDto> communesCsv = new ArrayList<>();
+        Map<String, RecensementCsvParser.Region> regionsCsv = new LinkedHashMap<>();
+        RecensementBinaire.Enregistreur enregistreur = new RecensementBinaire.Enregistreur();
+        Consumer<VilleDto> communeLue = communesCsv::add;
+        BiConsumer<String, RecensementCsvParser.Region> regionLue = regionsCsv::put;
+        try (BufferedReader reader = Files.newBufferedReader(FICHIER)) {
+            RecensementCsvParser.parcourir(reader, communeLue.andThen(enregistreur), regionLue.andThen(enregistreur));
+        }
+        long empreinte = RecensementBinaire.empreinte(new FileSystemResource(FICHIER));
+        enregistreur.ecrire(copie, empreinte);
+
+        List<VilleDto> communes = new ArrayList<>();
+        Map<String, RecensementCsvParser.Region> regions = new LinkedHashMap<>();
+        long lues = RecensementBinaire.parcourir(copie, communes::add, regions::put);
+
+        assertThat(RecensementBinaire.correspond(copie, empreinte)).isTrue();
+        assertThat(lues).isEqualTo(4);
+        assertThat(communes).usingRecursiveFieldByFieldElementComparator().isEqualTo(communesCsv);
+        assertThat(regions).isEqualTo(regionsCsv);
+        assertThat(communes.get(3).getCode()).isEqualTo("97101");
+    }
+
+    @Test
+    void unCsvModifieEstReluMalgreLaCopieBinaire() throws IOException {
+        long empreinteAvant = RecensementBinaire.empreinte(new FileSystemResource(FICHIER));
+        assertThat(RecensementBinaire.correspond(COPIE, empreinteAvant)).isTrue();
+        Files.writeString(FICHIER, CSV.replace("34 366;524;34 890", "35 000;524;35 524"));
+
+        RafraichissementDto bilan = rafraichissement.rafraichir().orElseThrow();
+
+        assertThat(bilan.modifiees()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT v.population_totale FROM ville v WHERE v.code = '42187'", Integer.class)).isEqualTo(35_524);
+        long empreinteApres = RecensementBinaire.empreinte(new FileSystemResource(FICHIER));
+        assertThat(RecensementBinaire.correspond(COPIE, empreinteAvant)).isFalse();
+        assertThat(RecensementBinaire.correspond(COPIE, empreinteApres)).isTrue();
+    }
+
+    @Test
+    void uneCopieBinaireAltereeEstRemplaceeParLaLectureDuCsv() throws IOException {
+        byte[] octets = Files.readAllBytes(COPIE);
+        octets[octets.length / 2] ^= 0x5A;
+        Files.write(COPIE, octets);
+        List<VilleDto> transmises = new ArrayList<>();
+        assertThatThrownBy(() -> RecensementBinaire.parcourir(COPIE, transmises::add, (code, region) -> { }))
+                .isInstanceOf(IOException.class);
+        assertThat(transmises).isEmpty();
+
+        RafraichissementDto bilan = rafraichissement.rafraichir().orElseThrow();
+
+        assertThat(bilan.lues()).isEqualTo(4);
+        assertThat(bilan.inchangees()).isEqualTo(4);
+        assertThat(RecensementBinaire.parcourir(COPIE, transmises::add, (code, region) -> { })).isEqualTo(4);
+    }
+}
@@ -0,0 +1,144 @@
+package app.loader;
+
+import app.dto.RafraichissementDto;
+import app.dto.VilleDto;
+import app.entities.Ville;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Classement des communes lues par la {@link Synchronisation} et bilan du rafraîchissement,
+ * sur un {@link RecensementJdbcWriter} simulé.
+ */
+class SynchronisationTest {
+
+    private static final Map<String, Long> IDS_DEPARTEMENT = Map.of("42", 1L, "75", 2L);
+
+    private final RecensementJdbcWriter writer = mock(RecensementJdbcWriter.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private final List<VilleDto> inserees = new ArrayList<>();
+    private final List<VilleDto> modifiees = new ArrayList<>();
+    private final List<Long> supprimees = new ArrayList<>();
+
+    @Test
+    void insertionsModificationsEtSuppressionsSontCompteesEtEcrites() {
+        Synchronisation synchronisation = synchronisation(
+                enBase(1, "42218", "Saint-Étienne", "42", 173_089),
+                enBase(2, "42187", "Roanne", "42", 34_366),
+                enBase(3, "42095", "Firminy", "42", 16_981));
+
+        List<VilleDto> lot = lire(synchronisation,
+                dto("42218", "Saint-Étienne", "42", 173_089),
+                dto("42187", "Roanne", "42", 35_000),
+                dto("42184", "Rive-de-Gier", "42", 15_524));
+        synchronisation.ecrire(lot, IDS_DEPARTEMENT);
+        RafraichissementDto bilan = synchronisation.terminer(System.nanoTime());
+
+        assertThat(lot).extracting(VilleDto::getCode).containsExactly("42187", "42184");
+        assertThat(inserees).extracting(VilleDto::getCode).containsExactly("42184");
+        assertThat(modifiees).extracting(VilleDto::getCode).containsExactly("42187");
+        assertThat(supprimees).containsExactly(3L);
+        assertThat(bilan.lues()).isEqualTo(3);
+        assertThat(bilan.inserees()).isEqualTo(1);
+        assertThat(bilan.modifiees()).isEqualTo(1);
+        assertThat(bilan.supprimees()).isEqualTo(1);
+        assertThat(bilan.inchangees()).isEqualTo(1);
+        assertThat(bilan.aChange()).isTrue();
+    }
+
+    @Test
+    void uneSourceInchangeeNEcritRien() {
+        Synchronisation synchronisation = synchronisation(
+                enBase(1, "42218", "Saint-Étienne", "42", 173_089),
+                enBase(2, "75056", "Paris", "75", 2_133_111));
+
+        List<VilleDto> lot = lire(synchronisation,
+                dto("42218", "Saint-Étienne", "42", 173_089),
+                dto("75056", "Paris", "75", 2_133_111),
+                dto("75056", "Paris", "75", 2_133_111));
+        RafraichissementDto bilan = synchronisation.terminer(System.nanoTime());
+
+        assertThat(lot).isEmpty();
+        assertThat(bilan.lues()).isEqualTo(3);
+        assertThat(bilan.inchangees()).isEqualTo(2);
+        assertThat(bilan.aChange()).isFalse();
+        verify(writer, never()).supprimerVilles(any());
+    }
+
+    @Test
+    void lesVillesDUnDepartementSansCommuneLueSontConservees() {
+        Synchronisation synchronisation = synchronisation(
+                enBase(1, "42218", "Saint-Étienne", "42", 173_089),
+                enBase(2, "75056", "Paris", "75", 2_133_111));
+
+        lire(synchronisation, dto("42218", "Saint-Étienne", "42", 173_089));
+        RafraichissementDto bilan = synchronisation.terminer(System.nanoTime());
+
+        assertThat(bilan.supprimees()).isZero();
+        verify(writer, never()).supprimerVilles(any());
+    }
+
+    /** Synchronisation d'une base contenant {@code villes} ; les écritures sont relevées. */
+    private Synchronisation synchronisation(VilleDto... villes) {
+        Map<String, RecensementJdbcWriter.EmpreinteVille> empreintes = new HashMap<>();
+        for (VilleDto v : villes) {
+            empreintes.put(v.getCode(), new RecensementJdbcWriter.EmpreinteVille(v.getId(),
+                    Ville.empreinte(v.getNom(), v.getPopulationMunicipale(), v.getPopulationTotale(),
+                            v.getCodeDepartement()),
+                    v.getCodeDepartement()));
+        }
+        when(writer.chargerEmpreintesVilles()).thenReturn(empreintes);
+        when(writer.insererVilles(anyList(), anyMap())).thenAnswer(invocation -> {
+            List<VilleDto> lot = invocation.getArgument(0);
+            inserees.addAll(lot);
+            return lot.size();
+        });
+        when(writer.mettreAJourVilles(anyList(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<VilleDto> lot = invocation.getArgument(0);
+            modifiees.addAll(lot);
+            return lot.size();
+        });
+        when(writer.supprimerVilles(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            supprimees.addAll(ids);
+            return ids.size();
+        });
+        return new Synchronisation(writer, transactionTemplate, "test");
+    }
+
+    /** @return communes à écrire, dans l'ordre de lecture. */
+    private static List<VilleDto> lire(Synchronisation synchronisation, VilleDto... communes) {
+        List<VilleDto> lot = new ArrayList<>();
+        for (VilleDto dto : communes) {
+            if (synchronisation.aEcrire(dto)) {
+                lot.add(dto);
+            }
+        }
+        return lot;
+    }
+
+    private static VilleDto dto(String code, String nom, String codeDepartement, int population) {
+        return new VilleDto(null, nom, code, codeDepartement, population);
+    }
+
+    private static VilleDto enBase(long id, String code, String nom, String codeDepartement, int population) {
+        return new VilleDto(id, nom, code, codeDepartement, population);
+    }
+}
@@ -0,0 +1,110 @@
+package app.services.impl;
+
+import app.ApiGeoBouchon;
+import app.dto.DepartementDto;
+import app.dto.DepartementMapper;
+import app.dto.VilleDto;
+import app.repository.DepartementRepository;
+import app.services.VilleService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes SQL des recherches de villes servies par les index en mémoire : une par tranche
+ * de {@value VilleServiceImpl#TAILLE_LOT_IDS} identifiants.
+ * <p>
+ * Le jeu de données compte plusieurs tranches, et les requêtes sont comptées par les statistiques
+ * Hibernate ({@code hibernate.generate_statistics}).
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class VilleServiceImplTest {
+
+    private static final int NB_VILLES = 2_500;
+
+    private static final ApiGeoBouchon API = new ApiGeoBouchon();
+
+    static {
+        API.region("84", "Auvergne-Rhône-Alpes").departement("42", "Loire", "84");
+        for (int i = 1; i <= NB_VILLES; i++) {
+            API.commune(String.format("42%03d", i), "Commune " + i, "42", i);
+        }
+    }
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.api.url", API::url);
+    }
+
+    @Autowired
+    private VilleService villeService;
+
+    @Autowired
+    private DepartementRepository departementRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistiques;
+
+    @BeforeEach
+    void statistiques() {
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    static void arreter() {
+        API.close();
+    }
+
+    @Test
+    void populationMinimale() {
+        List<VilleDto> villes = compterRequetes(() -> villeService.findByPopulationMin(0));
+
+        assertThat(villes).hasSize(NB_VILLES);
+        assertThat(villes.get(0).getPopulationTotale()).isEqualTo(NB_VILLES);
+    }
+
+    @Test
+    void populationComprise() {
+        assertThat(compterRequetes(() -> villeService.findByPopulationBetween(100, 2_300))).hasSize(2_201);
+    }
+
+    @Test
+    void prefixeDuNom() {
+        assertThat(compterRequetes(() -> villeService.findByNomPrefix("commune"))).hasSize(NB_VILLES);
+    }
+
+    @Test
+    void topDuDepartementEtDeLaRegion() {
+        DepartementDto loire = DepartementMapper.toDto(departementRepository.findByCode("42").orElseThrow());
+
+        assertThat(compterRequetes(() -> villeService.findTopNByDepartement(loire, 2_000))).hasSize(2_000);
+        assertThat(compterRequetes(() -> villeService.findTopNByRegion("84", 2_000))).hasSize(2_000);
+    }
+
+    /** Exécute la recherche et vérifie qu'elle n'a préparé qu'une requête SQL par tranche d'identifiants. */
+    private List<VilleDto> compterRequetes(Supplier<List<VilleDto>> recherche) {
+        statistiques.clear();
+        List<VilleDto> villes = recherche.get();
+        int tranches = (villes.size() + VilleServiceImpl.TAILLE_LOT_IDS - 1) / VilleServiceImpl.TAILLE_LOT_IDS;
+        assertThat(statistiques.getPrepareStatementCount()).as("requêtes SQL de la recherche").isEqualTo(tranches);
+        return villes;
+    }
+}
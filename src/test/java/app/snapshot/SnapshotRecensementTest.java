@@ -0,0 +1,115 @@
+package app.snapshot;
+
+import app.ApiGeoBouchon;
+import app.dto.VilleDto;
+import app.entities.Departement;
+import app.services.VilleService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Photographie construite depuis le fichier CSV ({@code POST /admin/snapshot/recharger?source=csv}) sur une
+ * base chargée depuis l'API : les villes et départements connus de la base y gardent leur identifiant,
+ * les autres reçoivent un identifiant négatif.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class SnapshotRecensementTest {
+
+    private static final ApiGeoBouchon API = new ApiGeoBouchon()
+            .region("84", "Auvergne-Rhône-Alpes")
+            .departement("42", "Loire", "84")
+            .commune("42218", "Saint-Étienne", "42", 173_089)
+            .commune("42187", "Roanne", "42", 34_366);
+
+    /**
+     * Une ville d'un département absent de la base, une ville absente de la base puis deux villes en base :
+     * l'ordre du fichier ne suit pas celui des identifiants.
+     */
+    private static final Path CSV = ecrireCsv("""
+            Code région;Nom de la région;Code département;Code arrondissement;Code canton;Code commune;Nom de la commune;Population municipale;Population comptée à part;Population totale;
+            93;Provence-Alpes-Côte d'Azur;13;1;04;055;Marseille;870 000;3 000;873 000;
+            84;Auvergne-Rhône-Alpes;42;1;03;207;Saint-Chamond;35 000;400;35 400;
+            84;Auvergne-Rhône-Alpes;42;2;02;187;Roanne;34 000;366;34 366;
+            84;Auvergne-Rhône-Alpes;42;1;01;218;Saint-Étienne;170 000;3 089;173 089;
+            """);
+
+    @DynamicPropertySource
+    static void proprietes(DynamicPropertyRegistry registry) {
+        registry.add("recensement.api.url", API::url);
+        registry.add("recensement.mode", () -> "snapshot");
+        registry.add("recensement.csv.fichier", () -> CSV.toUri().toString());
+    }
+
+    @Autowired
+    private SnapshotRecensement snapshots;
+
+    @Autowired
+    private VilleService villeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterAll
+    static void arreter() throws IOException {
+        API.close();
+        Files.deleteIfExists(CSV);
+    }
+
+    @Test
+    void lesIdentifiantsDeLaPhotographieCsvSontCeuxDeLaBase() throws Exception {
+        Recensement recensement = snapshots.recharger(Recensement.Source.CSV).get();
+
+        assertThat(recensement.source()).isEqualTo(Recensement.Source.CSV);
+        for (String code : List.of("42218", "42187")) {
+            long id = idEnBase("ville", code);
+            assertThat(recensement.ville(id)).map(VilleDto::getCode).contains(code);
+        }
+        assertThat(recensement.departement("42")).map(Departement::getId).contains(idEnBase("departement", "42"));
+    }
+
+    @Test
+    void lesVillesEtDepartementsAbsentsDeLaBaseOntUnIdentifiantNegatif() throws Exception {
+        Recensement recensement = snapshots.recharger(Recensement.Source.CSV).get();
+
+        assertThat(recensement.parPrefixe("Saint-Chamond", 1)).singleElement()
+                .satisfies(ville -> assertThat(ville.getId()).isNegative());
+        assertThat(recensement.parPrefixe("Marseille", 1)).singleElement()
+                .satisfies(ville -> assertThat(ville.getId()).isNegative());
+        assertThat(recensement.departement("13")).map(Departement::getId).hasValueSatisfying(
+                id -> assertThat(id).isNegative());
+        // Le parcours par identifiant commence avant les identifiants négatifs
+        assertThat(villeService.getAllParCurseur(null, "id", 10).villes()).hasSize(4);
+    }
+
+    private long idEnBase(String table, String code) {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM " + table + " WHERE code = ?", Long.class, code);
+        assertThat(id).isNotNull();
+        return id;
+    }
+
+    private static Path ecrireCsv(String contenu) {
+        try {
+            Path fichier = Files.createTempFile("recensement-snapshot", ".csv");
+            Files.writeString(fichier, contenu, StandardCharsets.UTF_8);
+            return fichier;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}